@@ -0,0 +1,74 @@
+package fi.sutinse.pdfextractor.benchmark;
+
+import fi.sutinse.pdfextractor.model.DocumentType;
+import fi.sutinse.pdfextractor.model.Language;
+import fi.sutinse.pdfextractor.service.StructuredDataExtractionService;
+import fi.sutinse.pdfextractor.service.TextNormalizationService;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Microbenchmarks of the text-processing hot paths that run on every extracted document: language
+ * and document type detection, OCR text normalization and structured field extraction. Inputs are
+ * generated invoice-like texts from 1 KB to 5 MB in each supported language.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class TextProcessingBenchmark {
+
+  private static final long SEED = 20240101L;
+
+  @Param({"FINNISH", "SWEDISH", "ENGLISH"})
+  Language language;
+
+  @Param({"1024", "65536", "1048576", "5242880"})
+  int size;
+
+  private String text;
+  private DocumentType documentType;
+  private TextNormalizationService normalizationService;
+  private StructuredDataExtractionService structuredDataService;
+
+  @Setup
+  public void setUp() {
+    text = SampleTexts.document(DocumentType.INVOICE, language, size, SEED);
+    documentType = DocumentType.detectFromContent(text, language);
+    normalizationService = new TextNormalizationService();
+    structuredDataService = new StructuredDataExtractionService();
+  }
+
+  @Benchmark
+  public Language detectLanguage() {
+    return Language.detectFromContent(text);
+  }
+
+  @Benchmark
+  public DocumentType detectDocumentType() {
+    return DocumentType.detectFromContent(text, language);
+  }
+
+  @Benchmark
+  public String normalizeText() {
+    return normalizationService.normalizeText(text, language);
+  }
+
+  @Benchmark
+  public Map<String, Object> extractStructuredData() {
+    return structuredDataService.extractStructuredData(text, documentType, language);
+  }
+}
@@ -0,0 +1,257 @@
+package fi.sutinse.pdfextractor.benchmark;
+
+import fi.sutinse.pdfextractor.model.DocumentType;
+import fi.sutinse.pdfextractor.model.Language;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSString;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.pdmodel.graphics.image.CCITTFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.JPEGFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+
+/**
+ * Generates a synthetic PDF corpus for end-to-end benchmarks, so the pipeline can be measured
+ * without customer documents. Every document class is generated for each document type and
+ * language, one directory per class. Output is deterministic: the same generator settings produce
+ * byte-identical files, so results of different runs and machines are comparable.
+ */
+public final class CorpusGenerator {
+
+  /** Kind of document, also the name of its corpus directory */
+  public enum DocumentClass {
+    /** Text layer only */
+    TEXT,
+    /** Rasterized pages with noise and skew, JPEG compressed */
+    SCAN_JPEG,
+    /** Rasterized pages with noise and skew, bilevel CCITT G4 compressed */
+    SCAN_G4,
+    /** Text-layer and scanned pages alternating */
+    MIXED,
+    /** Pages without any content */
+    BLANK,
+    /** Text layer with a very large page count */
+    LARGE;
+
+    public String directoryName() {
+      return name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+  }
+
+  static final long SEED = 20240101L;
+
+  /** Page count of all but the {@link DocumentClass#LARGE} documents */
+  public static final int PAGES_PER_DOCUMENT = 2;
+
+  static final int SCAN_DPI = 200;
+
+  private static final PDType1Font FONT = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+  private static final float FONT_SIZE = 10;
+  private static final float LEADING = 13;
+  private static final float MARGIN = 56;
+  private static final int MAX_LINE_LENGTH = 90;
+  private static final float JPEG_QUALITY = 0.75f;
+  private static final double NOISE_RATIO = 0.002;
+  private static final double MAX_SKEW_DEGREES = 1.5;
+
+  private final int largePageCount;
+
+  /**
+   * @param largePageCount Page count of the {@link DocumentClass#LARGE} documents
+   */
+  public CorpusGenerator(int largePageCount) {
+    this.largePageCount = largePageCount;
+  }
+
+  /**
+   * Generates the full corpus
+   *
+   * @param directory Corpus root, created if missing; existing files are overwritten
+   * @return Generated files
+   * @throws IOException if a file cannot be written
+   */
+  public List<Path> generate(Path directory) throws IOException {
+    List<Path> files = new ArrayList<>();
+    for (DocumentClass documentClass : DocumentClass.values()) {
+      Path classDirectory =
+          Files.createDirectories(directory.resolve(documentClass.directoryName()));
+      // Large documents once per language, the rest for every document type
+      List<DocumentType> documentTypes =
+          documentClass == DocumentClass.LARGE
+              ? List.of(DocumentType.REPORT)
+              : List.of(DocumentType.values());
+      for (DocumentType documentType : documentTypes) {
+        for (Language language : Language.values()) {
+          Path file = classDirectory.resolve(fileName(documentType, language));
+          generate(documentClass, documentType, language, file);
+          files.add(file);
+        }
+      }
+    }
+    return files;
+  }
+
+  /**
+   * Generates one document
+   *
+   * @param documentClass Kind of document
+   * @param documentType Document type whose schema labels the pages contain
+   * @param language Language of the page text
+   * @param file Target file
+   * @throws IOException if the file cannot be written
+   */
+  public void generate(
+      DocumentClass documentClass, DocumentType documentType, Language language, Path file)
+      throws IOException {
+    // String hashes are stable across runs, unlike enum hash codes
+    long seed = SEED ^ (documentClass.name() + documentType.name() + language.name()).hashCode();
+    Random random = new Random(seed);
+    int pages = documentClass == DocumentClass.LARGE ? largePageCount : PAGES_PER_DOCUMENT;
+
+    try (PDDocument document = new PDDocument()) {
+      for (int page = 0; page < pages; page++) {
+        switch (documentClass) {
+          case TEXT, LARGE -> addTextPage(document, pageLines(documentType, language, random));
+          case SCAN_JPEG ->
+              addScanPage(document, pageLines(documentType, language, random), false, random);
+          case SCAN_G4 ->
+              addScanPage(document, pageLines(documentType, language, random), true, random);
+          case MIXED -> {
+            if (page % 2 == 0) {
+              addTextPage(document, pageLines(documentType, language, random));
+            } else {
+              addScanPage(document, pageLines(documentType, language, random), false, random);
+            }
+          }
+          case BLANK -> document.addPage(new PDPage(PDRectangle.A4));
+        }
+      }
+      setDocumentId(document, seed);
+      document.save(file.toFile());
+    }
+  }
+
+  static String fileName(DocumentType documentType, Language language) {
+    return documentType.name().toLowerCase(Locale.ROOT)
+        + "-"
+        + language.getTesseractCode()
+        + ".pdf";
+  }
+
+  private static List<String> pageLines(
+      DocumentType documentType, Language language, Random random) {
+    return SampleTexts.pageLines(documentType, language, random, MAX_LINE_LENGTH);
+  }
+
+  private static void addTextPage(PDDocument document, List<String> lines) throws IOException {
+    PDPage page = new PDPage(PDRectangle.A4);
+    document.addPage(page);
+    try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+      content.beginText();
+      content.setFont(FONT, FONT_SIZE);
+      content.setLeading(LEADING);
+      content.newLineAtOffset(MARGIN, page.getMediaBox().getHeight() - MARGIN);
+      for (String line : lines) {
+        content.showText(line);
+        content.newLine();
+      }
+      content.endText();
+    }
+  }
+
+  /** Adds an image-only page: the text page rendered, skewed, speckled and compressed */
+  private static void addScanPage(
+      PDDocument document, List<String> lines, boolean bilevel, Random random)
+      throws IOException {
+    BufferedImage image;
+    try (PDDocument source = new PDDocument()) {
+      addTextPage(source, lines);
+      image = new PDFRenderer(source).renderImageWithDPI(0, SCAN_DPI, ImageType.GRAY);
+    }
+    image = skew(image, (random.nextDouble() * 2 - 1) * MAX_SKEW_DEGREES);
+    addNoise(image, random);
+
+    PDImageXObject scan =
+        bilevel
+            ? CCITTFactory.createFromImage(document, binarize(image))
+            : JPEGFactory.createFromImage(document, image, JPEG_QUALITY);
+    PDPage page = new PDPage(PDRectangle.A4);
+    document.addPage(page);
+    try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+      PDRectangle box = page.getMediaBox();
+      content.drawImage(scan, 0, 0, box.getWidth(), box.getHeight());
+    }
+  }
+
+  private static BufferedImage skew(BufferedImage image, double degrees) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    BufferedImage skewed = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+    Graphics2D graphics = skewed.createGraphics();
+    try {
+      graphics.setColor(Color.WHITE);
+      graphics.fillRect(0, 0, width, height);
+      graphics.setRenderingHint(
+          RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+      graphics.rotate(Math.toRadians(degrees), width / 2.0, height / 2.0);
+      graphics.drawImage(image, 0, 0, null);
+    } finally {
+      graphics.dispose();
+    }
+    return skewed;
+  }
+
+  /** Salt-and-pepper specks like dust and toner on a scanner glass */
+  private static void addNoise(BufferedImage image, Random random) {
+    WritableRaster raster = image.getRaster();
+    long specks = (long) (image.getWidth() * (long) image.getHeight() * NOISE_RATIO);
+    for (long i = 0; i < specks; i++) {
+      raster.setSample(
+          random.nextInt(image.getWidth()),
+          random.nextInt(image.getHeight()),
+          0,
+          random.nextBoolean() ? 0 : 255);
+    }
+  }
+
+  private static BufferedImage binarize(BufferedImage image) {
+    BufferedImage binary =
+        new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_BYTE_BINARY);
+    Graphics2D graphics = binary.createGraphics();
+    try {
+      graphics.drawImage(image, 0, 0, null);
+    } finally {
+      graphics.dispose();
+    }
+    return binary;
+  }
+
+  /** Fixed file identifier; PDFBox would otherwise derive one from the current time */
+  private static void setDocumentId(PDDocument document, long seed) {
+    byte[] id = ByteBuffer.allocate(16).putLong(seed).putLong(~seed).array();
+    COSArray ids = new COSArray();
+    ids.add(new COSString(id));
+    ids.add(new COSString(id));
+    document.getDocument().getTrailer().setItem(COSName.ID, ids);
+  }
+}
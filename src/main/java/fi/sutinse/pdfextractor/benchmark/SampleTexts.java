@@ -0,0 +1,192 @@
+package fi.sutinse.pdfextractor.benchmark;
+
+import fi.sutinse.pdfextractor.model.DocumentSchema;
+import fi.sutinse.pdfextractor.model.DocumentType;
+import fi.sutinse.pdfextractor.model.Language;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Deterministic document texts for benchmarks and the synthetic PDF corpus. A text starts with the
+ * localized document type and a block of schema labels with plausible values, followed by body
+ * paragraphs in the requested language; long texts repeat the labeled block every few paragraphs
+ * like multi-page documents.
+ */
+public final class SampleTexts {
+
+  private static final List<String> FINNISH_SENTENCES =
+      List.of(
+          "Laskun maksuehto on neljätoista päivää netto laskun päiväyksestä.",
+          "Viivästyneestä maksusta peritään korkolain mukainen viivästyskorko.",
+          "Tuotteet toimitetaan asiakkaan ilmoittamaan osoitteeseen arkipäivisin.",
+          "Pyydämme käyttämään viitenumeroa maksaessanne laskua verkkopankissa.",
+          "Huomautukset laskusta tulee tehdä kahdeksan päivän kuluessa sen saapumisesta.",
+          "Yhteyshenkilömme vastaa mielellään sopimusta koskeviin kysymyksiin.",
+          "Raportti kattaa kauden kaikki toimipisteet ja niiden henkilöstön.");
+
+  private static final List<String> SWEDISH_SENTENCES =
+      List.of(
+          "Betalningsvillkoret är fjorton dagar netto från fakturadatum.",
+          "Vid försenad betalning debiteras dröjsmålsränta enligt räntelagen.",
+          "Produkterna levereras till den adress kunden har angett på vardagar.",
+          "Vänligen använd referensnumret när ni betalar fakturan i nätbanken.",
+          "Anmärkningar om fakturan ska göras inom åtta dagar från mottagandet.",
+          "Vår kontaktperson svarar gärna på frågor som gäller avtalet.",
+          "Rapporten omfattar periodens alla verksamhetsställen och deras personal.");
+
+  private static final List<String> ENGLISH_SENTENCES =
+      List.of(
+          "Payment terms are fourteen days net from the date of the invoice.",
+          "Interest on late payment is charged in accordance with the law.",
+          "Products are delivered to the address given by the customer on weekdays.",
+          "Please use the reference number when paying the invoice online.",
+          "Any remarks concerning the invoice must be made within eight days of receipt.",
+          "Our contact person will gladly answer questions about the agreement.",
+          "The report covers all offices of the period and their personnel.");
+
+  private static final List<String> NAMES =
+      List.of("Virtanen Oy", "Nordström Ab", "Mäkinen Tmi", "Harbour Ltd", "Korhonen Ky");
+
+  private static final int PARAGRAPHS_PER_PAGE = 8;
+
+  private SampleTexts() {}
+
+  /**
+   * Generates a document text of approximately the given size
+   *
+   * @param documentType Document type whose schema labels the text contains
+   * @param language Language of labels and body text
+   * @param targetChars Minimum number of characters
+   * @param seed Random seed; equal arguments give equal texts
+   * @return Generated text
+   */
+  public static String document(
+      DocumentType documentType, Language language, int targetChars, long seed) {
+    Random random = new Random(seed);
+    StringBuilder text = new StringBuilder(targetChars + 1024);
+    int paragraphs = 0;
+    while (text.length() < targetChars) {
+      if (paragraphs % PARAGRAPHS_PER_PAGE == 0) {
+        appendLabeledBlock(text, documentType, language, random);
+      }
+      appendParagraph(text, language, random);
+      paragraphs++;
+    }
+    return text.toString();
+  }
+
+  /**
+   * Lines of one document page: the labeled block followed by wrapped body paragraphs
+   *
+   * @param documentType Document type whose schema labels the page contains
+   * @param language Language of labels and body text
+   * @param random Source of values and sentence choice
+   * @param maxLineLength Body lines are wrapped at word boundaries to this length
+   * @return Page lines, empty lines separating paragraphs
+   */
+  public static List<String> pageLines(
+      DocumentType documentType, Language language, Random random, int maxLineLength) {
+    List<String> lines = labeledLines(documentType, language, random);
+    for (int i = 0; i < PARAGRAPHS_PER_PAGE / 2; i++) {
+      StringBuilder paragraph = new StringBuilder();
+      appendParagraph(paragraph, language, random);
+      lines.add("");
+      lines.addAll(wrap(paragraph.toString().strip(), maxLineLength));
+    }
+    return lines;
+  }
+
+  /** Labeled header lines of a document page, one per schema field */
+  public static List<String> labeledLines(
+      DocumentType documentType, Language language, Random random) {
+    // Sorted so that the schema's map iteration order cannot change the output
+    Map<String, DocumentSchema.FieldSchema> schema =
+        new TreeMap<>(DocumentSchema.getSchemaForDocumentType(documentType));
+    List<String> lines = new ArrayList<>();
+    lines.add(documentType.getLocalizedName(language).toUpperCase(Locale.ROOT));
+    for (Map.Entry<String, DocumentSchema.FieldSchema> field : schema.entrySet()) {
+      String label = patterns(field.getValue(), language).getFirst();
+      lines.add(capitalize(label) + ": " + value(field.getKey(), random));
+    }
+    return lines;
+  }
+
+  /** Body sentences in the given language */
+  public static List<String> sentences(Language language) {
+    return switch (language) {
+      case FINNISH -> FINNISH_SENTENCES;
+      case SWEDISH -> SWEDISH_SENTENCES;
+      case ENGLISH -> ENGLISH_SENTENCES;
+    };
+  }
+
+  private static void appendLabeledBlock(
+      StringBuilder text, DocumentType documentType, Language language, Random random) {
+    for (String line : labeledLines(documentType, language, random)) {
+      text.append(line).append('\n');
+    }
+    text.append('\n');
+  }
+
+  private static void appendParagraph(StringBuilder text, Language language, Random random) {
+    List<String> sentences = sentences(language);
+    int count = 2 + random.nextInt(4);
+    for (int i = 0; i < count; i++) {
+      text.append(sentences.get(random.nextInt(sentences.size()))).append(' ');
+    }
+    text.append("\n\n");
+  }
+
+  private static List<String> wrap(String text, int maxLineLength) {
+    List<String> lines = new ArrayList<>();
+    StringBuilder line = new StringBuilder();
+    for (String word : text.split(" ")) {
+      if (!line.isEmpty() && line.length() + 1 + word.length() > maxLineLength) {
+        lines.add(line.toString());
+        line.setLength(0);
+      }
+      if (!line.isEmpty()) {
+        line.append(' ');
+      }
+      line.append(word);
+    }
+    if (!line.isEmpty()) {
+      lines.add(line.toString());
+    }
+    return lines;
+  }
+
+  private static List<String> patterns(DocumentSchema.FieldSchema field, Language language) {
+    return switch (language) {
+      case FINNISH -> field.finnishPatterns();
+      case SWEDISH -> field.swedishPatterns();
+      case ENGLISH -> field.englishPatterns();
+    };
+  }
+
+  private static String value(String fieldKey, Random random) {
+    if (fieldKey.contains("date")) {
+      return String.format(
+          Locale.ROOT,
+          "%d.%d.%d",
+          1 + random.nextInt(28),
+          1 + random.nextInt(12),
+          2020 + random.nextInt(6));
+    }
+    if (fieldKey.contains("amount") || fieldKey.contains("price") || fieldKey.contains("total")) {
+      return String.format(Locale.ROOT, "%d,%02d €", random.nextInt(10_000), random.nextInt(100));
+    }
+    if (fieldKey.contains("number") || fieldKey.endsWith("_id")) {
+      return String.valueOf(10_000 + random.nextInt(90_000));
+    }
+    return NAMES.get(random.nextInt(NAMES.size()));
+  }
+
+  private static String capitalize(String label) {
+    return Character.toUpperCase(label.charAt(0)) + label.substring(1);
+  }
+}
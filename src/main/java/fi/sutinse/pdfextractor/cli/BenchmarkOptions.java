@@ -0,0 +1,87 @@
+package fi.sutinse.pdfextractor.cli;
+
+import static fi.sutinse.pdfextractor.cli.BulkOptions.positive;
+import static fi.sutinse.pdfextractor.cli.BulkOptions.value;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Command line options of the end-to-end extraction benchmark
+ *
+ * @param corpus Corpus root, one subdirectory per document class
+ * @param generate Whether to generate the synthetic corpus into the root first
+ * @param largePages Page count of generated large documents
+ * @param warmup Untimed passes over the corpus
+ * @param iterations Timed passes over the corpus
+ * @param concurrency Documents extracted in parallel
+ * @param json File receiving the report as JSON, or null
+ */
+public record BenchmarkOptions(
+    Path corpus,
+    boolean generate,
+    int largePages,
+    int warmup,
+    int iterations,
+    int concurrency,
+    Path json) {
+
+  /** First program argument selecting the benchmark */
+  public static final String COMMAND = "benchmark";
+
+  static final int DEFAULT_LARGE_PAGES = 500;
+
+  public static final String USAGE =
+      """
+      Usage: benchmark [options] <corpus-directory>
+        --generate                generate the synthetic corpus into the directory first
+        --large-pages <n>         page count of generated large documents (default: 500)
+        --warmup <n>              untimed passes over the corpus (default: 1)
+        --iterations <n>          timed passes over the corpus (default: 3)
+        --concurrency <n>         documents extracted in parallel (default: 1)
+        --json <file>             also write the report as JSON""";
+
+  /**
+   * Parses the arguments following the {@code benchmark} command
+   *
+   * @param args Arguments without the command itself
+   * @return Parsed options
+   * @throws IllegalArgumentException if an option is unknown, lacks its value or is invalid
+   */
+  public static BenchmarkOptions parse(List<String> args) {
+    Path corpus = null;
+    boolean generate = false;
+    int largePages = DEFAULT_LARGE_PAGES;
+    int warmup = 1;
+    int iterations = 3;
+    int concurrency = 1;
+    Path json = null;
+
+    for (int i = 0; i < args.size(); i++) {
+      String arg = args.get(i);
+      switch (arg) {
+        case "--generate" -> generate = true;
+        case "--large-pages" -> largePages = positive(value(args, ++i, arg), arg, 1);
+        case "--warmup" -> warmup = positive(value(args, ++i, arg), arg, 0);
+        case "--iterations" -> iterations = positive(value(args, ++i, arg), arg, 1);
+        case "--concurrency" -> concurrency = positive(value(args, ++i, arg), arg, 1);
+        case "--json" -> json = Path.of(value(args, ++i, arg));
+        default -> {
+          if (arg.startsWith("--")) {
+            throw new IllegalArgumentException("Unknown option: " + arg);
+          }
+          if (corpus != null) {
+            throw new IllegalArgumentException("Only one corpus directory can be given");
+          }
+          corpus = Path.of(arg);
+        }
+      }
+    }
+
+    if (corpus == null) {
+      throw new IllegalArgumentException("No corpus directory given");
+    }
+    return new BenchmarkOptions(
+        corpus, generate, largePages, warmup, iterations, concurrency, json);
+  }
+}
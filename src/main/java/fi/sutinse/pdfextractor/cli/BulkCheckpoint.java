@@ -0,0 +1,79 @@
+package fi.sutinse.pdfextractor.cli;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Content hashes of documents already processed. The checkpoint file holds one {@code <sha256>
+ * <path>} line per document and is appended to as documents finish, so an interrupted run resumes
+ * where it stopped. Without a file, hashes are only tracked for the current run.
+ */
+final class BulkCheckpoint implements Closeable {
+
+  private final Set<String> hashes = ConcurrentHashMap.newKeySet();
+  private final BufferedWriter writer;
+  private final int loaded;
+
+  private BulkCheckpoint(Path file) throws IOException {
+    if (file == null) {
+      writer = null;
+      loaded = 0;
+      return;
+    }
+    if (Files.exists(file)) {
+      try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          int end = line.indexOf(' ');
+          String hash = end > 0 ? line.substring(0, end) : line.strip();
+          if (!hash.isEmpty()) {
+            hashes.add(hash);
+          }
+        }
+      }
+    }
+    loaded = hashes.size();
+    writer =
+        Files.newBufferedWriter(
+            file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+  }
+
+  /** Opens a checkpoint file, loading the hashes it already lists; null for no file */
+  static BulkCheckpoint open(Path file) throws IOException {
+    return new BulkCheckpoint(file);
+  }
+
+  /** Number of hashes loaded from the checkpoint file */
+  int loaded() {
+    return loaded;
+  }
+
+  /** Claims a hash for processing; false if it was processed before or is already claimed */
+  boolean claim(String hash) {
+    return hashes.add(hash);
+  }
+
+  /** Records a finished document; call only after its output line has been flushed */
+  synchronized void record(String hash, Path document) throws IOException {
+    if (writer != null) {
+      writer.write(hash + ' ' + document);
+      writer.newLine();
+      writer.flush();
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (writer != null) {
+      writer.close();
+    }
+  }
+}
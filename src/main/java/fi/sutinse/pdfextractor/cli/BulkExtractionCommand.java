@@ -0,0 +1,387 @@
+package fi.sutinse.pdfextractor.cli;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fi.sutinse.pdfextractor.dto.BulkExtractionResult;
+import fi.sutinse.pdfextractor.dto.ExtractionMetadata;
+import fi.sutinse.pdfextractor.dto.PdfExtractionResponse;
+import fi.sutinse.pdfextractor.service.OcrAdmissionController;
+import fi.sutinse.pdfextractor.service.PageProgressListener;
+import fi.sutinse.pdfextractor.service.PdfExtractionService;
+import fi.sutinse.pdfextractor.service.PdfSource;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bulk extraction of PDFs from directory trees and file lists without going through HTTP. Each
+ * document is extracted with {@link PdfExtractionService} and written as one JSON line. Documents
+ * are identified by the SHA-256 of their content, so duplicates are extracted once and a run
+ * resumed with the same checkpoint file skips everything it already wrote.
+ */
+@ApplicationScoped
+public class BulkExtractionCommand {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(BulkExtractionCommand.class);
+
+  static final int EXIT_OK = 0;
+  static final int EXIT_FAILURE = 1;
+  static final int EXIT_USAGE = 2;
+
+  @Inject PdfExtractionService pdfExtractionService;
+
+  @Inject OcrAdmissionController admissionController;
+
+  @Inject ObjectMapper objectMapper;
+
+  /** Totals of a finished run */
+  public record Summary(
+      long documents, long failed, long skipped, long pages, long bytes, Duration elapsed) {}
+
+  /**
+   * Runs the command with the arguments following {@code bulk}
+   *
+   * @param args Command line arguments
+   * @return Process exit code
+   */
+  public int run(List<String> args) {
+    BulkOptions options;
+    try {
+      options = BulkOptions.parse(args);
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.err.println(BulkOptions.USAGE);
+      return EXIT_USAGE;
+    }
+
+    try {
+      // Documents that fail are reported in their output line, not in the exit code
+      extract(options);
+      return EXIT_OK;
+    } catch (InterruptedIOException e) {
+      Thread.currentThread().interrupt();
+      LOGGER.warn("Bulk extraction interrupted, resume with the same checkpoint file");
+      return EXIT_FAILURE;
+    } catch (IOException e) {
+      LOGGER.error("Bulk extraction aborted: {}", e.getMessage(), e);
+      return EXIT_FAILURE;
+    }
+  }
+
+  /**
+   * Extracts every document of the inputs, blocking until all results are written
+   *
+   * @param options Inputs, output and parallelism
+   * @return Totals of the run
+   * @throws IOException if the output, checkpoint or file list cannot be written or read
+   */
+  public Summary extract(BulkOptions options) throws IOException {
+    boolean toStdout = options.output() == null;
+    Writer out =
+        toStdout
+            ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+            : Files.newBufferedWriter(
+                options.output(),
+                StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+    ExecutorService workers =
+        Executors.newFixedThreadPool(
+            options.workers(), Thread.ofPlatform().name("bulk-extraction-", 1).daemon().factory());
+    ScheduledExecutorService reporter =
+        Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("bulk-report").daemon().factory());
+
+    try (BulkCheckpoint checkpoint = BulkCheckpoint.open(options.checkpoint())) {
+      Run run = new Run(options, out, checkpoint, workers);
+      if (checkpoint.loaded() > 0) {
+        LOGGER.info("Resuming bulk extraction, {} documents in checkpoint", checkpoint.loaded());
+      }
+      reporter.scheduleAtFixedRate(
+          run::report,
+          options.reportIntervalSeconds(),
+          options.reportIntervalSeconds(),
+          TimeUnit.SECONDS);
+
+      for (Path input : options.inputs()) {
+        if (Files.isDirectory(input)) {
+          walk(input, run);
+        } else {
+          run.dispatch(input);
+        }
+      }
+      if (options.fileList() != null) {
+        readFileList(options.fileList(), run);
+      }
+
+      run.awaitCompletion();
+      Summary summary = run.summary();
+      LOGGER.info(
+          "Bulk extraction finished: {} documents, {} failed, {} skipped in {} s",
+          summary.documents(),
+          summary.failed(),
+          summary.skipped(),
+          summary.elapsed().toSeconds());
+      return summary;
+    } finally {
+      reporter.shutdownNow();
+      workers.shutdownNow();
+      if (toStdout) {
+        out.flush();
+      } else {
+        out.close();
+      }
+    }
+  }
+
+  /** Walks a directory tree, skipping unreadable directories instead of aborting the run */
+  private static void walk(Path directory, Run run) throws IOException {
+    Files.walkFileTree(
+        directory,
+        new SimpleFileVisitor<>() {
+          @Override
+          public FileVisitResult visitFile(Path file, BasicFileAttributes attributes)
+              throws IOException {
+            if (attributes.isRegularFile() && file.toString().toLowerCase().endsWith(".pdf")) {
+              run.dispatch(file);
+            }
+            return FileVisitResult.CONTINUE;
+          }
+
+          @Override
+          public FileVisitResult visitFileFailed(Path file, IOException e) {
+            LOGGER.warn("Skipping unreadable path {}: {}", file, e.getMessage());
+            return FileVisitResult.CONTINUE;
+          }
+        });
+  }
+
+  private static void readFileList(String fileList, Run run) throws IOException {
+    try (BufferedReader reader =
+        BulkOptions.STDIN.equals(fileList)
+            ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+            : Files.newBufferedReader(Path.of(fileList), StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        String path = line.strip();
+        if (!path.isEmpty() && !path.startsWith("#")) {
+          run.dispatch(Path.of(path));
+        }
+      }
+    }
+  }
+
+  /** Extracts one document and writes its result line */
+  private void process(Path file, Run run) {
+    String hash;
+    try {
+      hash = sha256(file);
+    } catch (IOException e) {
+      LOGGER.warn("Could not read {}: {}", file, e.getMessage());
+      run.write(
+          BulkExtractionResult.failure(
+              file.toString(), null, "Error reading file: " + e.getMessage()),
+          0);
+      return;
+    }
+
+    if (!run.checkpoint.claim(hash)) {
+      run.skipped.increment();
+      return;
+    }
+
+    PdfExtractionResponse response;
+    long size = 0;
+    try {
+      PdfSource source = PdfSource.of(file);
+      size = source.size();
+      // Bulk runs wait for OCR capacity instead of dropping documents
+      response =
+          admissionController.retryWhileOverloaded(
+              () ->
+                  pdfExtractionService.extractText(
+                      source,
+                      file.getFileName().toString(),
+                      run.options.extractionOptions(),
+                      PageProgressListener.NONE));
+    } catch (IOException e) {
+      response = PdfExtractionResponse.failure("Error reading file: " + e.getMessage());
+    } catch (InterruptedException e) {
+      // Not written and not checkpointed, so a resumed run extracts it again
+      Thread.currentThread().interrupt();
+      return;
+    } catch (RuntimeException e) {
+      LOGGER.error("Bulk extraction failed for file: {}", file, e);
+      response = PdfExtractionResponse.failure("Extraction failed: " + e.getMessage());
+    }
+
+    run.write(new BulkExtractionResult(file.toString(), hash, response), size);
+  }
+
+  /** Hex SHA-256 of the file content, read in a streaming pass */
+  static String sha256(Path file) throws IOException {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+    try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+      in.transferTo(OutputStream.nullOutputStream());
+    }
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  /** State of one run: bounds documents in flight, serializes output and counts throughput */
+  private final class Run {
+    private final BulkOptions options;
+    private final Writer out;
+    private final BulkCheckpoint checkpoint;
+    private final ExecutorService workers;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final long startNanos = System.nanoTime();
+    private final LongAdder documents = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder pages = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private volatile IOException outputError;
+    private long lastReportNanos = startNanos;
+    private long lastReportDocuments;
+    private long lastReportPages;
+    private long lastReportBytes;
+
+    Run(BulkOptions options, Writer out, BulkCheckpoint checkpoint, ExecutorService workers) {
+      this.options = options;
+      this.out = out;
+      this.checkpoint = checkpoint;
+      this.workers = workers;
+      this.maxInFlight = options.workers() * 2;
+      this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    /** Waits for a free slot, then extracts the document on a worker */
+    void dispatch(Path file) throws IOException {
+      checkOutput();
+      try {
+        inFlight.acquire();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while dispatching " + file);
+      }
+      workers.execute(
+          () -> {
+            try {
+              process(file, this);
+            } finally {
+              inFlight.release();
+            }
+          });
+    }
+
+    /** Writes a result line, then checkpoints it, so a crash never loses a checkpointed line */
+    synchronized void write(BulkExtractionResult result, long size) {
+      if (outputError != null) {
+        return;
+      }
+      try {
+        out.write(objectMapper.writeValueAsString(result));
+        out.write('\n');
+        out.flush();
+        if (result.sha256() != null) {
+          checkpoint.record(result.sha256(), Path.of(result.path()));
+        }
+      } catch (IOException e) {
+        outputError = e;
+        return;
+      }
+
+      documents.increment();
+      bytes.add(size);
+      if (!result.response().success()) {
+        failed.increment();
+      }
+      ExtractionMetadata metadata = result.response().metadata();
+      if (metadata != null) {
+        pages.add(metadata.pageCount());
+      }
+    }
+
+    void awaitCompletion() throws IOException {
+      try {
+        inFlight.acquire(maxInFlight);
+        inFlight.release(maxInFlight);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting for workers");
+      }
+      checkOutput();
+    }
+
+    private void checkOutput() throws IOException {
+      if (outputError != null) {
+        throw outputError;
+      }
+    }
+
+    /** Logs throughput since the previous report and totals so far */
+    synchronized void report() {
+      long now = System.nanoTime();
+      double seconds = Math.max(1e-9, (now - lastReportNanos) / 1e9);
+      long documentCount = documents.sum();
+      long pageCount = pages.sum();
+      long byteCount = bytes.sum();
+      LOGGER.info(
+          "Bulk extraction: {} documents ({} failed, {} skipped), {} docs/s, {} pages/s, {} MB/s",
+          documentCount,
+          failed.sum(),
+          skipped.sum(),
+          String.format("%.1f", (documentCount - lastReportDocuments) / seconds),
+          String.format("%.1f", (pageCount - lastReportPages) / seconds),
+          String.format("%.2f", (byteCount - lastReportBytes) / seconds / (1024 * 1024)));
+      lastReportNanos = now;
+      lastReportDocuments = documentCount;
+      lastReportPages = pageCount;
+      lastReportBytes = byteCount;
+    }
+
+    Summary summary() {
+      return new Summary(
+          documents.sum(),
+          failed.sum(),
+          skipped.sum(),
+          pages.sum(),
+          bytes.sum(),
+          Duration.ofNanos(System.nanoTime() - startNanos));
+    }
+  }
+}
@@ -0,0 +1,118 @@
+package fi.sutinse.pdfextractor.cli;
+
+import fi.sutinse.pdfextractor.dto.ExtractionOptions;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command line options of the bulk extraction mode
+ *
+ * @param inputs Directories to walk and PDF files to extract
+ * @param fileList File with one PDF path per line, {@code -} for standard input, or null
+ * @param output JSONL output file, null for standard output
+ * @param checkpoint File recording processed document hashes, or null
+ * @param workers Number of documents extracted in parallel
+ * @param ocrConcurrency Concurrent OCR operations, 0 to keep the configured value
+ * @param extractionOptions Response fields written for each document
+ * @param reportIntervalSeconds Seconds between throughput reports
+ */
+public record BulkOptions(
+    List<Path> inputs,
+    String fileList,
+    Path output,
+    Path checkpoint,
+    int workers,
+    int ocrConcurrency,
+    ExtractionOptions extractionOptions,
+    int reportIntervalSeconds) {
+
+  /** First program argument selecting the bulk mode */
+  public static final String COMMAND = "bulk";
+
+  /** File list name reading paths from standard input */
+  public static final String STDIN = "-";
+
+  static final int DEFAULT_REPORT_INTERVAL_SECONDS = 30;
+
+  public static final String USAGE =
+      """
+      Usage: bulk [options] <directory|file>...
+        --file-list <file>        read PDF paths from a file, one per line ('-' for stdin)
+        --output <file>           append JSONL results to a file (default: stdout)
+        --checkpoint <file>       skip documents whose hash is listed, record new ones
+        --workers <n>             documents extracted in parallel (default: processors)
+        --ocr-concurrency <n>     concurrent OCR operations (default: configuration)
+        --fields <fields>         comma separated response fields (default: all)
+        --report-interval <s>     seconds between throughput reports (default: 30)""";
+
+  /**
+   * Parses the arguments following the {@code bulk} command
+   *
+   * @param args Arguments without the command itself
+   * @return Parsed options
+   * @throws IllegalArgumentException if an option is unknown, lacks its value or is invalid
+   */
+  public static BulkOptions parse(List<String> args) {
+    List<Path> inputs = new ArrayList<>();
+    String fileList = null;
+    Path output = null;
+    Path checkpoint = null;
+    int workers = Runtime.getRuntime().availableProcessors();
+    int ocrConcurrency = 0;
+    String fields = null;
+    int reportInterval = DEFAULT_REPORT_INTERVAL_SECONDS;
+
+    for (int i = 0; i < args.size(); i++) {
+      String arg = args.get(i);
+      switch (arg) {
+        case "--file-list" -> fileList = value(args, ++i, arg);
+        case "--output" -> output = Path.of(value(args, ++i, arg));
+        case "--checkpoint" -> checkpoint = Path.of(value(args, ++i, arg));
+        case "--workers" -> workers = positive(value(args, ++i, arg), arg, 1);
+        case "--ocr-concurrency" -> ocrConcurrency = positive(value(args, ++i, arg), arg, 0);
+        case "--fields" -> fields = value(args, ++i, arg);
+        case "--report-interval" -> reportInterval = positive(value(args, ++i, arg), arg, 1);
+        default -> {
+          if (arg.startsWith("--")) {
+            throw new IllegalArgumentException("Unknown option: " + arg);
+          }
+          inputs.add(Path.of(arg));
+        }
+      }
+    }
+
+    if (inputs.isEmpty() && fileList == null) {
+      throw new IllegalArgumentException("No input directories, files or file list given");
+    }
+    return new BulkOptions(
+        List.copyOf(inputs),
+        fileList,
+        output,
+        checkpoint,
+        workers,
+        ocrConcurrency,
+        ExtractionOptions.fromFields(fields),
+        reportInterval);
+  }
+
+  static String value(List<String> args, int index, String option) {
+    if (index >= args.size()) {
+      throw new IllegalArgumentException("Missing value for " + option);
+    }
+    return args.get(index);
+  }
+
+  static int positive(String value, String option, int min) {
+    try {
+      int number = Integer.parseInt(value);
+      if (number >= min) {
+        return number;
+      }
+    } catch (NumberFormatException e) {
+      // Reported below
+    }
+    throw new IllegalArgumentException(
+        "Invalid value for " + option + ": " + value + " (expected a number >= " + min + ")");
+  }
+}
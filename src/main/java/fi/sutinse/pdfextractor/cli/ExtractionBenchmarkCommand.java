@@ -0,0 +1,325 @@
+package fi.sutinse.pdfextractor.cli;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fi.sutinse.pdfextractor.benchmark.CorpusGenerator;
+import fi.sutinse.pdfextractor.dto.ExtractionMetadata;
+import fi.sutinse.pdfextractor.dto.ExtractionOptions;
+import fi.sutinse.pdfextractor.dto.PdfExtractionResponse;
+import fi.sutinse.pdfextractor.service.OcrAdmissionController;
+import fi.sutinse.pdfextractor.service.PageProgressListener;
+import fi.sutinse.pdfextractor.service.PdfExtractionService;
+import fi.sutinse.pdfextractor.service.PdfSource;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * End-to-end benchmark of {@link PdfExtractionService#extractText} over a PDF corpus, typically the
+ * synthetic corpus of {@link CorpusGenerator}. Documents are grouped into classes by their
+ * directory below the corpus root; the report gives pages per second and per-document latency
+ * percentiles for each class, and the peak heap of the timed passes.
+ */
+@ApplicationScoped
+public class ExtractionBenchmarkCommand {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ExtractionBenchmarkCommand.class);
+
+  /** Class of documents placed directly in the corpus root */
+  static final String ROOT_CLASS = "other";
+
+  @Inject PdfExtractionService pdfExtractionService;
+
+  @Inject OcrAdmissionController admissionController;
+
+  @Inject ObjectMapper objectMapper;
+
+  /** Results of one document class */
+  public record ClassResult(
+      String documentClass,
+      int documents,
+      long pages,
+      int failures,
+      double pagesPerSecond,
+      double p50Ms,
+      double p99Ms) {}
+
+  /**
+   * Benchmark report
+   *
+   * @param classes Results per document class, ordered by class name
+   * @param documents Documents extracted in the timed passes
+   * @param pages Pages extracted in the timed passes
+   * @param pagesPerSecond Overall throughput of the timed passes
+   * @param peakHeapBytes Sum of the heap pools' peak usage during the timed passes
+   * @param elapsed Wall time of the timed passes
+   */
+  public record Report(
+      List<ClassResult> classes,
+      long documents,
+      long pages,
+      double pagesPerSecond,
+      long peakHeapBytes,
+      Duration elapsed) {}
+
+  /** Corpus document and its class */
+  record CorpusDocument(Path file, String documentClass) {}
+
+  /** Timing of one extraction */
+  record Sample(String documentClass, long nanos, int pages, boolean success) {}
+
+  /**
+   * Runs the command with the arguments following {@code benchmark}
+   *
+   * @param args Command line arguments
+   * @return Process exit code
+   */
+  public int run(List<String> args) {
+    BenchmarkOptions options;
+    try {
+      options = BenchmarkOptions.parse(args);
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.err.println(BenchmarkOptions.USAGE);
+      return BulkExtractionCommand.EXIT_USAGE;
+    }
+
+    try {
+      Report report = benchmark(options);
+      print(report, System.out);
+      if (options.json() != null) {
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(options.json().toFile(), report);
+      }
+      return BulkExtractionCommand.EXIT_OK;
+    } catch (InterruptedIOException e) {
+      Thread.currentThread().interrupt();
+      LOGGER.warn("Benchmark interrupted");
+      return BulkExtractionCommand.EXIT_FAILURE;
+    } catch (IOException e) {
+      LOGGER.error("Benchmark aborted: {}", e.getMessage(), e);
+      return BulkExtractionCommand.EXIT_FAILURE;
+    }
+  }
+
+  /**
+   * Runs the warmup and timed passes over the corpus
+   *
+   * @param options Corpus, passes and concurrency
+   * @return Report of the timed passes
+   * @throws IOException if the corpus cannot be generated or read, or contains no PDFs
+   */
+  public Report benchmark(BenchmarkOptions options) throws IOException {
+    if (options.generate()) {
+      LOGGER.info("Generating benchmark corpus in {}", options.corpus());
+      new CorpusGenerator(options.largePages()).generate(options.corpus());
+    }
+    List<CorpusDocument> documents = listCorpus(options.corpus());
+    if (documents.isEmpty()) {
+      throw new IOException("No PDF files found in corpus " + options.corpus());
+    }
+    LOGGER.info("Benchmarking {} documents from {}", documents.size(), options.corpus());
+
+    ExecutorService workers =
+        Executors.newFixedThreadPool(
+            options.concurrency(), Thread.ofPlatform().name("benchmark-", 1).daemon().factory());
+    try {
+      for (int i = 0; i < options.warmup(); i++) {
+        pass(documents, workers);
+        LOGGER.info("Warmup pass {} of {} done", i + 1, options.warmup());
+      }
+
+      resetPeakHeap();
+      List<Sample> samples = new ArrayList<>();
+      long start = System.nanoTime();
+      for (int i = 0; i < options.iterations(); i++) {
+        samples.addAll(pass(documents, workers));
+        LOGGER.info("Timed pass {} of {} done", i + 1, options.iterations());
+      }
+      return report(samples, System.nanoTime() - start, peakHeap());
+    } finally {
+      workers.shutdownNow();
+    }
+  }
+
+  /** Lists the corpus PDFs in a stable order, classed by their first directory below the root */
+  static List<CorpusDocument> listCorpus(Path corpus) throws IOException {
+    try (Stream<Path> paths = Files.walk(corpus)) {
+      return paths
+          .filter(Files::isRegularFile)
+          .filter(file -> file.toString().toLowerCase(Locale.ROOT).endsWith(".pdf"))
+          .sorted()
+          .map(
+              file -> {
+                Path relative = corpus.relativize(file);
+                String documentClass =
+                    relative.getNameCount() > 1 ? relative.getName(0).toString() : ROOT_CLASS;
+                return new CorpusDocument(file, documentClass);
+              })
+          .toList();
+    }
+  }
+
+  private List<Sample> pass(List<CorpusDocument> documents, ExecutorService workers)
+      throws IOException {
+    List<Future<Sample>> futures = new ArrayList<>();
+    for (CorpusDocument document : documents) {
+      futures.add(workers.submit(() -> extract(document)));
+    }
+    List<Sample> samples = new ArrayList<>();
+    try {
+      for (Future<Sample> future : futures) {
+        samples.add(future.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for extractions");
+    } catch (ExecutionException e) {
+      throw new IOException("Benchmark extraction failed", e.getCause());
+    }
+    return samples;
+  }
+
+  private Sample extract(CorpusDocument document) throws IOException, InterruptedException {
+    PdfSource source = PdfSource.of(document.file());
+    long start = System.nanoTime();
+    // Concurrent runs wait for OCR capacity; the wait counts as latency
+    PdfExtractionResponse response =
+        admissionController.retryWhileOverloaded(
+            () ->
+                pdfExtractionService.extractText(
+                    source,
+                    document.file().getFileName().toString(),
+                    ExtractionOptions.ALL,
+                    PageProgressListener.NONE));
+    long nanos = System.nanoTime() - start;
+    ExtractionMetadata metadata = response.metadata();
+    return new Sample(
+        document.documentClass(),
+        nanos,
+        metadata != null ? metadata.pageCount() : 0,
+        response.success());
+  }
+
+  static Report report(List<Sample> samples, long elapsedNanos, long peakHeapBytes) {
+    Map<String, List<Sample>> byClass = new TreeMap<>();
+    for (Sample sample : samples) {
+      byClass.computeIfAbsent(sample.documentClass(), key -> new ArrayList<>()).add(sample);
+    }
+
+    List<ClassResult> classes = new ArrayList<>();
+    long totalPages = 0;
+    for (Map.Entry<String, List<Sample>> entry : byClass.entrySet()) {
+      List<Sample> classSamples = entry.getValue();
+      long[] latencies = classSamples.stream().mapToLong(Sample::nanos).sorted().toArray();
+      long pages = classSamples.stream().mapToLong(Sample::pages).sum();
+      long nanos = Arrays.stream(latencies).sum();
+      int failures = (int) classSamples.stream().filter(sample -> !sample.success()).count();
+      classes.add(
+          new ClassResult(
+              entry.getKey(),
+              classSamples.size(),
+              pages,
+              failures,
+              perSecond(pages, nanos),
+              millis(percentile(latencies, 0.50)),
+              millis(percentile(latencies, 0.99))));
+      totalPages += pages;
+    }
+    return new Report(
+        classes,
+        samples.size(),
+        totalPages,
+        perSecond(totalPages, elapsedNanos),
+        peakHeapBytes,
+        Duration.ofNanos(elapsedNanos));
+  }
+
+  /** Nearest-rank percentile of sorted values */
+  static long percentile(long[] sorted, double quantile) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    int rank = (int) Math.ceil(quantile * sorted.length);
+    return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+  }
+
+  static void print(Report report, PrintStream out) {
+    out.printf(
+        Locale.ROOT,
+        "%-12s %6s %8s %6s %10s %10s %10s%n",
+        "class",
+        "docs",
+        "pages",
+        "failed",
+        "pages/s",
+        "p50 ms",
+        "p99 ms");
+    for (ClassResult result : report.classes()) {
+      out.printf(
+          Locale.ROOT,
+          "%-12s %6d %8d %6d %10.1f %10.1f %10.1f%n",
+          result.documentClass(),
+          result.documents(),
+          result.pages(),
+          result.failures(),
+          result.pagesPerSecond(),
+          result.p50Ms(),
+          result.p99Ms());
+    }
+    out.printf(
+        Locale.ROOT,
+        "Total: %d documents, %d pages in %.1f s, %.1f pages/s, peak heap %d MB%n",
+        report.documents(),
+        report.pages(),
+        report.elapsed().toMillis() / 1000.0,
+        report.pagesPerSecond(),
+        report.peakHeapBytes() / (1024 * 1024));
+  }
+
+  private static void resetPeakHeap() {
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP) {
+        pool.resetPeakUsage();
+      }
+    }
+  }
+
+  /** Sum of the heap pools' peaks, an upper bound of the peak total heap usage */
+  private static long peakHeap() {
+    long peak = 0;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+        peak += pool.getPeakUsage().getUsed();
+      }
+    }
+    return peak;
+  }
+
+  private static double perSecond(long count, long nanos) {
+    return nanos > 0 ? count * 1e9 / nanos : 0;
+  }
+
+  private static double millis(long nanos) {
+    return Math.round(nanos / 10_000.0) / 100.0;
+  }
+}
@@ -0,0 +1,403 @@
+package fi.sutinse.pdfextractor.cli;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fi.sutinse.pdfextractor.benchmark.CorpusGenerator;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Open-loop HTTP load test of {@code POST /api/pdf/extract}. Each step uploads corpus PDFs at a
+ * constant arrival rate, whether or not earlier requests have completed, so queuing in the service
+ * shows up as latency instead of slowing the generator down. Latency is measured from the time a
+ * request was scheduled rather than sent, which corrects for coordinated omission when the
+ * generator itself falls behind. Steps run at ascending rates until the service saturates.
+ */
+@ApplicationScoped
+public class LoadTestCommand {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(LoadTestCommand.class);
+
+  static final String EXTRACT_PATH = "/api/pdf/extract";
+
+  /** Achieved throughput below this share of the arrival rate marks saturation */
+  static final double MIN_THROUGHPUT_RATIO = 0.9;
+
+  /** Share of failed or rejected requests marking saturation */
+  static final double MAX_ERROR_RATIO = 0.01;
+
+  private static final long SEED = 20240101L;
+  private static final int HISTOGRAM_DIGITS = 3;
+  private static final double MICROS_PER_MILLI = 1000.0;
+
+  @Inject ObjectMapper objectMapper;
+
+  /**
+   * Results of one load step
+   *
+   * @param rate Arrival rate in requests per second
+   * @param requests Requests sent
+   * @param succeeded Requests answered with 2xx
+   * @param rejected Requests answered with 429 for lack of OCR capacity
+   * @param failed Requests answered otherwise, or not at all
+   * @param throughput Successful responses per second, from step start to the last response
+   * @param p50Ms Median latency from scheduled send to response
+   * @param p90Ms 90th percentile latency
+   * @param p99Ms 99th percentile latency
+   * @param p999Ms 99.9th percentile latency
+   * @param maxMs Maximum latency
+   * @param serviceP99Ms 99th percentile from actual send to response, without the correction
+   * @param saturated Whether the step exceeded the latency, throughput or error limits
+   */
+  public record StepResult(
+      double rate,
+      int requests,
+      int succeeded,
+      int rejected,
+      int failed,
+      double throughput,
+      double p50Ms,
+      double p90Ms,
+      double p99Ms,
+      double p999Ms,
+      double maxMs,
+      double serviceP99Ms,
+      boolean saturated) {}
+
+  /**
+   * Load test report
+   *
+   * @param url Base URL of the service under test
+   * @param steps Results per load step, by ascending rate
+   * @param saturationRate Lowest arrival rate that saturated the service, or null if none did
+   * @param maxThroughput Highest throughput of the steps
+   */
+  public record Report(
+      URI url, List<StepResult> steps, Double saturationRate, double maxThroughput) {}
+
+  /** Corpus PDF as a ready-made multipart request body */
+  record Upload(String filename, String boundary, byte[] body) {}
+
+  /** Step latencies and outcomes, recorded from the HTTP client threads */
+  static final class StepRecorder {
+    final long start;
+    final Histogram latency = new ConcurrentHistogram(HISTOGRAM_DIGITS);
+    final Histogram serviceTime = new ConcurrentHistogram(HISTOGRAM_DIGITS);
+    final AtomicInteger succeeded = new AtomicInteger();
+    final AtomicInteger rejected = new AtomicInteger();
+    final AtomicInteger failed = new AtomicInteger();
+    final AtomicLong lastResponse;
+
+    StepRecorder(long start) {
+      this.start = start;
+      this.lastResponse = new AtomicLong(start);
+    }
+
+    void record(long scheduled, long sent, long received, int status) {
+      latency.recordValue(TimeUnit.NANOSECONDS.toMicros(received - scheduled));
+      serviceTime.recordValue(TimeUnit.NANOSECONDS.toMicros(received - sent));
+      if (status >= 200 && status < 300) {
+        succeeded.incrementAndGet();
+      } else if (status == 429) {
+        rejected.incrementAndGet();
+      } else {
+        failed.incrementAndGet();
+      }
+      lastResponse.accumulateAndGet(received, Math::max);
+    }
+  }
+
+  /**
+   * Runs the command with the arguments following {@code loadtest}
+   *
+   * @param args Command line arguments
+   * @return Process exit code
+   */
+  public int run(List<String> args) {
+    LoadTestOptions options;
+    try {
+      options = LoadTestOptions.parse(args);
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.err.println(LoadTestOptions.USAGE);
+      return BulkExtractionCommand.EXIT_USAGE;
+    }
+
+    try {
+      Report report = loadTest(options);
+      print(report, System.out);
+      if (options.json() != null) {
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(options.json().toFile(), report);
+      }
+      return BulkExtractionCommand.EXIT_OK;
+    } catch (InterruptedIOException e) {
+      Thread.currentThread().interrupt();
+      LOGGER.warn("Load test interrupted");
+      return BulkExtractionCommand.EXIT_FAILURE;
+    } catch (IOException e) {
+      LOGGER.error("Load test aborted: {}", e.getMessage(), e);
+      return BulkExtractionCommand.EXIT_FAILURE;
+    }
+  }
+
+  /**
+   * Runs the warmup and the load steps, stopping after the first saturated step
+   *
+   * @param options Corpus, target and load profile
+   * @return Report of the load steps
+   * @throws IOException if the corpus cannot be generated or read, or contains no PDFs
+   */
+  public Report loadTest(LoadTestOptions options) throws IOException {
+    if (options.generate()) {
+      LOGGER.info("Generating load test corpus in {}", options.corpus());
+      new CorpusGenerator(options.largePages()).generate(options.corpus());
+    }
+    List<Upload> uploads = uploads(options.corpus());
+    if (uploads.isEmpty()) {
+      throw new IOException("No PDF files found in corpus " + options.corpus());
+    }
+    URI target = options.url().resolve(EXTRACT_PATH);
+    Duration timeout = Duration.ofSeconds(options.timeout());
+    List<StepResult> steps = new ArrayList<>();
+    Double saturationRate = null;
+    try (HttpClient client =
+        HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(timeout)
+            .build()) {
+      double firstRate = options.rates().get(0);
+      if (options.warmup() > 0) {
+        LOGGER.info("Warming up at {} requests/s for {} s", firstRate, options.warmup());
+        step(client, target, uploads, firstRate, options.warmup(), timeout);
+      }
+
+      for (double rate : options.rates()) {
+        LOGGER.info("Load step at {} requests/s for {} s", rate, options.duration());
+        StepRecorder recorder = step(client, target, uploads, rate, options.duration(), timeout);
+        StepResult result = result(rate, recorder, options.duration(), options.sloMillis());
+        steps.add(result);
+        if (options.histograms() != null) {
+          writeHistogram(options.histograms(), rate, recorder.latency);
+        }
+        if (result.saturated()) {
+          saturationRate = rate;
+          LOGGER.info("Service saturated at {} requests/s", rate);
+          break;
+        }
+      }
+    }
+    double maxThroughput = steps.stream().mapToDouble(StepResult::throughput).max().orElse(0);
+    return new Report(options.url(), steps, saturationRate, maxThroughput);
+  }
+
+  /** Loads the corpus PDFs in a seeded random order, so each step sees the same class mix */
+  private static List<Upload> uploads(Path corpus) throws IOException {
+    List<Upload> uploads = new ArrayList<>();
+    for (ExtractionBenchmarkCommand.CorpusDocument document :
+        ExtractionBenchmarkCommand.listCorpus(corpus)) {
+      String filename = document.documentClass() + "-" + document.file().getFileName();
+      uploads.add(upload(filename, Files.readAllBytes(document.file())));
+    }
+    Collections.shuffle(uploads, new Random(SEED));
+    return uploads;
+  }
+
+  static Upload upload(String filename, byte[] pdf) {
+    String boundary = "loadtest-" + Long.toHexString(SEED);
+    ByteArrayOutputStream body = new ByteArrayOutputStream(pdf.length + 256);
+    body.writeBytes(
+        ("--"
+                + boundary
+                + "\r\nContent-Disposition: form-data; name=\"file\"; filename=\""
+                + filename
+                + "\"\r\nContent-Type: application/pdf\r\n\r\n")
+            .getBytes(StandardCharsets.UTF_8));
+    body.writeBytes(pdf);
+    body.writeBytes(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+    return new Upload(filename, boundary, body.toByteArray());
+  }
+
+  /** Sends requests at a constant rate for the given time and waits for all responses */
+  private static StepRecorder step(
+      HttpClient client,
+      URI target,
+      List<Upload> uploads,
+      double rate,
+      int seconds,
+      Duration timeout)
+      throws IOException {
+    long interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+    long count = Math.max(1, TimeUnit.SECONDS.toNanos(seconds) / interval);
+    List<CompletableFuture<Void>> responses = new ArrayList<>();
+
+    long start = System.nanoTime();
+    StepRecorder recorder = new StepRecorder(start);
+    for (int i = 0; i < count; i++) {
+      long scheduled = start + i * interval;
+      // Late sends keep their schedule, so generator stalls count as latency
+      for (long wait = scheduled - System.nanoTime(); wait > 0; ) {
+        LockSupport.parkNanos(wait);
+        wait = scheduled - System.nanoTime();
+      }
+      if (Thread.currentThread().isInterrupted()) {
+        throw new InterruptedIOException("Interrupted while sending requests");
+      }
+      Upload upload = uploads.get(i % uploads.size());
+      HttpRequest request =
+          HttpRequest.newBuilder(target)
+              .timeout(timeout)
+              .header("Content-Type", "multipart/form-data; boundary=" + upload.boundary())
+              .header("Accept", "application/json")
+              .POST(HttpRequest.BodyPublishers.ofByteArray(upload.body()))
+              .build();
+      long sent = System.nanoTime();
+      responses.add(
+          client
+              .sendAsync(request, HttpResponse.BodyHandlers.discarding())
+              .handle(
+                  (response, error) -> {
+                    int status = response != null ? response.statusCode() : 0;
+                    recorder.record(scheduled, sent, System.nanoTime(), status);
+                    return null;
+                  }));
+    }
+
+    try {
+      CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for responses");
+    } catch (ExecutionException e) {
+      throw new IOException("Load step failed", e.getCause());
+    }
+    return recorder;
+  }
+
+  /**
+   * Summarizes a step
+   *
+   * @param rate Arrival rate
+   * @param recorder Recorded step
+   * @param seconds Arrival time of the step
+   * @param sloMillis p99 latency limit
+   * @return Step result
+   */
+  static StepResult result(double rate, StepRecorder recorder, int seconds, int sloMillis) {
+    int succeeded = recorder.succeeded.get();
+    int rejected = recorder.rejected.get();
+    int failed = recorder.failed.get();
+    int requests = succeeded + rejected + failed;
+    long arrivals = TimeUnit.SECONDS.toNanos(seconds);
+    // Responses still arriving after the last send stretch the step
+    long elapsed = Math.max(recorder.lastResponse.get() - recorder.start, arrivals);
+    double throughput = succeeded * 1e9 / elapsed;
+    double offered = requests * 1e9 / arrivals;
+    Histogram latency = recorder.latency;
+    double p99Ms = millis(latency.getValueAtPercentile(99));
+    boolean saturated =
+        p99Ms > sloMillis
+            || throughput < MIN_THROUGHPUT_RATIO * offered
+            || rejected + failed > MAX_ERROR_RATIO * requests;
+    return new StepResult(
+        rate,
+        requests,
+        succeeded,
+        rejected,
+        failed,
+        throughput,
+        millis(latency.getValueAtPercentile(50)),
+        millis(latency.getValueAtPercentile(90)),
+        p99Ms,
+        millis(latency.getValueAtPercentile(99.9)),
+        millis(latency.getMaxValue()),
+        millis(recorder.serviceTime.getValueAtPercentile(99)),
+        saturated);
+  }
+
+  /** Writes the percentile distribution in milliseconds, the format HdrHistogram plotters read */
+  private static void writeHistogram(Path directory, double rate, Histogram latency)
+      throws IOException {
+    Files.createDirectories(directory);
+    Path file = directory.resolve(String.format(Locale.ROOT, "rate-%.2f.hgrm", rate));
+    try (PrintStream out =
+        new PrintStream(Files.newOutputStream(file), false, StandardCharsets.UTF_8)) {
+      latency.outputPercentileDistribution(out, MICROS_PER_MILLI);
+    }
+  }
+
+  static void print(Report report, PrintStream out) {
+    out.printf(
+        Locale.ROOT,
+        "%8s %7s %7s %7s %7s %9s %9s %9s %9s %9s %9s%n",
+        "rate/s",
+        "sent",
+        "ok",
+        "429",
+        "failed",
+        "ok/s",
+        "p50 ms",
+        "p90 ms",
+        "p99 ms",
+        "p99.9 ms",
+        "max ms");
+    for (StepResult step : report.steps()) {
+      out.printf(
+          Locale.ROOT,
+          "%8.2f %7d %7d %7d %7d %9.2f %9.1f %9.1f %9.1f %9.1f %9.1f%s%n",
+          step.rate(),
+          step.requests(),
+          step.succeeded(),
+          step.rejected(),
+          step.failed(),
+          step.throughput(),
+          step.p50Ms(),
+          step.p90Ms(),
+          step.p99Ms(),
+          step.p999Ms(),
+          step.maxMs(),
+          step.saturated() ? "  saturated" : "");
+    }
+    if (report.saturationRate() != null) {
+      out.printf(
+          Locale.ROOT,
+          "Saturated at %.2f requests/s, max throughput %.2f requests/s%n",
+          report.saturationRate(),
+          report.maxThroughput());
+    } else {
+      out.printf(
+          Locale.ROOT,
+          "Not saturated, max throughput %.2f requests/s%n",
+          report.maxThroughput());
+    }
+  }
+
+  private static double millis(long micros) {
+    return Math.round(micros / 10.0) / 100.0;
+  }
+}
@@ -0,0 +1,152 @@
+package fi.sutinse.pdfextractor.cli;
+
+import static fi.sutinse.pdfextractor.cli.BulkOptions.positive;
+import static fi.sutinse.pdfextractor.cli.BulkOptions.value;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command line options of the HTTP load test
+ *
+ * @param corpus Directory of the PDFs to upload, one subdirectory per document class
+ * @param url Base URL of the service under test
+ * @param generate Whether to generate the synthetic corpus into the directory first
+ * @param largePages Page count of generated large documents
+ * @param rates Arrival rates in requests per second, one load step each, ascending
+ * @param duration Seconds of arrivals per load step
+ * @param warmup Seconds of untimed arrivals at the first rate
+ * @param sloMillis p99 latency above which a step counts as saturated
+ * @param timeout Seconds before an unanswered request counts as failed
+ * @param json File receiving the report as JSON, or null
+ * @param histograms Directory receiving the latency distribution of each step, or null
+ */
+public record LoadTestOptions(
+    Path corpus,
+    URI url,
+    boolean generate,
+    int largePages,
+    List<Double> rates,
+    int duration,
+    int warmup,
+    int sloMillis,
+    int timeout,
+    Path json,
+    Path histograms) {
+
+  /** First program argument selecting the load test */
+  public static final String COMMAND = "loadtest";
+
+  static final String DEFAULT_URL = "http://localhost:8080";
+  static final int DEFAULT_LARGE_PAGES = 50;
+  static final List<Double> DEFAULT_RATES = List.of(1.0, 2.0, 4.0, 8.0);
+
+  public static final String USAGE =
+      """
+      Usage: loadtest [options] <corpus-directory>
+        --url <url>               base URL of the service (default: http://localhost:8080)
+        --generate                generate the synthetic corpus into the directory first
+        --large-pages <n>         page count of generated large documents (default: 50)
+        --rates <r1,r2,...>       arrival rates in requests/s, one step each (default: 1,2,4,8)
+        --duration <seconds>      arrivals per step (default: 60)
+        --warmup <seconds>        untimed arrivals at the first rate (default: 10)
+        --slo <ms>                p99 latency marking a step as saturated (default: 10000)
+        --timeout <seconds>       request timeout (default: 120)
+        --json <file>             also write the report as JSON
+        --histograms <dir>        write each step's latency distribution as .hgrm""";
+
+  /**
+   * Parses the arguments following the {@code loadtest} command
+   *
+   * @param args Arguments without the command itself
+   * @return Parsed options
+   * @throws IllegalArgumentException if an option is unknown, lacks its value or is invalid
+   */
+  public static LoadTestOptions parse(List<String> args) {
+    Path corpus = null;
+    URI url = URI.create(DEFAULT_URL);
+    boolean generate = false;
+    int largePages = DEFAULT_LARGE_PAGES;
+    List<Double> rates = DEFAULT_RATES;
+    int duration = 60;
+    int warmup = 10;
+    int sloMillis = 10_000;
+    int timeout = 120;
+    Path json = null;
+    Path histograms = null;
+
+    for (int i = 0; i < args.size(); i++) {
+      String arg = args.get(i);
+      switch (arg) {
+        case "--url" -> url = url(value(args, ++i, arg), arg);
+        case "--generate" -> generate = true;
+        case "--large-pages" -> largePages = positive(value(args, ++i, arg), arg, 1);
+        case "--rates" -> rates = rates(value(args, ++i, arg), arg);
+        case "--duration" -> duration = positive(value(args, ++i, arg), arg, 1);
+        case "--warmup" -> warmup = positive(value(args, ++i, arg), arg, 0);
+        case "--slo" -> sloMillis = positive(value(args, ++i, arg), arg, 1);
+        case "--timeout" -> timeout = positive(value(args, ++i, arg), arg, 1);
+        case "--json" -> json = Path.of(value(args, ++i, arg));
+        case "--histograms" -> histograms = Path.of(value(args, ++i, arg));
+        default -> {
+          if (arg.startsWith("--")) {
+            throw new IllegalArgumentException("Unknown option: " + arg);
+          }
+          if (corpus != null) {
+            throw new IllegalArgumentException("Only one corpus directory can be given");
+          }
+          corpus = Path.of(arg);
+        }
+      }
+    }
+
+    if (corpus == null) {
+      throw new IllegalArgumentException("No corpus directory given");
+    }
+    return new LoadTestOptions(
+        corpus,
+        url,
+        generate,
+        largePages,
+        rates,
+        duration,
+        warmup,
+        sloMillis,
+        timeout,
+        json,
+        histograms);
+  }
+
+  private static URI url(String value, String option) {
+    try {
+      URI url = URI.create(value);
+      if ("http".equals(url.getScheme()) || "https".equals(url.getScheme())) {
+        return url;
+      }
+    } catch (IllegalArgumentException e) {
+      // Reported below
+    }
+    throw new IllegalArgumentException(
+        "Invalid value for " + option + ": " + value + " (expected an http or https URL)");
+  }
+
+  private static List<Double> rates(String value, String option) {
+    List<Double> rates = new ArrayList<>();
+    for (String rate : value.split(",")) {
+      try {
+        double number = Double.parseDouble(rate.trim());
+        if (number > 0 && Double.isFinite(number)) {
+          rates.add(number);
+          continue;
+        }
+      } catch (NumberFormatException e) {
+        // Reported below
+      }
+      throw new IllegalArgumentException(
+          "Invalid value for " + option + ": " + rate + " (expected requests/s > 0)");
+    }
+    return rates.stream().sorted().distinct().toList();
+  }
+}
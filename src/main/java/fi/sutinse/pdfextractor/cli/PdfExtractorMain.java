@@ -0,0 +1,87 @@
+package fi.sutinse.pdfextractor.cli;
+
+import io.quarkus.runtime.Quarkus;
+import io.quarkus.runtime.QuarkusApplication;
+import io.quarkus.runtime.annotations.QuarkusMain;
+import jakarta.inject.Inject;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Application entry point. Without arguments the HTTP service runs until shutdown; {@code bulk}
+ * runs the command-line bulk extraction, {@code benchmark} the end-to-end extraction benchmark,
+ * {@code loadtest} the HTTP load test against a running service and {@code soak} the resource leak
+ * soak test, then exit.
+ */
+@QuarkusMain
+public class PdfExtractorMain implements QuarkusApplication {
+
+  @Inject BulkExtractionCommand bulkExtractionCommand;
+
+  @Inject ExtractionBenchmarkCommand benchmarkCommand;
+
+  @Inject LoadTestCommand loadTestCommand;
+
+  @Inject SoakTestCommand soakTestCommand;
+
+  public static void main(String... args) {
+    String command = args.length > 0 ? args[0] : "";
+    if (BulkOptions.COMMAND.equals(command)) {
+      configureBulkMode(Arrays.asList(args).subList(1, args.length));
+    } else if (BenchmarkOptions.COMMAND.equals(command)
+        || LoadTestOptions.COMMAND.equals(command)
+        || SoakOptions.COMMAND.equals(command)) {
+      configureCommandMode();
+    }
+    Quarkus.run(PdfExtractorMain.class, args);
+  }
+
+  @Override
+  public int run(String... args) {
+    String command = args.length > 0 ? args[0] : "";
+    List<String> commandArgs = Arrays.asList(args).subList(Math.min(1, args.length), args.length);
+    if (BulkOptions.COMMAND.equals(command)) {
+      return bulkExtractionCommand.run(commandArgs);
+    } else if (BenchmarkOptions.COMMAND.equals(command)) {
+      return benchmarkCommand.run(commandArgs);
+    } else if (LoadTestOptions.COMMAND.equals(command)) {
+      return loadTestCommand.run(commandArgs);
+    } else if (SoakOptions.COMMAND.equals(command)) {
+      return soakTestCommand.run(commandArgs);
+    }
+    Quarkus.waitForExit();
+    return 0;
+  }
+
+  /**
+   * Applies bulk options that must be in place before startup. The OCR concurrency option sizes
+   * the OCR permits and lane. Explicit system properties win. Invalid options are reported by the
+   * command after startup.
+   */
+  private static void configureBulkMode(List<String> args) {
+    configureCommandMode();
+    try {
+      int ocrConcurrency = BulkOptions.parse(args).ocrConcurrency();
+      if (ocrConcurrency > 0) {
+        setDefault("extraction.ocr.max-concurrent", String.valueOf(ocrConcurrency));
+      }
+    } catch (IllegalArgumentException e) {
+      // Reported with usage by the command
+    }
+  }
+
+  /**
+   * Logs go to stderr so output on stdout stays clean, and the HTTP listener takes a free port so
+   * a command can share a host with the service
+   */
+  private static void configureCommandMode() {
+    setDefault("quarkus.log.console.stderr", "true");
+    setDefault("quarkus.http.port", "0");
+  }
+
+  private static void setDefault(String property, String value) {
+    if (System.getProperty(property) == null) {
+      System.setProperty(property, value);
+    }
+  }
+}
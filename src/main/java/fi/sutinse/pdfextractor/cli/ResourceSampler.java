@@ -0,0 +1,180 @@
+package fi.sutinse.pdfextractor.cli;
+
+import com.sun.management.UnixOperatingSystemMXBean;
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Samples the process resources that leak outside the Java heap: resident memory, native memory
+ * committed by the JVM, direct and mapped buffers, open file descriptors and temp files. Values a
+ * platform cannot provide are -1; native memory needs {@code -XX:NativeMemoryTracking=summary}.
+ */
+final class ResourceSampler {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ResourceSampler.class);
+
+  static final long UNAVAILABLE = -1;
+
+  private static final Path PROC_STATUS = Path.of("/proc/self/status");
+  private static final Pattern RSS = Pattern.compile("^VmRSS:\\s+(\\d+) kB", Pattern.MULTILINE);
+  private static final Pattern NMT_TOTAL =
+      Pattern.compile("Total: reserved=\\d+KB, committed=(\\d+)KB");
+
+  /**
+   * One resource sample
+   *
+   * @param elapsedMillis Time since the test started
+   * @param pages Pages processed so far
+   * @param documents Documents processed so far
+   * @param rssBytes Resident set size of the process
+   * @param nativeCommittedBytes Memory committed by the JVM, heap included, per native memory
+   *     tracking
+   * @param heapAfterGcBytes Heap in use after the last collection
+   * @param directBytes Memory of direct byte buffers
+   * @param mappedBytes Memory of mapped byte buffers
+   * @param openFiles Open file descriptors
+   * @param tempFiles Files in the temp directory
+   */
+  record ResourceSample(
+      long elapsedMillis,
+      long pages,
+      long documents,
+      long rssBytes,
+      long nativeCommittedBytes,
+      long heapAfterGcBytes,
+      long directBytes,
+      long mappedBytes,
+      long openFiles,
+      long tempFiles) {
+
+    static final String CSV_HEADER =
+        "elapsed_ms,pages,documents,rss_bytes,native_committed_bytes,heap_after_gc_bytes,"
+            + "direct_bytes,mapped_bytes,open_files,temp_files";
+
+    String toCsv() {
+      return String.join(
+          ",",
+          Stream.of(
+                  elapsedMillis,
+                  pages,
+                  documents,
+                  rssBytes,
+                  nativeCommittedBytes,
+                  heapAfterGcBytes,
+                  directBytes,
+                  mappedBytes,
+                  openFiles,
+                  tempFiles)
+              .map(String::valueOf)
+              .toList());
+    }
+  }
+
+  private final Path tempDirectory;
+  private boolean nativeMemoryTracking = true;
+
+  ResourceSampler(Path tempDirectory) {
+    this.tempDirectory = tempDirectory;
+  }
+
+  ResourceSample sample(long elapsedMillis, long pages, long documents) {
+    return new ResourceSample(
+        elapsedMillis,
+        pages,
+        documents,
+        rss(),
+        nativeCommitted(),
+        heapAfterGc(),
+        bufferPool("direct"),
+        bufferPool("mapped"),
+        openFiles(),
+        tempFiles());
+  }
+
+  private static long rss() {
+    try {
+      Matcher matcher = RSS.matcher(Files.readString(PROC_STATUS));
+      return matcher.find() ? Long.parseLong(matcher.group(1)) * 1024 : UNAVAILABLE;
+    } catch (IOException e) {
+      return UNAVAILABLE;
+    }
+  }
+
+  /** Total committed memory from the {@code VM.native_memory summary} diagnostic command */
+  private long nativeCommitted() {
+    if (!nativeMemoryTracking) {
+      return UNAVAILABLE;
+    }
+    try {
+      String summary =
+          (String)
+              ManagementFactory.getPlatformMBeanServer()
+                  .invoke(
+                      new ObjectName("com.sun.management:type=DiagnosticCommand"),
+                      "vmNativeMemory",
+                      new Object[] {new String[] {"summary"}},
+                      new String[] {String[].class.getName()});
+      Matcher matcher = NMT_TOTAL.matcher(summary);
+      if (matcher.find()) {
+        return Long.parseLong(matcher.group(1)) * 1024;
+      }
+    } catch (JMException | RuntimeException e) {
+      LOGGER.debug("Native memory summary unavailable: {}", e.getMessage());
+    }
+    // Tracking is fixed at JVM start, so there is no point asking again
+    LOGGER.info("Native memory tracking not enabled, run with -XX:NativeMemoryTracking=summary");
+    nativeMemoryTracking = false;
+    return UNAVAILABLE;
+  }
+
+  private static long heapAfterGc() {
+    long used = 0;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      MemoryUsage usage = pool.getCollectionUsage();
+      if (pool.getType() == MemoryType.HEAP && usage != null) {
+        used += usage.getUsed();
+      }
+    }
+    return used;
+  }
+
+  private static long bufferPool(String name) {
+    List<BufferPoolMXBean> pools = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class);
+    for (BufferPoolMXBean pool : pools) {
+      if (pool.getName().equals(name)) {
+        return pool.getMemoryUsed();
+      }
+    }
+    return UNAVAILABLE;
+  }
+
+  private static long openFiles() {
+    OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+    return os instanceof UnixOperatingSystemMXBean unix
+        ? unix.getOpenFileDescriptorCount()
+        : UNAVAILABLE;
+  }
+
+  private long tempFiles() {
+    try (Stream<Path> files = Files.list(tempDirectory)) {
+      return files.count();
+    } catch (IOException e) {
+      return UNAVAILABLE;
+    }
+  }
+}
@@ -0,0 +1,144 @@
+package fi.sutinse.pdfextractor.cli;
+
+import static fi.sutinse.pdfextractor.cli.BulkOptions.positive;
+import static fi.sutinse.pdfextractor.cli.BulkOptions.value;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Command line options of the soak test
+ *
+ * @param corpus Directory of the PDFs to extract repeatedly
+ * @param generate Whether to generate the synthetic corpus into the directory first
+ * @param mode Code paths each document runs through
+ * @param pages Pages to process before stopping
+ * @param duration Minutes before stopping even if fewer pages were processed, 0 for no limit
+ * @param concurrency Documents extracted in parallel
+ * @param sampleInterval Seconds between resource samples
+ * @param warmupPages Pages processed before the growth baseline is taken
+ * @param maxMemoryGrowth Megabytes of sustained RSS or native memory growth failing the test
+ * @param maxDirectGrowth Megabytes of sustained direct buffer growth failing the test
+ * @param maxHandleGrowth Sustained growth of open file descriptors or temp files failing the test
+ * @param samples CSV file receiving every resource sample, or null
+ */
+public record SoakOptions(
+    Path corpus,
+    boolean generate,
+    Mode mode,
+    long pages,
+    int duration,
+    int concurrency,
+    int sampleInterval,
+    long warmupPages,
+    int maxMemoryGrowth,
+    int maxDirectGrowth,
+    int maxHandleGrowth,
+    Path samples) {
+
+  /** Code paths exercised by the soak test */
+  public enum Mode {
+    /** Full extraction pipeline, OCR only where the text layer is missing */
+    PIPELINE,
+    /** Tesseract OCR of every page, whether or not it has a text layer */
+    OCR,
+    /** Each document through the pipeline and then through OCR */
+    BOTH
+  }
+
+  /** First program argument selecting the soak test */
+  public static final String COMMAND = "soak";
+
+  static final long DEFAULT_PAGES = 200_000;
+
+  public static final String USAGE =
+      """
+      Usage: soak [options] <corpus-directory>
+        --generate                generate the synthetic corpus into the directory first
+        --mode <mode>             pipeline, ocr or both (default: both)
+        --pages <n>               pages to process (default: 200000)
+        --duration <minutes>      stop after this time even if fewer pages were processed
+        --concurrency <n>         documents extracted in parallel (default: 1)
+        --sample-interval <s>     seconds between resource samples (default: 30)
+        --warmup-pages <n>        pages before the growth baseline (default: 5% of --pages)
+        --max-memory-growth <MB>  sustained RSS or native memory growth limit (default: 256)
+        --max-direct-growth <MB>  sustained direct buffer growth limit (default: 64)
+        --max-handle-growth <n>   sustained file descriptor or temp file growth limit (default: 16)
+        --samples <file>          also write every resource sample as CSV
+      Run the JVM with -XX:NativeMemoryTracking=summary to also track native memory.""";
+
+  /**
+   * Parses the arguments following the {@code soak} command
+   *
+   * @param args Arguments without the command itself
+   * @return Parsed options
+   * @throws IllegalArgumentException if an option is unknown, lacks its value or is invalid
+   */
+  public static SoakOptions parse(List<String> args) {
+    Path corpus = null;
+    boolean generate = false;
+    Mode mode = Mode.BOTH;
+    long pages = DEFAULT_PAGES;
+    int duration = 0;
+    int concurrency = 1;
+    int sampleInterval = 30;
+    long warmupPages = -1;
+    int maxMemoryGrowth = 256;
+    int maxDirectGrowth = 64;
+    int maxHandleGrowth = 16;
+    Path samples = null;
+
+    for (int i = 0; i < args.size(); i++) {
+      String arg = args.get(i);
+      switch (arg) {
+        case "--generate" -> generate = true;
+        case "--mode" -> mode = mode(value(args, ++i, arg), arg);
+        case "--pages" -> pages = positive(value(args, ++i, arg), arg, 1);
+        case "--duration" -> duration = positive(value(args, ++i, arg), arg, 0);
+        case "--concurrency" -> concurrency = positive(value(args, ++i, arg), arg, 1);
+        case "--sample-interval" -> sampleInterval = positive(value(args, ++i, arg), arg, 1);
+        case "--warmup-pages" -> warmupPages = positive(value(args, ++i, arg), arg, 0);
+        case "--max-memory-growth" -> maxMemoryGrowth = positive(value(args, ++i, arg), arg, 1);
+        case "--max-direct-growth" -> maxDirectGrowth = positive(value(args, ++i, arg), arg, 1);
+        case "--max-handle-growth" -> maxHandleGrowth = positive(value(args, ++i, arg), arg, 1);
+        case "--samples" -> samples = Path.of(value(args, ++i, arg));
+        default -> {
+          if (arg.startsWith("--")) {
+            throw new IllegalArgumentException("Unknown option: " + arg);
+          }
+          if (corpus != null) {
+            throw new IllegalArgumentException("Only one corpus directory can be given");
+          }
+          corpus = Path.of(arg);
+        }
+      }
+    }
+
+    if (corpus == null) {
+      throw new IllegalArgumentException("No corpus directory given");
+    }
+    return new SoakOptions(
+        corpus,
+        generate,
+        mode,
+        pages,
+        duration,
+        concurrency,
+        sampleInterval,
+        warmupPages >= 0 ? warmupPages : pages / 20,
+        maxMemoryGrowth,
+        maxDirectGrowth,
+        maxHandleGrowth,
+        samples);
+  }
+
+  private static Mode mode(String value, String option) {
+    try {
+      return Mode.valueOf(value.toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException(
+          "Invalid value for " + option + ": " + value + " (expected pipeline, ocr or both)");
+    }
+  }
+}
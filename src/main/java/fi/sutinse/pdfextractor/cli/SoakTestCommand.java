@@ -0,0 +1,411 @@
+package fi.sutinse.pdfextractor.cli;
+
+import fi.sutinse.pdfextractor.benchmark.CorpusGenerator;
+import fi.sutinse.pdfextractor.cli.ResourceSampler.ResourceSample;
+import fi.sutinse.pdfextractor.dto.ExtractionMetadata;
+import fi.sutinse.pdfextractor.dto.ExtractionOptions;
+import fi.sutinse.pdfextractor.dto.PdfExtractionResponse;
+import fi.sutinse.pdfextractor.service.ExtractionMetrics;
+import fi.sutinse.pdfextractor.service.OcrAdmissionController;
+import fi.sutinse.pdfextractor.service.PageProgressListener;
+import fi.sutinse.pdfextractor.service.PdfExtractionService;
+import fi.sutinse.pdfextractor.service.PdfSource;
+import fi.sutinse.pdfextractor.service.TesseractOcrService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+import net.sourceforge.tess4j.TesseractException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Long-running soak test for leaks the heap does not show: Tesseract and JNA native memory,
+ * renderer resources, direct buffers, file handles and temp files. The corpus is extracted over and
+ * over while process resources are sampled; the test fails if a resource grows steadily beyond its
+ * limit after the warmup.
+ */
+@ApplicationScoped
+public class SoakTestCommand {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SoakTestCommand.class);
+
+  private static final long MB = 1024 * 1024;
+
+  @Inject PdfExtractionService pdfExtractionService;
+
+  @Inject OcrAdmissionController admissionController;
+
+  @Inject TesseractOcrService tesseractOcrService;
+
+  @Inject ExtractionMetrics metrics;
+
+  /**
+   * Growth of one resource over the test
+   *
+   * @param resource Resource name
+   * @param baseline Median of the first quarter of the samples after warmup
+   * @param last Last sampled value
+   * @param growth Sustained growth: the least value of the last quarter minus the baseline
+   * @param limit Growth failing the test
+   * @param leaking Whether the growth exceeded the limit
+   */
+  public record ResourceGrowth(
+      String resource, long baseline, long last, long growth, long limit, boolean leaking) {}
+
+  /**
+   * Soak test report
+   *
+   * @param pages Pages processed
+   * @param documents Documents processed
+   * @param failures Documents whose extraction failed
+   * @param samples Resource samples taken
+   * @param resources Growth per resource that could be sampled
+   */
+  public record Report(
+      long pages, long documents, int failures, int samples, List<ResourceGrowth> resources) {
+
+    /** Whether any resource grew beyond its limit */
+    public boolean leaking() {
+      return resources.stream().anyMatch(ResourceGrowth::leaking);
+    }
+  }
+
+  /**
+   * Runs the command with the arguments following {@code soak}
+   *
+   * @param args Command line arguments
+   * @return Process exit code, a failure if a resource leaked
+   */
+  public int run(List<String> args) {
+    SoakOptions options;
+    try {
+      options = SoakOptions.parse(args);
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.err.println(SoakOptions.USAGE);
+      return BulkExtractionCommand.EXIT_USAGE;
+    }
+
+    try {
+      Report report = soak(options);
+      print(report, System.out);
+      return report.leaking() ? BulkExtractionCommand.EXIT_FAILURE : BulkExtractionCommand.EXIT_OK;
+    } catch (InterruptedIOException e) {
+      Thread.currentThread().interrupt();
+      LOGGER.warn("Soak test interrupted");
+      return BulkExtractionCommand.EXIT_FAILURE;
+    } catch (IOException e) {
+      LOGGER.error("Soak test aborted: {}", e.getMessage(), e);
+      return BulkExtractionCommand.EXIT_FAILURE;
+    }
+  }
+
+  /**
+   * Extracts the corpus repeatedly until the page count or time limit is reached
+   *
+   * @param options Corpus, limits and thresholds
+   * @return Report with the growth of each resource
+   * @throws IOException if the corpus cannot be generated or read, or contains no PDFs
+   */
+  public Report soak(SoakOptions options) throws IOException {
+    if (options.generate()) {
+      LOGGER.info("Generating soak test corpus in {}", options.corpus());
+      new CorpusGenerator(BenchmarkOptions.DEFAULT_LARGE_PAGES).generate(options.corpus());
+    }
+    List<Path> documents =
+        ExtractionBenchmarkCommand.listCorpus(options.corpus()).stream()
+            .map(ExtractionBenchmarkCommand.CorpusDocument::file)
+            .toList();
+    if (documents.isEmpty()) {
+      throw new IOException("No PDF files found in corpus " + options.corpus());
+    }
+    LOGGER.info(
+        "Soak testing {} pages in {} mode over {} documents",
+        options.pages(),
+        options.mode(),
+        documents.size());
+
+    ResourceSampler sampler = new ResourceSampler(Path.of(System.getProperty("java.io.tmpdir")));
+    List<ResourceSample> samples = new ArrayList<>();
+    AtomicLong pages = new AtomicLong();
+    AtomicLong done = new AtomicLong();
+    AtomicInteger failures = new AtomicInteger();
+    long start = System.nanoTime();
+    long deadline =
+        options.duration() > 0
+            ? start + TimeUnit.MINUTES.toNanos(options.duration())
+            : Long.MAX_VALUE;
+
+    ExecutorService workers =
+        Executors.newFixedThreadPool(
+            options.concurrency(), Thread.ofPlatform().name("soak-", 1).daemon().factory());
+    ScheduledExecutorService sampling =
+        Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("soak-sampler").daemon().factory());
+    try (BufferedWriter csv = options.samples() != null ? csv(options.samples()) : null) {
+      Runnable takeSample =
+          () -> {
+            ResourceSample sample =
+                sampler.sample(
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                    pages.get(),
+                    done.get());
+            synchronized (samples) {
+              samples.add(sample);
+              write(csv, sample);
+            }
+            LOGGER.info(
+                "{} pages, {} documents, RSS {} MB, direct {} MB, {} open files, {} temp files",
+                sample.pages(),
+                sample.documents(),
+                sample.rssBytes() / MB,
+                sample.directBytes() / MB,
+                sample.openFiles(),
+                sample.tempFiles());
+          };
+      sampling.scheduleAtFixedRate(takeSample, 0, options.sampleInterval(), TimeUnit.SECONDS);
+
+      AtomicLong next = new AtomicLong();
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < options.concurrency(); i++) {
+        futures.add(
+            workers.submit(
+                () -> {
+                  while (pages.get() < options.pages() && System.nanoTime() < deadline) {
+                    long index = next.getAndIncrement();
+                    Path document = documents.get((int) (index % documents.size()));
+                    int processed = process(document, options.mode());
+                    if (processed < 0) {
+                      failures.incrementAndGet();
+                    } else {
+                      pages.addAndGet(processed);
+                    }
+                    done.incrementAndGet();
+                  }
+                  return null;
+                }));
+      }
+      await(futures);
+
+      sampling.shutdown();
+      if (!sampling.awaitTermination(1, TimeUnit.MINUTES)) {
+        throw new IOException("Resource sampler did not stop");
+      }
+      // Final sample once the workers are idle
+      takeSample.run();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while soak testing");
+    } finally {
+      workers.shutdownNow();
+      sampling.shutdownNow();
+    }
+
+    return new Report(
+        pages.get(),
+        done.get(),
+        failures.get(),
+        samples.size(),
+        growth(samples, options));
+  }
+
+  /**
+   * Runs one document through the selected code paths
+   *
+   * @return Pages processed, or -1 if an extraction failed
+   */
+  private int process(Path document, SoakOptions.Mode mode)
+      throws IOException, InterruptedException {
+    PdfSource source = PdfSource.of(document);
+    int pages = 0;
+    if (mode != SoakOptions.Mode.OCR) {
+      PdfExtractionResponse response =
+          admissionController.retryWhileOverloaded(
+              () ->
+                  pdfExtractionService.extractText(
+                      source,
+                      document.getFileName().toString(),
+                      ExtractionOptions.ALL,
+                      PageProgressListener.NONE));
+      ExtractionMetadata metadata = response.metadata();
+      if (!response.success() || metadata == null) {
+        return -1;
+      }
+      pages += metadata.pageCount();
+    }
+    if (mode != SoakOptions.Mode.PIPELINE) {
+      int[] ocrPages = new int[1];
+      boolean success =
+          admissionController.retryWhileOverloaded(
+              () -> {
+                try {
+                  tesseractOcrService.extractTextFromPdf(
+                      source,
+                      null,
+                      (pagesDone, pageCount) -> ocrPages[0] = pagesDone,
+                      metrics.profiler(false));
+                  return true;
+                } catch (TesseractException | IOException e) {
+                  LOGGER.warn("OCR of {} failed: {}", document, e.getMessage());
+                  return false;
+                }
+              });
+      if (!success) {
+        return -1;
+      }
+      pages += ocrPages[0];
+    }
+    return pages;
+  }
+
+  private static void await(List<Future<?>> futures) throws IOException, InterruptedException {
+    try {
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (ExecutionException e) {
+      throw new IOException("Soak test worker failed", e.getCause());
+    }
+  }
+
+  static List<ResourceGrowth> growth(List<ResourceSample> samples, SoakOptions options) {
+    List<ResourceSample> measured =
+        samples.stream().filter(sample -> sample.pages() >= options.warmupPages()).toList();
+    List<ResourceGrowth> resources = new ArrayList<>();
+    addGrowth(resources, "rss", measured, ResourceSample::rssBytes, options.maxMemoryGrowth() * MB);
+    addGrowth(
+        resources,
+        "native-committed",
+        measured,
+        ResourceSample::nativeCommittedBytes,
+        options.maxMemoryGrowth() * MB);
+    addGrowth(
+        resources,
+        "direct-buffers",
+        measured,
+        ResourceSample::directBytes,
+        options.maxDirectGrowth() * MB);
+    addGrowth(
+        resources, "open-files", measured, ResourceSample::openFiles, options.maxHandleGrowth());
+    addGrowth(
+        resources, "temp-files", measured, ResourceSample::tempFiles, options.maxHandleGrowth());
+    return resources;
+  }
+
+  private static void addGrowth(
+      List<ResourceGrowth> resources,
+      String resource,
+      List<ResourceSample> samples,
+      ToLongFunction<ResourceSample> value,
+      long limit) {
+    long[] values = samples.stream().mapToLong(value).toArray();
+    if (values.length == 0 || Arrays.stream(values).anyMatch(v -> v < 0)) {
+      return;
+    }
+    long growth = sustainedGrowth(values);
+    resources.add(
+        new ResourceGrowth(
+            resource,
+            baseline(values),
+            values[values.length - 1],
+            growth,
+            limit,
+            growth > limit));
+  }
+
+  /** Median of the first quarter of the samples */
+  static long baseline(long[] values) {
+    return median(Arrays.copyOfRange(values, 0, Math.max(1, values.length / 4)));
+  }
+
+  /**
+   * Growth that persisted to the end: the least value of the last quarter of the samples minus the
+   * baseline, so a transient spike at either end does not count
+   *
+   * @param values Samples in time order
+   * @return Growth, 0 with fewer than 4 samples
+   */
+  static long sustainedGrowth(long[] values) {
+    if (values.length < 4) {
+      return 0;
+    }
+    long recent =
+        Arrays.stream(values, values.length - values.length / 4, values.length).min().getAsLong();
+    return recent - baseline(values);
+  }
+
+  private static long median(long[] values) {
+    long[] sorted = values.clone();
+    Arrays.sort(sorted);
+    return sorted[sorted.length / 2];
+  }
+
+  private static BufferedWriter csv(Path file) throws IOException {
+    BufferedWriter writer = Files.newBufferedWriter(file);
+    writer.write(ResourceSample.CSV_HEADER);
+    writer.newLine();
+    return writer;
+  }
+
+  /** Writes and flushes a sample, so a crashed run still leaves its samples behind */
+  private static void write(BufferedWriter csv, ResourceSample sample) {
+    if (csv == null) {
+      return;
+    }
+    try {
+      csv.write(sample.toCsv());
+      csv.newLine();
+      csv.flush();
+    } catch (IOException e) {
+      LOGGER.warn("Failed to write resource sample: {}", e.getMessage());
+    }
+  }
+
+  static void print(Report report, PrintStream out) {
+    out.printf(
+        Locale.ROOT,
+        "%d pages, %d documents, %d failed, %d samples%n",
+        report.pages(),
+        report.documents(),
+        report.failures(),
+        report.samples());
+    out.printf(
+        Locale.ROOT,
+        "%-18s %14s %14s %14s %14s%n",
+        "resource",
+        "baseline",
+        "last",
+        "growth",
+        "limit");
+    for (ResourceGrowth resource : report.resources()) {
+      out.printf(
+          Locale.ROOT,
+          "%-18s %14d %14d %14d %14d%s%n",
+          resource.resource(),
+          resource.baseline(),
+          resource.last(),
+          resource.growth(),
+          resource.limit(),
+          resource.leaking() ? "  LEAK" : "");
+    }
+    out.println(report.leaking() ? "Sustained resource growth detected" : "No leaks detected");
+  }
+}
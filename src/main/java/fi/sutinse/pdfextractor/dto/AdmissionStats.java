@@ -0,0 +1,13 @@
+package fi.sutinse.pdfextractor.dto;
+
+/** Record for OCR admission control counters: permits in use, wait queue and shed requests */
+public record AdmissionStats(
+    int maxConcurrent,
+    int active,
+    int waiting,
+    int maxWaiting,
+    long admitted,
+    long rejected,
+    long timedOut,
+    double averageWaitMs,
+    long maxWaitMs) {}
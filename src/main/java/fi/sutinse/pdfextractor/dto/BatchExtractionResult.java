@@ -0,0 +1,19 @@
+package fi.sutinse.pdfextractor.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Record for the result of one document in a batch extraction. {@code index} is the position of
+ * the document in the upload order; results are emitted in completion order.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchExtractionResult(
+    int index, String filename, String archive, PdfExtractionResponse response) {
+
+  /** Factory method for a document that could not be extracted */
+  public static BatchExtractionResult failure(
+      int index, String filename, String archive, String errorMessage) {
+    return new BatchExtractionResult(
+        index, filename, archive, PdfExtractionResponse.failure(errorMessage));
+  }
+}
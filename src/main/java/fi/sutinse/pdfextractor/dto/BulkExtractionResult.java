@@ -0,0 +1,16 @@
+package fi.sutinse.pdfextractor.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Record for one line of bulk extraction output. {@code sha256} identifies the document content
+ * and is what a resumed run uses to skip documents already processed.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BulkExtractionResult(String path, String sha256, PdfExtractionResponse response) {
+
+  /** Factory method for a document that could not be read or extracted */
+  public static BulkExtractionResult failure(String path, String sha256, String errorMessage) {
+    return new BulkExtractionResult(path, sha256, PdfExtractionResponse.failure(errorMessage));
+  }
+}
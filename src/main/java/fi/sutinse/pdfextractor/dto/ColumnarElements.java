@@ -0,0 +1,121 @@
+package fi.sutinse.pdfextractor.dto;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Record representing text elements in a compact columnar layout. Word strings are stored once in
+ * {@code text} and referenced by offset and length; locations are parallel int arrays. Elements
+ * without a location have -1 in all location columns. Equality compares the column contents.
+ */
+public record ColumnarElements(
+    String text,
+    int[] offsets,
+    int[] lengths,
+    int[] x,
+    int[] y,
+    int[] width,
+    int[] height,
+    int[] pageNumber) {
+
+  /** Factory method converting row-oriented elements into columns */
+  public static ColumnarElements from(List<TextElement> elements) {
+    if (elements instanceof WordBoxes words) {
+      return words.toColumnar();
+    }
+    int count = elements.size();
+    int[] offsets = new int[count];
+    int[] lengths = new int[count];
+    int[] x = new int[count];
+    int[] y = new int[count];
+    int[] width = new int[count];
+    int[] height = new int[count];
+    int[] pageNumber = new int[count];
+    StringBuilder text = new StringBuilder();
+
+    for (int i = 0; i < count; i++) {
+      TextElement element = elements.get(i);
+      String elementText = element.text() != null ? element.text() : "";
+      if (i > 0) {
+        text.append(' ');
+      }
+      offsets[i] = text.length();
+      lengths[i] = elementText.length();
+      text.append(elementText);
+
+      if (element.locations() != null && !element.locations().isEmpty()) {
+        TextLocation location = element.locations().get(0);
+        x[i] = location.x();
+        y[i] = location.y();
+        width[i] = location.width();
+        height[i] = location.height();
+        pageNumber[i] = location.pageNumber();
+      } else {
+        x[i] = y[i] = width[i] = height[i] = pageNumber[i] = -1;
+      }
+    }
+
+    return new ColumnarElements(text.toString(), offsets, lengths, x, y, width, height, pageNumber);
+  }
+
+  /** Number of elements in the columns */
+  public int size() {
+    return offsets.length;
+  }
+
+  /** Materializes a single element in the row-oriented shape */
+  public TextElement element(int index) {
+    String elementText = text.substring(offsets[index], offsets[index] + lengths[index]);
+    if (pageNumber[index] < 0) {
+      return TextElement.textOnly(elementText);
+    }
+    return TextElement.withLocations(
+        elementText,
+        List.of(
+            TextLocation.of(x[index], y[index], width[index], height[index], pageNumber[index])));
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof ColumnarElements that
+        && Objects.equals(text, that.text)
+        && Arrays.equals(offsets, that.offsets)
+        && Arrays.equals(lengths, that.lengths)
+        && Arrays.equals(x, that.x)
+        && Arrays.equals(y, that.y)
+        && Arrays.equals(width, that.width)
+        && Arrays.equals(height, that.height)
+        && Arrays.equals(pageNumber, that.pageNumber);
+  }
+
+  @Override
+  public int hashCode() {
+    int result = Objects.hashCode(text);
+    for (int[] column : new int[][] {offsets, lengths, x, y, width, height, pageNumber}) {
+      result = 31 * result + Arrays.hashCode(column);
+    }
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return "ColumnarElements[text="
+        + text
+        + ", offsets="
+        + Arrays.toString(offsets)
+        + ", lengths="
+        + Arrays.toString(lengths)
+        + ", x="
+        + Arrays.toString(x)
+        + ", y="
+        + Arrays.toString(y)
+        + ", width="
+        + Arrays.toString(width)
+        + ", height="
+        + Arrays.toString(height)
+        + ", pageNumber="
+        + Arrays.toString(pageNumber)
+        + "]";
+  }
+}
@@ -0,0 +1,31 @@
+package fi.sutinse.pdfextractor.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.time.LocalDateTime;
+
+/** Record representing the state and page-level progress of an asynchronous extraction job */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ExtractionJobStatus(
+    String jobId,
+    State state,
+    JobPriority priority,
+    String filename,
+    int pagesProcessed,
+    int pageCount,
+    LocalDateTime submittedAt,
+    LocalDateTime startedAt,
+    LocalDateTime completedAt,
+    LocalDateTime expiresAt) {
+
+  /** Job lifecycle states */
+  public enum State {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED;
+
+    public boolean isFinished() {
+      return this == COMPLETED || this == FAILED;
+    }
+  }
+}
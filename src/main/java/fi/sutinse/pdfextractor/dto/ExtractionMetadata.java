@@ -1,8 +1,10 @@
 package fi.sutinse.pdfextractor.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import java.time.LocalDateTime;
 
-/** Record for extraction metadata using modern Java record syntax */
+/** Record for extraction metadata using modern Java record syntax; profile only when requested */
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record ExtractionMetadata(
     LocalDateTime extractionTime,
     long processingTimeMs,
@@ -10,7 +12,8 @@ public record ExtractionMetadata(
     String originalFilename,
     long fileSizeBytes,
     boolean textNormalized,
-    String language) {
+    String language,
+    ExtractionProfile profile) {
 
   /** Factory method for creating metadata */
   public static ExtractionMetadata create(
@@ -21,6 +24,19 @@ public record ExtractionMetadata(
       boolean normalized,
       String lang) {
     return new ExtractionMetadata(
-        LocalDateTime.now(), processingTime, pages, filename, fileSize, normalized, lang);
+        LocalDateTime.now(), processingTime, pages, filename, fileSize, normalized, lang, null);
+  }
+
+  /** Returns a copy carrying the given profile */
+  public ExtractionMetadata withProfile(ExtractionProfile extractionProfile) {
+    return new ExtractionMetadata(
+        extractionTime,
+        processingTimeMs,
+        pageCount,
+        originalFilename,
+        fileSizeBytes,
+        textNormalized,
+        language,
+        extractionProfile);
   }
 }
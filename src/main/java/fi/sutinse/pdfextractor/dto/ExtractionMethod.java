@@ -4,6 +4,8 @@ package fi.sutinse.pdfextractor.dto;
 public enum ExtractionMethod {
   PDFBOX("PDFBox - Direct text extraction"),
   TESSERACT_OCR("TesseractOCR - Optical Character Recognition"),
+  ACROFORM("AcroForm - Values of interactive form fields"),
+  EMBEDDED_INVOICE("Embedded e-invoice - Finvoice or Factur-X XML attachment"),
   HYBRID("Hybrid - PDFBox with OCR fallback");
 
   private final String description;
@@ -0,0 +1,127 @@
+package fi.sutinse.pdfextractor.dto;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Record describing which response fields the caller wants. Extraction skips work whose result
+ * would be projected away, e.g. word boxes are only collected when elements or field locations are
+ * requested. {@code profile} adds a timing and resource breakdown to the metadata.
+ */
+public record ExtractionOptions(Set<Field> fields, boolean profile) {
+
+  /** Projectable response fields, named as in the JSON response */
+  public enum Field {
+    CONTENT("content"),
+    ELEMENTS("elements"),
+    STRUCTURED_DATA("structuredData"),
+    FIELD_LOCATIONS("fieldLocations"),
+    DOCUMENT_TYPE("documentType"),
+    METHOD_USED("methodUsed"),
+    METADATA("metadata");
+
+    private final String jsonName;
+
+    Field(String jsonName) {
+      this.jsonName = jsonName;
+    }
+
+    public String getJsonName() {
+      return jsonName;
+    }
+
+    /**
+     * Gets field from its JSON name
+     *
+     * @param name JSON field name (case insensitive)
+     * @return Matching field
+     * @throws IllegalArgumentException if the name is not a projectable field
+     */
+    public static Field fromJsonName(String name) {
+      return Arrays.stream(values())
+          .filter(field -> field.jsonName.equalsIgnoreCase(name))
+          .findFirst()
+          .orElseThrow(() -> new IllegalArgumentException("Unknown response field: " + name));
+    }
+  }
+
+  /** Options returning every field, the default when no projection is given */
+  public static final ExtractionOptions ALL = new ExtractionOptions(EnumSet.allOf(Field.class));
+
+  public ExtractionOptions {
+    fields = fields.isEmpty() ? EnumSet.noneOf(Field.class) : EnumSet.copyOf(fields);
+  }
+
+  public ExtractionOptions(Set<Field> fields) {
+    this(fields, false);
+  }
+
+  /**
+   * Parses a comma separated field list such as {@code structuredData,documentType,metadata}.
+   * {@code extractedText} selects all text fields.
+   *
+   * @param fields Field list, null or blank for all fields
+   * @return Parsed options
+   * @throws IllegalArgumentException if the list names an unknown field
+   */
+  public static ExtractionOptions fromFields(String fields) {
+    if (fields == null || fields.isBlank()) {
+      return ALL;
+    }
+
+    Set<Field> selected = EnumSet.noneOf(Field.class);
+    for (String name : fields.split(",")) {
+      String trimmed = name.trim();
+      if (trimmed.isEmpty()) {
+        continue;
+      }
+      if (trimmed.equalsIgnoreCase("extractedText")) {
+        selected.addAll(
+            EnumSet.of(
+                Field.CONTENT, Field.ELEMENTS, Field.STRUCTURED_DATA, Field.FIELD_LOCATIONS));
+      } else {
+        selected.add(Field.fromJsonName(trimmed));
+      }
+    }
+    return new ExtractionOptions(selected);
+  }
+
+  /** Returns options that also profile the extraction; the profile is part of the metadata */
+  public ExtractionOptions withProfile() {
+    Set<Field> withMetadata = EnumSet.copyOf(fields);
+    withMetadata.add(Field.METADATA);
+    return new ExtractionOptions(withMetadata, true);
+  }
+
+  public boolean includes(Field field) {
+    return fields.contains(field);
+  }
+
+  /**
+   * OCR word boxes are needed for elements and for field extraction, where spatial label/value
+   * pairs take precedence over values found in the text
+   */
+  public boolean needsWordBoxes() {
+    return includes(Field.ELEMENTS) || needsStructuredData();
+  }
+
+  public boolean needsStructuredData() {
+    return includes(Field.STRUCTURED_DATA) || includes(Field.FIELD_LOCATIONS);
+  }
+
+  /** Structured data extraction is driven by the document type schema */
+  public boolean needsDocumentType() {
+    return includes(Field.DOCUMENT_TYPE) || needsStructuredData();
+  }
+
+  /** Full (normalized) text is needed for content and as input to type and field detection */
+  public boolean needsText() {
+    return includes(Field.CONTENT) || needsDocumentType();
+  }
+
+  /** Whether any field of the nested extracted text object is requested */
+  public boolean needsExtractedText() {
+    return includes(Field.CONTENT) || includes(Field.ELEMENTS) || needsStructuredData();
+  }
+}
@@ -0,0 +1,34 @@
+package fi.sutinse.pdfextractor.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.List;
+
+/**
+ * Record for the timing and resource breakdown of one extraction, returned in the metadata when
+ * profiling is requested. CPU time and allocations are measured on the thread running each stage,
+ * so work on the fast and OCR lanes is attributed to the request.
+ *
+ * @param stages Time per pipeline stage in execution order
+ * @param pages Render and OCR time per OCR page
+ * @param pixelsRendered Pixels rendered for OCR
+ * @param cpuMs CPU time of all measured stages
+ * @param allocatedBytes Heap bytes allocated by the measured stages, null if the JVM cannot tell
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ExtractionProfile(
+    List<StageTiming> stages,
+    List<PageTiming> pages,
+    long pixelsRendered,
+    double cpuMs,
+    Long allocatedBytes) {
+
+  /** Time spent in one stage, summed over its invocations (per page for render and OCR) */
+  public record StageTiming(
+      String stage, ExtractionMethod method, int count, double wallMs, double cpuMs) {}
+
+  /**
+   * Render and OCR time of one page. A page OCRed again after language detection is listed twice.
+   */
+  public record PageTiming(
+      int page, double renderMs, double ocrMs, long pixels, int dpi, String engineProfile) {}
+}
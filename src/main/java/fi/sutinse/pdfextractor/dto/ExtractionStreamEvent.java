@@ -0,0 +1,19 @@
+package fi.sutinse.pdfextractor.dto;
+
+/** Record for one line of a streamed extraction: a page result or the final summary */
+public record ExtractionStreamEvent(
+    String type, PageExtractionResult page, PdfExtractionResponse summary) {
+
+  public static final String PAGE = "page";
+  public static final String SUMMARY = "summary";
+
+  /** Factory method for a page event */
+  public static ExtractionStreamEvent page(PageExtractionResult page) {
+    return new ExtractionStreamEvent(PAGE, page, null);
+  }
+
+  /** Factory method for the final summary event */
+  public static ExtractionStreamEvent summary(PdfExtractionResponse summary) {
+    return new ExtractionStreamEvent(SUMMARY, null, summary);
+  }
+}
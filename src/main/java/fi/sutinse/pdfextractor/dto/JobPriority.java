@@ -0,0 +1,27 @@
+package fi.sutinse.pdfextractor.dto;
+
+/** Enum for extraction job priorities, in the order queued jobs are started */
+public enum JobPriority {
+  HIGH,
+  NORMAL,
+  LOW;
+
+  /**
+   * Gets priority from string value
+   *
+   * @param value Priority name (case insensitive)
+   * @return Matching priority, NORMAL if the value is null or blank
+   * @throws IllegalArgumentException if the value is not a priority
+   */
+  public static JobPriority fromString(String value) {
+    if (value == null || value.isBlank()) {
+      return NORMAL;
+    }
+    for (JobPriority priority : values()) {
+      if (priority.name().equalsIgnoreCase(value.trim())) {
+        return priority;
+      }
+    }
+    throw new IllegalArgumentException("Unknown job priority: " + value);
+  }
+}
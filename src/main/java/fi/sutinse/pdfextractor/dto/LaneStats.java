@@ -0,0 +1,15 @@
+package fi.sutinse.pdfextractor.dto;
+
+/**
+ * Record for extraction lane counters. {@code overflow} counts fast lane tasks run on the caller
+ * and OCR lane tasks rejected because every thread was busy. The OCR lane has no queue; its
+ * waiting callers are reported by admission control.
+ */
+public record LaneStats(
+    String lane,
+    int threads,
+    int active,
+    int queued,
+    int queueCapacity,
+    long completed,
+    long overflow) {}
@@ -0,0 +1,12 @@
+package fi.sutinse.pdfextractor.dto;
+
+import java.util.List;
+
+/** Record representing the extraction result of a single page in a streamed extraction */
+public record PageExtractionResult(
+    int pageNumber,
+    int pageCount,
+    ExtractionMethod methodUsed,
+    String content,
+    List<TextElement> elements,
+    long processingTimeMs) {}
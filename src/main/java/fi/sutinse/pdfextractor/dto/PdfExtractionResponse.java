@@ -1,8 +1,10 @@
 package fi.sutinse.pdfextractor.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import fi.sutinse.pdfextractor.model.DocumentType;
 
-/** Record for PDF extraction response using modern Java record syntax */
+/** Record for PDF extraction response using modern Java record syntax; null fields are omitted */
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record PdfExtractionResponse(
     StructuredText extractedText,
     ExtractionMethod methodUsed,
@@ -24,4 +26,27 @@ public record PdfExtractionResponse(
   public static PdfExtractionResponse failure(String errorMessage) {
     return new PdfExtractionResponse(null, null, DocumentType.UNKNOWN, false, errorMessage, null);
   }
+
+  /** Returns a copy with extracted text elements in the columnar layout */
+  public PdfExtractionResponse withColumnarElements() {
+    if (extractedText == null) {
+      return this;
+    }
+    return new PdfExtractionResponse(
+        extractedText.toColumnar(), methodUsed, documentType, success, errorMessage, metadata);
+  }
+
+  /** Returns a copy keeping only the requested fields; failures are returned unchanged */
+  public PdfExtractionResponse project(ExtractionOptions options) {
+    if (!success) {
+      return this;
+    }
+    return new PdfExtractionResponse(
+        extractedText != null ? extractedText.project(options) : null,
+        options.includes(ExtractionOptions.Field.METHOD_USED) ? methodUsed : null,
+        options.includes(ExtractionOptions.Field.DOCUMENT_TYPE) ? documentType : null,
+        success,
+        errorMessage,
+        options.includes(ExtractionOptions.Field.METADATA) ? metadata : null);
+  }
 }
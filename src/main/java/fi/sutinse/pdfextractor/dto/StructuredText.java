@@ -1,33 +1,91 @@
 package fi.sutinse.pdfextractor.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import java.util.List;
 import java.util.Map;
 
-/** Record representing structured extracted text in JSON format */
+/** Record representing structured extracted text in JSON format; absent parts are omitted */
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record StructuredText(
-    String content, 
-    List<TextElement> elements, 
+    String content,
+    List<TextElement> elements,
     boolean hasLocationData,
-    Map<String, Object> structuredData) {
+    Map<String, Object> structuredData,
+    Map<String, TextLocation> fieldLocations,
+    ColumnarElements columnarElements) {
 
   /** Factory method for simple text without location data (PDFBox) */
   public static StructuredText fromText(String text) {
-    return new StructuredText(text, List.of(TextElement.textOnly(text)), false, Map.of());
+    return new StructuredText(
+        text, List.of(TextElement.textOnly(text)), false, Map.of(), Map.of(), null);
   }
 
   /** Factory method for simple text with structured data (PDFBox) */
   public static StructuredText fromText(String text, Map<String, Object> structuredData) {
-    return new StructuredText(text, List.of(TextElement.textOnly(text)), false, structuredData);
+    return new StructuredText(
+        text, List.of(TextElement.textOnly(text)), false, structuredData, Map.of(), null);
   }
 
   /** Factory method for text with location data (OCR) */
   public static StructuredText fromElements(String fullContent, List<TextElement> elements) {
-    return new StructuredText(fullContent, elements, true, Map.of());
+    return new StructuredText(fullContent, elements, true, Map.of(), Map.of(), null);
   }
 
   /** Factory method for text with location data and structured data (OCR) */
   public static StructuredText fromElements(
       String fullContent, List<TextElement> elements, Map<String, Object> structuredData) {
-    return new StructuredText(fullContent, elements, true, structuredData);
+    return new StructuredText(fullContent, elements, true, structuredData, Map.of(), null);
+  }
+
+  /** Factory method for text with location data, structured data and field value locations (OCR) */
+  public static StructuredText fromElements(
+      String fullContent,
+      List<TextElement> elements,
+      Map<String, Object> structuredData,
+      Map<String, TextLocation> fieldLocations) {
+    return new StructuredText(
+        fullContent, elements, true, structuredData, fieldLocations, null);
+  }
+
+  /** Factory method for structured data without text content (streamed summaries) */
+  public static StructuredText dataOnly(
+      Map<String, Object> structuredData,
+      Map<String, TextLocation> fieldLocations,
+      boolean hasLocationData) {
+    return new StructuredText(
+        null, List.of(), hasLocationData, structuredData, fieldLocations, null);
+  }
+
+  /** Returns a copy with elements in the compact columnar layout instead of one object per word */
+  public StructuredText toColumnar() {
+    if (elements == null) {
+      return this;
+    }
+    return new StructuredText(
+        content,
+        null,
+        hasLocationData,
+        structuredData,
+        fieldLocations,
+        ColumnarElements.from(elements));
+  }
+
+  /**
+   * Returns a copy keeping only the requested fields
+   *
+   * @param options Requested response fields
+   * @return Projected text, or null if no text field is requested
+   */
+  public StructuredText project(ExtractionOptions options) {
+    if (!options.needsExtractedText()) {
+      return null;
+    }
+    return new StructuredText(
+        options.includes(ExtractionOptions.Field.CONTENT) ? content : null,
+        options.includes(ExtractionOptions.Field.ELEMENTS) ? elements : null,
+        hasLocationData,
+        options.includes(ExtractionOptions.Field.STRUCTURED_DATA) ? structuredData : null,
+        options.includes(ExtractionOptions.Field.FIELD_LOCATIONS) ? fieldLocations : null,
+        options.includes(ExtractionOptions.Field.ELEMENTS) ? columnarElements : null);
   }
 }
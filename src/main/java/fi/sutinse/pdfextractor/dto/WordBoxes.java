@@ -0,0 +1,158 @@
+package fi.sutinse.pdfextractor.dto;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Growable store of OCR word boxes in primitive columns: coordinates and page numbers in int arrays
+ * and word text in one shared character buffer, referenced by offset and length. Read as a list,
+ * it materializes each {@link TextElement} only when asked, so serialization produces the usual
+ * element JSON while the store itself holds no object per word. Words without a location have -1
+ * in all location columns, as in {@link ColumnarElements}.
+ */
+public final class WordBoxes extends AbstractList<TextElement> implements RandomAccess {
+
+  private static final int INITIAL_CAPACITY = 256;
+
+  private final StringBuilder text = new StringBuilder();
+  private int[] offsets;
+  private int[] lengths;
+  private int[] x;
+  private int[] y;
+  private int[] width;
+  private int[] height;
+  private int[] pageNumber;
+  private int size;
+
+  /** Creates an empty store */
+  public WordBoxes() {
+    this(INITIAL_CAPACITY);
+  }
+
+  /** Creates an empty store sized for a number of words */
+  public WordBoxes(int capacity) {
+    int initial = Math.max(capacity, 1);
+    offsets = new int[initial];
+    lengths = new int[initial];
+    x = new int[initial];
+    y = new int[initial];
+    width = new int[initial];
+    height = new int[initial];
+    pageNumber = new int[initial];
+  }
+
+  /**
+   * Appends a word with its bounding box
+   *
+   * @param word Word text
+   * @param x Left edge in pixels
+   * @param y Top edge in pixels
+   * @param width Box width in pixels
+   * @param height Box height in pixels
+   * @param pageNumber One-based page number
+   */
+  public void add(CharSequence word, int x, int y, int width, int height, int pageNumber) {
+    ensureCapacity(size + 1);
+    if (size > 0) {
+      text.append(' ');
+    }
+    offsets[size] = text.length();
+    lengths[size] = word.length();
+    text.append(word);
+    this.x[size] = x;
+    this.y[size] = y;
+    this.width[size] = width;
+    this.height[size] = height;
+    this.pageNumber[size] = pageNumber;
+    size++;
+    modCount++;
+  }
+
+  /** Appends an element, keeping its first location only like the columnar layout */
+  @Override
+  public boolean add(TextElement element) {
+    String elementText = element.text() != null ? element.text() : "";
+    if (element.locations() != null && !element.locations().isEmpty()) {
+      TextLocation location = element.locations().get(0);
+      add(
+          elementText,
+          location.x(),
+          location.y(),
+          location.width(),
+          location.height(),
+          location.pageNumber());
+    } else {
+      add(elementText, -1, -1, -1, -1, -1);
+    }
+    return true;
+  }
+
+  /** Appends elements, copying the columns directly when they come from another store */
+  @Override
+  public boolean addAll(Collection<? extends TextElement> elements) {
+    if (!(elements instanceof WordBoxes other)) {
+      return super.addAll(elements);
+    }
+    for (int i = 0; i < other.size; i++) {
+      add(
+          other.text.subSequence(other.offsets[i], other.offsets[i] + other.lengths[i]),
+          other.x[i],
+          other.y[i],
+          other.width[i],
+          other.height[i],
+          other.pageNumber[i]);
+    }
+    return other.size > 0;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /** Materializes a single word in the row-oriented shape */
+  @Override
+  public TextElement get(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+    }
+    String elementText = text.substring(offsets[index], offsets[index] + lengths[index]);
+    if (pageNumber[index] < 0) {
+      return TextElement.textOnly(elementText);
+    }
+    return TextElement.withLocations(
+        elementText,
+        List.of(
+            TextLocation.of(x[index], y[index], width[index], height[index], pageNumber[index])));
+  }
+
+  /** Copies the columns into the columnar response layout without materializing any element */
+  public ColumnarElements toColumnar() {
+    return new ColumnarElements(
+        text.toString(),
+        Arrays.copyOf(offsets, size),
+        Arrays.copyOf(lengths, size),
+        Arrays.copyOf(x, size),
+        Arrays.copyOf(y, size),
+        Arrays.copyOf(width, size),
+        Arrays.copyOf(height, size),
+        Arrays.copyOf(pageNumber, size));
+  }
+
+  private void ensureCapacity(int required) {
+    if (required <= offsets.length) {
+      return;
+    }
+    int capacity = Math.max(required, offsets.length + (offsets.length >> 1));
+    offsets = Arrays.copyOf(offsets, capacity);
+    lengths = Arrays.copyOf(lengths, capacity);
+    x = Arrays.copyOf(x, capacity);
+    y = Arrays.copyOf(y, capacity);
+    width = Arrays.copyOf(width, capacity);
+    height = Arrays.copyOf(height, capacity);
+    pageNumber = Arrays.copyOf(pageNumber, capacity);
+  }
+}
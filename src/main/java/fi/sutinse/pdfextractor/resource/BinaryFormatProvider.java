@@ -0,0 +1,121 @@
+package fi.sutinse.pdfextractor.resource;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.cfg.MapperBuilder;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.MessageBodyReader;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+/**
+ * JAX-RS provider encoding response models as CBOR or Smile. Both formats keep numbers in native
+ * binary form and replace repeated field names with back-references, which makes word-level
+ * location data much cheaper to encode and decode than JSON. JSON stays the default; binary
+ * encodings are only used when the client asks for them in the Accept header.
+ */
+@Provider
+@Produces({BinaryFormatProvider.APPLICATION_CBOR, BinaryFormatProvider.APPLICATION_SMILE})
+@Consumes({BinaryFormatProvider.APPLICATION_CBOR, BinaryFormatProvider.APPLICATION_SMILE})
+public class BinaryFormatProvider implements MessageBodyWriter<Object>, MessageBodyReader<Object> {
+
+  public static final String APPLICATION_CBOR = "application/cbor";
+  public static final String APPLICATION_SMILE = "application/x-jackson-smile";
+
+  private static final ObjectMapper CBOR_MAPPER =
+      configure(CBORMapper.builder().enable(CBORGenerator.Feature.STRINGREF));
+
+  private static final ObjectMapper SMILE_MAPPER =
+      configure(
+          SmileMapper.builder()
+              .enable(SmileGenerator.Feature.CHECK_SHARED_NAMES)
+              .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES));
+
+  /** Object mapper for CBOR, configured like the JSON mapper */
+  public static ObjectMapper cborMapper() {
+    return CBOR_MAPPER;
+  }
+
+  /** Object mapper for Smile, configured like the JSON mapper */
+  public static ObjectMapper smileMapper() {
+    return SMILE_MAPPER;
+  }
+
+  private static ObjectMapper configure(MapperBuilder<?, ?> builder) {
+    return builder
+        .addModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+        // The container owns the entity streams
+        .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+        .disable(StreamReadFeature.AUTO_CLOSE_SOURCE)
+        .build();
+  }
+
+  @Override
+  public boolean isWriteable(
+      Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+    return mapperFor(mediaType) != null;
+  }
+
+  @Override
+  public void writeTo(
+      Object value,
+      Class<?> type,
+      Type genericType,
+      Annotation[] annotations,
+      MediaType mediaType,
+      MultivaluedMap<String, Object> httpHeaders,
+      OutputStream entityStream)
+      throws IOException, WebApplicationException {
+    mapperFor(mediaType).writeValue(entityStream, value);
+  }
+
+  @Override
+  public boolean isReadable(
+      Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+    return mapperFor(mediaType) != null;
+  }
+
+  @Override
+  public Object readFrom(
+      Class<Object> type,
+      Type genericType,
+      Annotation[] annotations,
+      MediaType mediaType,
+      MultivaluedMap<String, String> httpHeaders,
+      InputStream entityStream)
+      throws IOException, WebApplicationException {
+    ObjectMapper mapper = mapperFor(mediaType);
+    return mapper.readValue(entityStream, mapper.constructType(genericType));
+  }
+
+  private static ObjectMapper mapperFor(MediaType mediaType) {
+    if (mediaType == null) {
+      return null;
+    }
+    String subtype = mediaType.getType() + "/" + mediaType.getSubtype();
+    return switch (subtype.toLowerCase()) {
+      case APPLICATION_CBOR -> CBOR_MAPPER;
+      case APPLICATION_SMILE -> SMILE_MAPPER;
+      default -> null;
+    };
+  }
+}
@@ -0,0 +1,154 @@
+package fi.sutinse.pdfextractor.resource;
+
+import fi.sutinse.pdfextractor.dto.ExtractionJobStatus;
+import fi.sutinse.pdfextractor.dto.ExtractionOptions;
+import fi.sutinse.pdfextractor.dto.JobPriority;
+import fi.sutinse.pdfextractor.dto.PdfExtractionResponse;
+import fi.sutinse.pdfextractor.service.ExtractionJob;
+import fi.sutinse.pdfextractor.service.ExtractionJobService;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriInfo;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.resteasy.reactive.RestForm;
+import org.jboss.resteasy.reactive.multipart.FileUpload;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** REST resource for asynchronous PDF extraction jobs */
+@Path("/api/pdf/jobs")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+public class ExtractionJobResource {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ExtractionJobResource.class);
+
+  @Inject ExtractionJobService jobService;
+
+  /** Delay a client should wait before resubmitting when the queue is full */
+  @ConfigProperty(name = "extraction.ocr.retry-after", defaultValue = "PT10S")
+  Duration retryAfter;
+
+  /**
+   * Queues an uploaded PDF for extraction and returns immediately
+   *
+   * @param file Uploaded PDF file
+   * @param priority Optional job priority: {@code high}, {@code normal} (default) or {@code low}
+   * @param fields Optional comma separated response fields of the final result
+   * @param uriInfo Request URI, used for the job location
+   * @return 202 with the job status and its location, 503 if the queue is full
+   */
+  @POST
+  @Consumes(MediaType.MULTIPART_FORM_DATA)
+  public Response submitJob(
+      @RestForm("file") FileUpload file,
+      @QueryParam("priority") String priority,
+      @QueryParam("fields") String fields,
+      @Context UriInfo uriInfo) {
+    String validationError = PdfExtractionResource.validateUpload(file);
+    if (validationError != null) {
+      LOGGER.warn("Rejected extraction job: {}", validationError);
+      return badRequest(validationError);
+    }
+
+    JobPriority jobPriority;
+    ExtractionOptions options;
+    try {
+      jobPriority = JobPriority.fromString(priority);
+      options = ExtractionOptions.fromFields(fields);
+    } catch (IllegalArgumentException e) {
+      return badRequest(e.getMessage());
+    }
+
+    try {
+      ExtractionJobStatus status =
+          jobService.submit(file.uploadedFile(), file.fileName(), options, jobPriority);
+      return Response.accepted(status)
+          .location(uriInfo.getAbsolutePathBuilder().path(status.jobId()).build())
+          .build();
+
+    } catch (RejectedExecutionException e) {
+      LOGGER.warn("Extraction job rejected for file {}: {}", file.fileName(), e.getMessage());
+      return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+          .header(HttpHeaders.RETRY_AFTER, Math.max(1, retryAfter.toSeconds()))
+          .entity(PdfExtractionResponse.failure(e.getMessage()))
+          .build();
+    } catch (IOException e) {
+      LOGGER.error("Error reading uploaded file: {}", file.fileName(), e);
+      return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+          .entity(PdfExtractionResponse.failure("Error reading file: " + e.getMessage()))
+          .build();
+    }
+  }
+
+  /**
+   * Reports the state and page-level progress of a job
+   *
+   * @param jobId Job id returned on submission
+   * @return Job status, 404 if the job is unknown or expired
+   */
+  @GET
+  @Path("/{jobId}")
+  public Response getStatus(@PathParam("jobId") String jobId) {
+    return jobService
+        .findJob(jobId)
+        .map(job -> Response.ok(job.status()).build())
+        .orElseGet(() -> notFound(jobId));
+  }
+
+  /**
+   * Returns the final extraction response of a finished job
+   *
+   * @param jobId Job id returned on submission
+   * @param layout Optional element layout, {@code columnar} for parallel coordinate arrays
+   * @param headers Request headers, used for columnar layout negotiation
+   * @return Extraction response, 202 with the job status while the job is still queued or
+   *     running, 404 if the job is unknown or expired
+   */
+  @GET
+  @Path("/{jobId}/result")
+  @Produces({
+    MediaType.APPLICATION_JSON,
+    BinaryFormatProvider.APPLICATION_CBOR,
+    BinaryFormatProvider.APPLICATION_SMILE
+  })
+  public Response getResult(
+      @PathParam("jobId") String jobId,
+      @QueryParam("layout") String layout,
+      @Context HttpHeaders headers) {
+    Optional<ExtractionJob> job = jobService.findJob(jobId);
+    if (job.isEmpty()) {
+      return notFound(jobId);
+    }
+
+    PdfExtractionResponse result = job.get().result();
+    if (result == null) {
+      return Response.accepted(job.get().status()).build();
+    }
+
+    if (PdfExtractionResource.isColumnarRequested(layout, headers)) {
+      result = result.withColumnarElements();
+    }
+    return Response.ok(result).build();
+  }
+
+  private static Response badRequest(String message) {
+    return Response.status(Response.Status.BAD_REQUEST)
+        .entity(PdfExtractionResponse.failure(message))
+        .build();
+  }
+
+  private static Response notFound(String jobId) {
+    return Response.status(Response.Status.NOT_FOUND)
+        .entity(PdfExtractionResponse.failure("Unknown or expired job: " + jobId))
+        .build();
+  }
+}
@@ -1,14 +1,41 @@
 package fi.sutinse.pdfextractor.resource;
 
+import fi.sutinse.pdfextractor.dto.AdmissionStats;
+import fi.sutinse.pdfextractor.dto.BatchExtractionResult;
+import fi.sutinse.pdfextractor.dto.ExtractionOptions;
+import fi.sutinse.pdfextractor.dto.ExtractionStreamEvent;
+import fi.sutinse.pdfextractor.dto.LaneStats;
 import fi.sutinse.pdfextractor.dto.PdfExtractionResponse;
+import fi.sutinse.pdfextractor.service.BatchExtractionService;
+import fi.sutinse.pdfextractor.service.ExtractionLanes;
+import fi.sutinse.pdfextractor.service.OcrAdmissionController;
+import fi.sutinse.pdfextractor.service.OcrOverloadedException;
+import fi.sutinse.pdfextractor.service.PageExtractionStream;
+import fi.sutinse.pdfextractor.service.PageProgressListener;
 import fi.sutinse.pdfextractor.service.PdfExtractionService;
+import fi.sutinse.pdfextractor.service.PdfSource;
+import io.quarkus.runtime.configuration.MemorySize;
+import io.smallrye.common.annotation.Blocking;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.resteasy.reactive.RestForm;
+import org.jboss.resteasy.reactive.RestStreamElementType;
+import org.jboss.resteasy.reactive.common.util.RestMediaType;
 import org.jboss.resteasy.reactive.multipart.FileUpload;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,18 +48,57 @@ public class PdfExtractionResource {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(PdfExtractionResource.class);
 
+  /** Layout value selecting columnar text elements, via query or Accept media type parameter */
+  static final String COLUMNAR_LAYOUT = "columnar";
+
+  /** Media type of a raw PDF request body */
+  static final String APPLICATION_PDF = "application/pdf";
+
+  /** Filename used for raw uploads that do not name the document */
+  static final String DEFAULT_RAW_FILENAME = "document.pdf";
+
+  private static final int SPOOL_BUFFER_SIZE = 64 * 1024;
+
   @Inject PdfExtractionService pdfExtractionService;
 
+  @Inject BatchExtractionService batchExtractionService;
+
+  @Inject OcrAdmissionController admissionController;
+
+  @Inject ExtractionLanes extractionLanes;
+
+  @ConfigProperty(name = "extraction.upload.max-size", defaultValue = "50M")
+  MemorySize maxUploadSize;
+
   /**
    * Extracts text from uploaded PDF file
    *
    * @param file Uploaded PDF file
-   * @return Extraction response with text and metadata
+   * @param layout Optional element layout, {@code columnar} for parallel coordinate arrays
+   * @param fields Optional comma separated response fields, e.g. {@code
+   *     structuredData,documentType,metadata}; parts not requested are neither computed nor sent
+   * @param profile Adds stage timings, per-page render and OCR times and resource use to the
+   *     metadata
+   * @param headers Request headers, {@code Accept: application/json; layout=columnar} also selects
+   *     the columnar layout
+   * @return Extraction response with text and metadata, as JSON unless CBOR or Smile is accepted;
+   *     429 with {@code Retry-After} when OCR capacity is exhausted
    */
   @POST
   @Path("/extract")
   @Consumes(MediaType.MULTIPART_FORM_DATA)
-  public Response extractText(@RestForm("file") FileUpload file) {
+  @Produces({
+    MediaType.APPLICATION_JSON,
+    BinaryFormatProvider.APPLICATION_CBOR,
+    BinaryFormatProvider.APPLICATION_SMILE
+  })
+  @RunOnVirtualThread
+  public Response extractText(
+      @RestForm("file") FileUpload file,
+      @QueryParam("layout") String layout,
+      @QueryParam("fields") String fields,
+      @QueryParam("profile") boolean profile,
+      @Context HttpHeaders headers) {
     if (file == null) {
       LOGGER.warn("No file received in request");
       return Response.status(Response.Status.BAD_REQUEST)
@@ -40,30 +106,134 @@ public class PdfExtractionResource {
           .build();
     }
 
+    ExtractionOptions options;
+    try {
+      options = ExtractionOptions.fromFields(fields);
+    } catch (IllegalArgumentException e) {
+      LOGGER.warn("Invalid response projection: {}", fields);
+      return Response.status(Response.Status.BAD_REQUEST)
+          .entity(PdfExtractionResponse.failure(e.getMessage()))
+          .build();
+    }
+    if (profile) {
+      options = options.withProfile();
+    }
+
     String filename = file.fileName();
     LOGGER.info("Received PDF extraction request for file: {}", filename);
 
+    // Validate file type
+    if (filename == null || !filename.toLowerCase().endsWith(".pdf")) {
+      LOGGER.warn("Invalid file type received: {}", filename);
+      return Response.status(Response.Status.BAD_REQUEST)
+          .entity(PdfExtractionResponse.failure("Only PDF files are supported"))
+          .build();
+    }
+
+    if (file.size() == 0) {
+      LOGGER.warn("Empty file received");
+      return Response.status(Response.Status.BAD_REQUEST)
+          .entity(PdfExtractionResponse.failure("Empty file received"))
+          .build();
+    }
+
+    // The upload is already spooled to disk, read it in place instead of copying it to the heap
+    return extract(file.uploadedFile(), filename, options, layout, headers);
+  }
+
+  /**
+   * Extracts text from a PDF sent as the raw request body, without multipart encoding. The body is
+   * streamed to a temporary file, enforcing the upload size limit while it arrives, and the PDF is
+   * read from that file by random access.
+   *
+   * @param body Request body
+   * @param filename Optional original filename, used in logs and metadata
+   * @param layout Optional element layout, {@code columnar} for parallel coordinate arrays
+   * @param fields Optional comma separated response fields
+   * @param profile Adds the extraction profile to the metadata
+   * @param headers Request headers, {@code Accept: application/json; layout=columnar} also selects
+   *     the columnar layout
+   * @return Extraction response as for the multipart upload; 413 when the body exceeds the upload
+   *     size limit
+   */
+  @POST
+  @Path("/extract")
+  @Consumes(APPLICATION_PDF)
+  @Produces({
+    MediaType.APPLICATION_JSON,
+    BinaryFormatProvider.APPLICATION_CBOR,
+    BinaryFormatProvider.APPLICATION_SMILE
+  })
+  @RunOnVirtualThread
+  public Response extractRawPdf(
+      InputStream body,
+      @QueryParam("filename") String filename,
+      @QueryParam("layout") String layout,
+      @QueryParam("fields") String fields,
+      @QueryParam("profile") boolean profile,
+      @Context HttpHeaders headers) {
+    ExtractionOptions options;
     try {
-      // Validate file type
-      if (filename == null || !filename.toLowerCase().endsWith(".pdf")) {
-        LOGGER.warn("Invalid file type received: {}", filename);
-        return Response.status(Response.Status.BAD_REQUEST)
-            .entity(PdfExtractionResponse.failure("Only PDF files are supported"))
-            .build();
-      }
+      options = ExtractionOptions.fromFields(fields);
+    } catch (IllegalArgumentException e) {
+      LOGGER.warn("Invalid response projection: {}", fields);
+      return Response.status(Response.Status.BAD_REQUEST)
+          .entity(PdfExtractionResponse.failure(e.getMessage()))
+          .build();
+    }
+    if (profile) {
+      options = options.withProfile();
+    }
 
-      // Read file data
-      byte[] fileData = Files.readAllBytes(file.uploadedFile());
+    String name = filename == null || filename.isBlank() ? DEFAULT_RAW_FILENAME : filename;
+    LOGGER.info("Received raw PDF extraction request for file: {}", name);
 
-      if (fileData.length == 0) {
-        LOGGER.warn("Empty file received");
+    java.nio.file.Path spool = null;
+    try {
+      spool = Files.createTempFile("pdf-upload-", ".pdf");
+      long size = spoolLimited(body, spool, maxUploadSize.asLongValue());
+      if (size < 0) {
+        LOGGER.warn("Raw upload {} exceeds {} bytes", name, maxUploadSize.asLongValue());
+        return Response.status(Response.Status.REQUEST_ENTITY_TOO_LARGE)
+            .entity(
+                PdfExtractionResponse.failure(
+                    "PDF exceeds the upload size limit of "
+                        + maxUploadSize.asLongValue()
+                        + " bytes"))
+            .build();
+      }
+      if (size == 0) {
+        LOGGER.warn("Empty raw upload received");
         return Response.status(Response.Status.BAD_REQUEST)
             .entity(PdfExtractionResponse.failure("Empty file received"))
             .build();
       }
+      return extract(spool, name, options, layout, headers);
+
+    } catch (IOException e) {
+      LOGGER.error("Error reading uploaded PDF: {}", name, e);
+      return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+          .entity(PdfExtractionResponse.failure("Error reading file: " + e.getMessage()))
+          .build();
+    } finally {
+      deleteQuietly(spool);
+    }
+  }
+
+  private Response extract(
+      java.nio.file.Path file,
+      String filename,
+      ExtractionOptions options,
+      String layout,
+      HttpHeaders headers) {
+    try {
+      PdfExtractionResponse response =
+          pdfExtractionService.extractText(
+              PdfSource.of(file), filename, options, PageProgressListener.NONE);
 
-      // Extract text
-      PdfExtractionResponse response = pdfExtractionService.extractText(fileData, filename);
+      if (isColumnarRequested(layout, headers)) {
+        response = response.withColumnarElements();
+      }
 
       if (response.success()) {
         LOGGER.info(
@@ -78,6 +248,9 @@ public class PdfExtractionResource {
         return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(response).build();
       }
 
+    } catch (OcrOverloadedException e) {
+      LOGGER.warn("Shedding extraction request for file {}: {}", filename, e.getMessage());
+      return overloaded(e);
     } catch (IOException e) {
       LOGGER.error("Error reading uploaded file: {}", filename, e);
       return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
@@ -91,6 +264,217 @@ public class PdfExtractionResource {
     }
   }
 
+  /**
+   * Copies a request body to a file in chunks, stopping as soon as the limit is exceeded
+   *
+   * @return Number of bytes written, or -1 if the body is larger than the limit
+   */
+  static long spoolLimited(InputStream in, java.nio.file.Path target, long limit)
+      throws IOException {
+    byte[] buffer = new byte[SPOOL_BUFFER_SIZE];
+    long total = 0;
+    try (OutputStream out = Files.newOutputStream(target)) {
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        total += read;
+        if (total > limit) {
+          return -1;
+        }
+        out.write(buffer, 0, read);
+      }
+    }
+    return total;
+  }
+
+  private static void deleteQuietly(java.nio.file.Path file) {
+    if (file == null) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      LOGGER.warn("Could not delete temporary upload {}: {}", file, e.getMessage());
+    }
+  }
+
+  /**
+   * Extracts text page by page and streams results as newline-delimited JSON. Each page is emitted
+   * as soon as it is extracted, followed by a summary line with document type, structured data and
+   * metadata. Pages are extracted on demand, so a slow client slows down extraction instead of
+   * buffering results on the server.
+   *
+   * @param file Uploaded PDF file
+   * @return Stream of page events followed by a summary event
+   */
+  @POST
+  @Path("/extract/stream")
+  @Consumes(MediaType.MULTIPART_FORM_DATA)
+  @Produces(RestMediaType.APPLICATION_NDJSON)
+  @RestStreamElementType(MediaType.APPLICATION_JSON)
+  @Blocking
+  public Multi<ExtractionStreamEvent> extractTextStream(@RestForm("file") FileUpload file) {
+    String validationError = validateUpload(file);
+    if (validationError != null) {
+      LOGGER.warn("Rejected streamed extraction request: {}", validationError);
+      throw badRequest(validationError);
+    }
+
+    String filename = file.fileName();
+    LOGGER.info("Received streamed PDF extraction request for file: {}", filename);
+
+    return Multi.createFrom()
+        .<PageExtractionStream, ExtractionStreamEvent>resource(
+            () -> openPageStream(file),
+            stream -> Multi.createFrom().iterable(stream))
+        .withFinalizer(PageExtractionStream::close)
+        .onFailure()
+        .recoverWithItem(
+            e -> {
+              LOGGER.error("Streamed extraction failed for file: {}", filename, e);
+              return ExtractionStreamEvent.summary(
+                  PdfExtractionResponse.failure("Failed to process PDF: " + e.getMessage()));
+            })
+        // Subscription and every downstream request (one page each) run on a worker thread
+        .runSubscriptionOn(Infrastructure.getDefaultWorkerPool());
+  }
+
+  /**
+   * Extracts many PDFs in one request and streams results as newline-delimited JSON in completion
+   * order. Parts may be PDFs or ZIP archives of PDFs; archive entries are read only as workers
+   * become free. Each line carries the upload index, filename and the document's extraction
+   * response.
+   *
+   * @param files Uploaded PDFs and ZIP archives, in any form field
+   * @param fields Optional comma separated response fields for every document
+   * @return Stream of per-document results
+   */
+  @POST
+  @Path("/extract/batch")
+  @Consumes(MediaType.MULTIPART_FORM_DATA)
+  @Produces(RestMediaType.APPLICATION_NDJSON)
+  @RestStreamElementType(MediaType.APPLICATION_JSON)
+  @Blocking
+  public Multi<BatchExtractionResult> extractBatch(
+      @RestForm(FileUpload.ALL) List<FileUpload> files, @QueryParam("fields") String fields) {
+    return batchResults(files, fields);
+  }
+
+  /**
+   * Same as {@link #extractBatch} but streams the results as one JSON array
+   *
+   * @param files Uploaded PDFs and ZIP archives, in any form field
+   * @param fields Optional comma separated response fields for every document
+   * @return Array of per-document results, written as they complete
+   */
+  @POST
+  @Path("/extract/batch")
+  @Consumes(MediaType.MULTIPART_FORM_DATA)
+  @Produces(MediaType.APPLICATION_JSON)
+  @Blocking
+  public Multi<BatchExtractionResult> extractBatchArray(
+      @RestForm(FileUpload.ALL) List<FileUpload> files, @QueryParam("fields") String fields) {
+    return batchResults(files, fields);
+  }
+
+  private Multi<BatchExtractionResult> batchResults(List<FileUpload> files, String fields) {
+    if (files == null || files.isEmpty()) {
+      throw badRequest("No file data provided");
+    }
+    ExtractionOptions options;
+    try {
+      options = ExtractionOptions.fromFields(fields);
+    } catch (IllegalArgumentException e) {
+      throw badRequest(e.getMessage());
+    }
+
+    List<BatchExtractionService.BatchSource> sources =
+        files.stream()
+            .map(
+                file ->
+                    new BatchExtractionService.BatchSource(file.fileName(), file.uploadedFile()))
+            .toList();
+    LOGGER.info("Received batch extraction request with {} uploaded files", sources.size());
+
+    return Multi.createFrom()
+        .<BatchExtractionResult>emitter(
+            emitter -> {
+              AtomicBoolean cancelled = new AtomicBoolean();
+              emitter.onTermination(() -> cancelled.set(true));
+              try {
+                batchExtractionService.extractAll(sources, options, cancelled::get, emitter::emit);
+                emitter.complete();
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                emitter.fail(e);
+              }
+            })
+        // The upload is read and documents are dispatched on a worker thread
+        .runSubscriptionOn(Infrastructure.getDefaultWorkerPool());
+  }
+
+  private static WebApplicationException badRequest(String message) {
+    return new WebApplicationException(
+        Response.status(Response.Status.BAD_REQUEST)
+            .type(MediaType.APPLICATION_JSON)
+            .entity(PdfExtractionResponse.failure(message))
+            .build());
+  }
+
+  private PageExtractionStream openPageStream(FileUpload file) {
+    try {
+      return pdfExtractionService.openPageStream(
+          PdfSource.of(file.uploadedFile()), file.fileName());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /** Validates an uploaded file, returning an error message or null when it is acceptable */
+  static String validateUpload(FileUpload file) {
+    if (file == null) {
+      return "No file data provided";
+    }
+    if (file.fileName() == null || !file.fileName().toLowerCase().endsWith(".pdf")) {
+      return "Only PDF files are supported";
+    }
+    if (file.size() == 0) {
+      return "Empty file received";
+    }
+    return null;
+  }
+
+  /** Checks whether the client asked for columnar text elements */
+  static boolean isColumnarRequested(String layout, HttpHeaders headers) {
+    if (COLUMNAR_LAYOUT.equalsIgnoreCase(layout)) {
+      return true;
+    }
+    return headers != null
+        && headers.getAcceptableMediaTypes().stream()
+            .anyMatch(type -> COLUMNAR_LAYOUT.equalsIgnoreCase(type.getParameters().get("layout")));
+  }
+
+  /** Builds a 429 response advising the client when to retry */
+  static Response overloaded(OcrOverloadedException e) {
+    return Response.status(Response.Status.TOO_MANY_REQUESTS)
+        .header(HttpHeaders.RETRY_AFTER, Math.max(1, e.getRetryAfter().toSeconds()))
+        .entity(PdfExtractionResponse.failure(e.getMessage()))
+        .build();
+  }
+
+  /** OCR admission control counters: permits in use, queue depth, waits and shed requests */
+  @GET
+  @Path("/admission")
+  public AdmissionStats admission() {
+    return admissionController.stats();
+  }
+
+  /** Fast lane and OCR lane counters: threads, active tasks, queue depth and overflow */
+  @GET
+  @Path("/lanes")
+  public List<LaneStats> lanes() {
+    return extractionLanes.stats();
+  }
+
   /** Health check endpoint */
   @GET
   @Path("/health")
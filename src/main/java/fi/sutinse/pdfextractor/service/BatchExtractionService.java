@@ -0,0 +1,242 @@
+package fi.sutinse.pdfextractor.service;
+
+import fi.sutinse.pdfextractor.dto.BatchExtractionResult;
+import fi.sutinse.pdfextractor.dto.ExtractionOptions;
+import fi.sutinse.pdfextractor.dto.PdfExtractionResponse;
+import io.opentelemetry.context.Context;
+import io.quarkus.runtime.configuration.MemorySize;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Service extracting many PDFs in parallel. Sources are plain PDFs or ZIP archives of PDFs. Plain
+ * PDFs are read in place from the upload, and archive entries are read one at a time as workers
+ * become free, so only the archive documents in flight are held in memory. Results are delivered
+ * in completion order.
+ */
+@ApplicationScoped
+public class BatchExtractionService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(BatchExtractionService.class);
+
+  @Inject PdfExtractionService pdfExtractionService;
+
+  @Inject OcrAdmissionController admissionController;
+
+  @ConfigProperty(name = "extraction.batch.parallelism", defaultValue = "0")
+  int parallelism;
+
+  @ConfigProperty(name = "extraction.batch.max-document-size", defaultValue = "50M")
+  MemorySize maxDocumentSize;
+
+  private ExecutorService executor;
+  private int workers;
+
+  /** Uploaded file to extract, either a PDF or a ZIP archive of PDFs */
+  public record BatchSource(String name, Path file) {
+
+    public boolean isArchive() {
+      return name != null && name.toLowerCase().endsWith(".zip");
+    }
+  }
+
+  @PostConstruct
+  void start() {
+    workers = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    executor =
+        Executors.newFixedThreadPool(
+            workers, Thread.ofPlatform().name("batch-extraction-", 1).daemon().factory());
+    LOGGER.info("Batch extraction started with {} workers", workers);
+  }
+
+  @PreDestroy
+  void stop() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Extracts all documents of the given sources, blocking until every result has been delivered
+   *
+   * @param sources Uploaded PDFs and ZIP archives, in upload order
+   * @param options Requested response fields
+   * @param cancelled Checked before each document is read; stops reading further documents
+   * @param results Receives one result per document, called by one thread at a time
+   * @return Number of documents read
+   * @throws InterruptedException if interrupted while waiting for workers
+   */
+  public int extractAll(
+      List<BatchSource> sources,
+      ExtractionOptions options,
+      BooleanSupplier cancelled,
+      Consumer<BatchExtractionResult> results)
+      throws InterruptedException {
+    Batch batch = new Batch(options, results);
+
+    for (BatchSource source : sources) {
+      if (cancelled.getAsBoolean()) {
+        break;
+      }
+      if (source.isArchive()) {
+        readArchive(batch, source, cancelled);
+      } else {
+        readDocument(batch, source);
+      }
+    }
+
+    batch.awaitCompletion();
+    LOGGER.info("Batch extraction finished, {} documents", batch.documents);
+    return batch.documents;
+  }
+
+  private void readDocument(Batch batch, BatchSource source) throws InterruptedException {
+    int index = batch.documents++;
+    try {
+      if (!isPdfName(source.name())) {
+        batch.deliver(
+            BatchExtractionResult.failure(
+                index, source.name(), null, "Only PDF files are supported"));
+      } else if (Files.size(source.file()) > maxDocumentSize.asLongValue()) {
+        batch.deliver(BatchExtractionResult.failure(index, source.name(), null, tooLarge()));
+      } else {
+        batch.submit(index, source.name(), null, PdfSource.of(source.file()));
+      }
+    } catch (IOException e) {
+      LOGGER.warn("Could not read batch file {}: {}", source.name(), e.getMessage());
+      batch.deliver(
+          BatchExtractionResult.failure(
+              index, source.name(), null, "Error reading file: " + e.getMessage()));
+    }
+  }
+
+  private void readArchive(Batch batch, BatchSource source, BooleanSupplier cancelled)
+      throws InterruptedException {
+    try (ZipInputStream zip =
+        new ZipInputStream(new BufferedInputStream(Files.newInputStream(source.file())))) {
+      ZipEntry entry;
+      while (!cancelled.getAsBoolean() && (entry = zip.getNextEntry()) != null) {
+        String entryName = entry.getName();
+        if (entry.isDirectory() || isArchiveMetadata(entryName)) {
+          continue;
+        }
+
+        int index = batch.documents++;
+        if (!isPdfName(entryName)) {
+          batch.deliver(
+              BatchExtractionResult.failure(
+                  index, entryName, source.name(), "Only PDF files are supported"));
+          continue;
+        }
+
+        byte[] data = readLimited(zip);
+        if (data == null) {
+          batch.deliver(BatchExtractionResult.failure(index, entryName, source.name(), tooLarge()));
+        } else {
+          batch.submit(index, entryName, source.name(), PdfSource.of(data));
+        }
+      }
+    } catch (IOException e) {
+      LOGGER.warn("Could not read batch archive {}: {}", source.name(), e.getMessage());
+      batch.deliver(
+          BatchExtractionResult.failure(
+              batch.documents++, null, source.name(), "Error reading archive: " + e.getMessage()));
+    }
+  }
+
+  /** Reads the current entry, or returns null if it exceeds the document size limit */
+  private byte[] readLimited(InputStream in) throws IOException {
+    long limit = maxDocumentSize.asLongValue();
+    byte[] data = in.readNBytes((int) Math.min(limit + 1, Integer.MAX_VALUE - 8));
+    return data.length > limit ? null : data;
+  }
+
+  private String tooLarge() {
+    return "Document exceeds the batch size limit of " + maxDocumentSize.asLongValue() + " bytes";
+  }
+
+  private static boolean isPdfName(String name) {
+    return name != null && name.toLowerCase().endsWith(".pdf");
+  }
+
+  /** macOS resource forks and hidden files that archivers add next to the real entries */
+  private static boolean isArchiveMetadata(String name) {
+    String baseName = name.substring(name.lastIndexOf('/') + 1);
+    return name.startsWith("__MACOSX/") || baseName.startsWith(".");
+  }
+
+  /** State of one batch: bounds documents in flight and serializes result delivery */
+  private final class Batch {
+    private final ExtractionOptions options;
+    private final Consumer<BatchExtractionResult> results;
+    private final int maxInFlight = workers * 2;
+    private final Semaphore inFlight = new Semaphore(maxInFlight);
+    private int documents;
+
+    Batch(ExtractionOptions options, Consumer<BatchExtractionResult> results) {
+      this.options = options;
+      this.results = results;
+    }
+
+    /** Waits for a free slot, then extracts the document on a worker in the caller's trace */
+    void submit(int index, String filename, String archive, PdfSource source)
+        throws InterruptedException {
+      inFlight.acquire();
+      executor.execute(Context.current().wrap(() -> extract(index, filename, archive, source)));
+    }
+
+    private void extract(int index, String filename, String archive, PdfSource source) {
+      try {
+        PdfExtractionResponse response;
+        try {
+          response =
+              admissionController.retryWhileOverloaded(
+                  () ->
+                      pdfExtractionService.extractText(
+                          source, filename, options, PageProgressListener.NONE));
+        } catch (OcrOverloadedException e) {
+          LOGGER.warn("Batch document {} failed: {}", filename, e.getMessage());
+          response = PdfExtractionResponse.failure(e.getMessage());
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          response = PdfExtractionResponse.failure("Batch extraction was interrupted");
+        } catch (RuntimeException e) {
+          LOGGER.error("Batch extraction failed for file: {}", filename, e);
+          response = PdfExtractionResponse.failure("Extraction failed: " + e.getMessage());
+        }
+        deliver(new BatchExtractionResult(index, filename, archive, response));
+      } finally {
+        inFlight.release();
+      }
+    }
+
+    synchronized void deliver(BatchExtractionResult result) {
+      try {
+        results.accept(result);
+      } catch (RuntimeException e) {
+        LOGGER.warn("Could not deliver batch result for {}: {}", result.filename(), e.getMessage());
+      }
+    }
+
+    void awaitCompletion() throws InterruptedException {
+      inFlight.acquire(maxInFlight);
+      inFlight.release(maxInFlight);
+    }
+  }
+}
@@ -0,0 +1,274 @@
+package fi.sutinse.pdfextractor.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDDocumentNameDictionary;
+import org.apache.pdfbox.pdmodel.PDEmbeddedFilesNameTreeNode;
+import org.apache.pdfbox.pdmodel.common.PDNameTreeNode;
+import org.apache.pdfbox.pdmodel.common.filespecification.PDComplexFileSpecification;
+import org.apache.pdfbox.pdmodel.common.filespecification.PDEmbeddedFile;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Service for reading e-invoices embedded in PDF/A-3 invoices. Finvoice and Factur-X (ZUGFeRD 2)
+ * attachments carry the exact invoice data, so they are stream-parsed into structured data and the
+ * text heuristics are not needed. Elements are matched by their path of local names, so namespace
+ * prefixes and versions do not matter.
+ */
+@ApplicationScoped
+public class EmbeddedInvoiceExtractionService {
+
+  private static final Logger LOGGER =
+      LoggerFactory.getLogger(EmbeddedInvoiceExtractionService.class);
+
+  /** Structured data key of the e-invoice format */
+  static final String FORMAT_KEY = "e_invoice_format";
+
+  private static final XMLInputFactory XML_INPUT_FACTORY = newInputFactory();
+
+  @ConfigProperty(name = "extraction.embedded-invoice.enabled", defaultValue = "true")
+  boolean enabled;
+
+  /** Supported e-invoice formats with the element paths of their fields */
+  public enum Format {
+    FINVOICE(
+        "Finvoice",
+        "Finvoice",
+        new String[][] {
+          {"InvoiceDetails/InvoiceNumber", "invoice_number"},
+          {"InvoiceDetails/InvoiceDate", "invoice_date"},
+          {"InvoiceDetails/PaymentTermsDetails/InvoiceDueDate", "due_date"},
+          {"EpiPaymentInstructionDetails/EpiDateOptionDate", "due_date"},
+          {"InvoiceDetails/InvoiceTotalVatIncludedAmount", "total_amount"},
+          {"InvoiceDetails/InvoiceTotalVatAmount", "vat_amount"},
+          {"BuyerPartyDetails/BuyerOrganisationName", "customer_name"},
+          {"SellerPartyDetails/SellerOrganisationName", "seller_name"},
+          {"EpiPaymentInstructionDetails/EpiRemittanceInfoIdentifier", "reference_number"},
+          {"EpiBeneficiaryPartyDetails/EpiAccountID", "iban"}
+        }),
+    FACTUR_X(
+        "Factur-X",
+        "CrossIndustryInvoice",
+        new String[][] {
+          {"ExchangedDocument/ID", "invoice_number"},
+          {"ExchangedDocument/IssueDateTime/DateTimeString", "invoice_date"},
+          {"SpecifiedTradePaymentTerms/DueDateDateTime/DateTimeString", "due_date"},
+          {"SpecifiedTradeSettlementHeaderMonetarySummation/GrandTotalAmount", "total_amount"},
+          {"SpecifiedTradeSettlementHeaderMonetarySummation/TaxTotalAmount", "vat_amount"},
+          {"BuyerTradeParty/Name", "customer_name"},
+          {"SellerTradeParty/Name", "seller_name"},
+          {"ApplicableHeaderTradeSettlement/InvoiceCurrencyCode", "currency"},
+          {"ApplicableHeaderTradeSettlement/PaymentReference", "reference_number"},
+          {"PayeePartyCreditorFinancialAccount/IBANID", "iban"}
+        });
+
+    private final String displayName;
+    private final String rootElement;
+    private final String[][] fieldPaths;
+
+    Format(String displayName, String rootElement, String[][] fieldPaths) {
+      this.displayName = displayName;
+      this.rootElement = rootElement;
+      this.fieldPaths = fieldPaths;
+    }
+
+    public String getDisplayName() {
+      return displayName;
+    }
+
+    /** Field key of the element at a path, or null if the element is not a field */
+    private String fieldAt(String path) {
+      for (String[] fieldPath : fieldPaths) {
+        if (path.endsWith("/" + fieldPath[0])) {
+          return fieldPath[1];
+        }
+      }
+      return null;
+    }
+
+    private static Format forRoot(String localName) {
+      for (Format format : values()) {
+        if (format.rootElement.equals(localName)) {
+          return format;
+        }
+      }
+      return null;
+    }
+  }
+
+  /**
+   * E-invoice read from an attachment
+   *
+   * @param format E-invoice format
+   * @param filename Name of the attachment
+   * @param structuredData Invoice fields keyed like the invoice schema, plus the format
+   */
+  public record EmbeddedInvoice(
+      Format format, String filename, Map<String, Object> structuredData) {}
+
+  /**
+   * Reads the first supported e-invoice attached to a document
+   *
+   * @param document Loaded document
+   * @return E-invoice with at least an invoice number, or empty if there is none
+   */
+  public Optional<EmbeddedInvoice> extract(PDDocument document) {
+    if (!enabled) {
+      return Optional.empty();
+    }
+
+    for (PDComplexFileSpecification file : embeddedFiles(document)) {
+      String filename = file.getFilename();
+      PDEmbeddedFile embedded =
+          file.getEmbeddedFileUnicode() != null
+              ? file.getEmbeddedFileUnicode()
+              : file.getEmbeddedFile();
+      if (embedded == null || !isXml(filename, embedded.getSubtype())) {
+        continue;
+      }
+
+      try (InputStream xml = embedded.createInputStream()) {
+        Optional<EmbeddedInvoice> invoice = parse(xml, filename);
+        if (invoice.isPresent()) {
+          LOGGER.debug(
+              "Read {} e-invoice from attachment {}",
+              invoice.get().format().getDisplayName(),
+              filename);
+          return invoice;
+        }
+      } catch (IOException | XMLStreamException e) {
+        LOGGER.warn("Could not read embedded XML {}: {}", filename, e.getMessage());
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Stream-parses an XML attachment
+   *
+   * @param xml XML content
+   * @param filename Name of the attachment
+   * @return E-invoice with at least an invoice number, or empty if the format is not supported
+   * @throws XMLStreamException if the XML is malformed
+   */
+  static Optional<EmbeddedInvoice> parse(InputStream xml, String filename)
+      throws XMLStreamException {
+    XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(xml);
+    try {
+      reader.nextTag();
+      Format format = Format.forRoot(reader.getLocalName());
+      if (format == null) {
+        return Optional.empty();
+      }
+
+      Map<String, Object> structuredData = new HashMap<>();
+      Deque<String> path = new ArrayDeque<>();
+      path.addLast(reader.getLocalName());
+      while (reader.hasNext() && !path.isEmpty()) {
+        int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          path.addLast(reader.getLocalName());
+          String key = format.fieldAt("/" + String.join("/", path));
+          if (key != null && !structuredData.containsKey(key)) {
+            // Finvoice amounts carry their currency as an attribute
+            String currency = reader.getAttributeValue(null, "AmountCurrencyIdentifier");
+            String value = normalize(reader.getElementText());
+            path.removeLast();
+            if (!value.isEmpty()) {
+              structuredData.put(key, value);
+            }
+            if (currency != null && !currency.isBlank()) {
+              structuredData.putIfAbsent("currency", currency.strip());
+            }
+          }
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+          path.removeLast();
+        }
+      }
+
+      if (!structuredData.containsKey("invoice_number")) {
+        return Optional.empty();
+      }
+      structuredData.put(FORMAT_KEY, format.getDisplayName());
+      return Optional.of(new EmbeddedInvoice(format, filename, structuredData));
+    } finally {
+      reader.close();
+    }
+  }
+
+  /** Field value with whitespace collapsed and compact dates, e.g. {@code 20250131}, as ISO */
+  static String normalize(String value) {
+    String normalized = value.strip().replaceAll("\\s+", " ");
+    if (normalized.matches("\\d{8}")) {
+      return normalized.substring(0, 4)
+          + "-"
+          + normalized.substring(4, 6)
+          + "-"
+          + normalized.substring(6);
+    }
+    return normalized;
+  }
+
+  private static List<PDComplexFileSpecification> embeddedFiles(PDDocument document) {
+    PDDocumentNameDictionary names = document.getDocumentCatalog().getNames();
+    PDEmbeddedFilesNameTreeNode root = names != null ? names.getEmbeddedFiles() : null;
+    if (root == null) {
+      return List.of();
+    }
+
+    // Attachments in name tree order, as listed by PDF readers
+    Map<String, PDComplexFileSpecification> files = new LinkedHashMap<>();
+    try {
+      collect(root, files);
+    } catch (IOException e) {
+      LOGGER.warn("Could not read embedded files: {}", e.getMessage());
+    }
+    return new ArrayList<>(files.values());
+  }
+
+  private static void collect(
+      PDNameTreeNode<PDComplexFileSpecification> node,
+      Map<String, PDComplexFileSpecification> files)
+      throws IOException {
+    Map<String, PDComplexFileSpecification> names = node.getNames();
+    if (names != null) {
+      files.putAll(names);
+    }
+    List<PDNameTreeNode<PDComplexFileSpecification>> kids = node.getKids();
+    if (kids != null) {
+      for (PDNameTreeNode<PDComplexFileSpecification> kid : kids) {
+        collect(kid, files);
+      }
+    }
+  }
+
+  private static boolean isXml(String filename, String subtype) {
+    return (filename != null && filename.toLowerCase(Locale.ROOT).endsWith(".xml"))
+        || (subtype != null && subtype.toLowerCase(Locale.ROOT).contains("xml"));
+  }
+
+  /** StAX factory that resolves no DTDs or external entities */
+  private static XMLInputFactory newInputFactory() {
+    XMLInputFactory factory = XMLInputFactory.newFactory();
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    return factory;
+  }
+}
@@ -0,0 +1,179 @@
+package fi.sutinse.pdfextractor.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JDK Flight Recorder events of the extraction pipeline, so CPU samples, allocations and JNA calls
+ * in a recording can be attributed to a document, page and stage. Events are tagged with the id of
+ * the document being extracted on the current thread. Disabled events cost one flag check; the
+ * fine-grained normalization and field events are disabled unless a recording enables them, e.g.
+ * with the {@code pdf-extractor.jfc} settings.
+ */
+final class ExtractionEvents {
+
+  static final String CATEGORY = "PDF Extractor";
+
+  private static final ThreadLocal<long[]> CURRENT_DOCUMENT =
+      ThreadLocal.withInitial(() -> new long[1]);
+
+  private ExtractionEvents() {}
+
+  /** Id of the document extracted on this thread, 0 outside an extraction */
+  static long currentDocument() {
+    return CURRENT_DOCUMENT.get()[0];
+  }
+
+  /**
+   * Marks the current thread as working on a document
+   *
+   * @param documentId Document id
+   * @return Previously marked document, to restore with {@link #exit(long)}
+   */
+  static long enter(long documentId) {
+    long[] current = CURRENT_DOCUMENT.get();
+    long previous = current[0];
+    current[0] = documentId;
+    return previous;
+  }
+
+  /** Restores the document marked before {@link #enter(long)} */
+  static void exit(long previousDocumentId) {
+    CURRENT_DOCUMENT.get()[0] = previousDocumentId;
+  }
+
+  @Name("fi.sutinse.pdfextractor.DocumentExtraction")
+  @Label("Document Extraction")
+  @Description("End-to-end extraction of one PDF")
+  @Category(CATEGORY)
+  @StackTrace(false)
+  static final class DocumentExtraction extends Event {
+    @Label("Document Id")
+    long documentId;
+
+    @Label("Filename")
+    String filename;
+
+    @Label("Size")
+    @DataAmount
+    long bytes;
+
+    @Label("Pages")
+    int pages;
+
+    @Label("Method")
+    String method;
+
+    @Label("Success")
+    boolean success;
+  }
+
+  @Name("fi.sutinse.pdfextractor.Stage")
+  @Label("Extraction Stage")
+  @Description("One pipeline stage of a document, per page for render and OCR")
+  @Category(CATEGORY)
+  @StackTrace(false)
+  static final class Stage extends Event {
+    @Label("Document Id")
+    long documentId;
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Method")
+    String method;
+
+    @Label("Page")
+    @Description("One-based page number, 0 for document-level stages")
+    int page;
+
+    @Label("Size")
+    @Description("Bytes of the loaded PDF, for the load stage")
+    @DataAmount
+    long bytes;
+  }
+
+  @Name("fi.sutinse.pdfextractor.OcrPage")
+  @Label("OCR Page")
+  @Description("Rendered and recognized page")
+  @Category(CATEGORY)
+  @StackTrace(false)
+  static final class OcrPage extends Event {
+    @Label("Document Id")
+    long documentId;
+
+    @Label("Page")
+    int page;
+
+    @Label("Render Time")
+    @Timespan
+    long renderTime;
+
+    @Label("OCR Time")
+    @Timespan
+    long ocrTime;
+
+    @Label("Pixels")
+    long pixels;
+
+    @Label("DPI")
+    int dpi;
+
+    @Label("Engine Profile")
+    String engineProfile;
+  }
+
+  @Name("fi.sutinse.pdfextractor.NormalizationStep")
+  @Label("Normalization Step")
+  @Description("One regex-based text normalization step")
+  @Category(CATEGORY)
+  @StackTrace(false)
+  @Enabled(false)
+  static final class NormalizationStep extends Event {
+    @Label("Document Id")
+    long documentId;
+
+    @Label("Step")
+    String step;
+
+    @Label("Language")
+    String language;
+
+    @Label("Input Length")
+    int inputLength;
+
+    @Label("Output Length")
+    int outputLength;
+  }
+
+  @Name("fi.sutinse.pdfextractor.FieldExtraction")
+  @Label("Field Extraction")
+  @Description("Pattern matching of one structured data field")
+  @Category(CATEGORY)
+  @StackTrace(false)
+  @Enabled(false)
+  static final class FieldExtraction extends Event {
+    @Label("Document Id")
+    long documentId;
+
+    @Label("Field")
+    String field;
+
+    @Label("Text Length")
+    int textLength;
+
+    @Label("Matched")
+    boolean matched;
+
+    @Label("Fuzzy")
+    @Description("Value found by error-tolerant label matching")
+    boolean fuzzy;
+  }
+}
@@ -0,0 +1,160 @@
+package fi.sutinse.pdfextractor.service;
+
+import fi.sutinse.pdfextractor.dto.ExtractionJobStatus;
+import fi.sutinse.pdfextractor.dto.ExtractionOptions;
+import fi.sutinse.pdfextractor.dto.JobPriority;
+import fi.sutinse.pdfextractor.dto.PdfExtractionResponse;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Asynchronous extraction of one uploaded PDF. Jobs order by priority and then by submission, so
+ * a priority queue of jobs starts them highest priority first and in arrival order within a
+ * priority. The PDF waits in a spooled file that is deleted as soon as the job has run. A job runs
+ * in the trace context of its submission, so its extraction spans join the submitting request's
+ * trace.
+ */
+public final class ExtractionJob implements Runnable, Comparable<ExtractionJob> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ExtractionJob.class);
+
+  private final String id;
+  private final JobPriority priority;
+  private final long sequence;
+  private final Path pdfFile;
+  private final String filename;
+  private final ExtractionOptions options;
+  private final Duration retention;
+  private final PdfExtractionService extractionService;
+  private final OcrAdmissionController admissionController;
+  private final LocalDateTime submittedAt = LocalDateTime.now();
+  private final Context traceContext = Context.current();
+
+  private volatile ExtractionJobStatus.State state = ExtractionJobStatus.State.QUEUED;
+  private volatile int pagesProcessed;
+  private volatile int pageCount;
+  private volatile LocalDateTime startedAt;
+  private volatile LocalDateTime completedAt;
+  private volatile PdfExtractionResponse result;
+
+  ExtractionJob(
+      String id,
+      JobPriority priority,
+      long sequence,
+      Path pdfFile,
+      String filename,
+      ExtractionOptions options,
+      Duration retention,
+      PdfExtractionService extractionService,
+      OcrAdmissionController admissionController) {
+    this.id = id;
+    this.priority = priority;
+    this.sequence = sequence;
+    this.pdfFile = pdfFile;
+    this.filename = filename;
+    this.options = options;
+    this.retention = retention;
+    this.extractionService = extractionService;
+    this.admissionController = admissionController;
+  }
+
+  @Override
+  public void run() {
+    startedAt = LocalDateTime.now();
+    state = ExtractionJobStatus.State.RUNNING;
+    LOGGER.info("Starting extraction job {} for file: {}", id, filename);
+
+    try (Scope scope = traceContext.makeCurrent()) {
+      PdfSource source = PdfSource.of(pdfFile);
+      // Jobs are already queued, so they wait for OCR capacity instead of being shed
+      PdfExtractionResponse response =
+          admissionController.retryWhileOverloaded(
+              () -> extractionService.extractText(source, filename, options, this::pagesCompleted));
+      result = response;
+      state =
+          response.success()
+              ? ExtractionJobStatus.State.COMPLETED
+              : ExtractionJobStatus.State.FAILED;
+    } catch (RuntimeException e) {
+      LOGGER.error("Extraction job {} failed for file: {}", id, filename, e);
+      result = PdfExtractionResponse.failure("Extraction job failed: " + e.getMessage());
+      state = ExtractionJobStatus.State.FAILED;
+    } catch (IOException e) {
+      LOGGER.error("Extraction job {} could not read file: {}", id, filename, e);
+      result = PdfExtractionResponse.failure("Error reading file: " + e.getMessage());
+      state = ExtractionJobStatus.State.FAILED;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      result = PdfExtractionResponse.failure("Extraction job was interrupted");
+      state = ExtractionJobStatus.State.FAILED;
+    } finally {
+      discard();
+      completedAt = LocalDateTime.now();
+    }
+
+    LOGGER.info("Extraction job {} finished with state {}", id, state);
+  }
+
+  /** Deletes the spooled PDF file */
+  void discard() {
+    try {
+      Files.deleteIfExists(pdfFile);
+    } catch (IOException e) {
+      LOGGER.warn("Could not delete spooled file of job {}: {}", id, e.getMessage());
+    }
+  }
+
+  private void pagesCompleted(int pagesDone, int pages) {
+    pageCount = pages;
+    pagesProcessed = pagesDone;
+  }
+
+  @Override
+  public int compareTo(ExtractionJob other) {
+    int byPriority = priority.compareTo(other.priority);
+    return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+  }
+
+  public String id() {
+    return id;
+  }
+
+  /** Final response, null until the job has finished */
+  public PdfExtractionResponse result() {
+    return result;
+  }
+
+  /** Snapshot of the job state and progress */
+  public ExtractionJobStatus status() {
+    LocalDateTime completed = completedAt;
+    return new ExtractionJobStatus(
+        id,
+        state,
+        priority,
+        filename,
+        pagesProcessed,
+        pageCount,
+        submittedAt,
+        startedAt,
+        completed,
+        completed != null ? completed.plus(retention) : null);
+  }
+
+  /** Time the job finished, null until then */
+  LocalDateTime completedAt() {
+    return completedAt;
+  }
+
+  /** Finished jobs expire once their retention period has passed */
+  boolean isExpired(LocalDateTime now) {
+    LocalDateTime completed = completedAt;
+    return completed != null && completed.plus(retention).isBefore(now);
+  }
+}
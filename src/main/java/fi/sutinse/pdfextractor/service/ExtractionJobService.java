@@ -0,0 +1,186 @@
+package fi.sutinse.pdfextractor.service;
+
+import fi.sutinse.pdfextractor.dto.ExtractionJobStatus;
+import fi.sutinse.pdfextractor.dto.ExtractionOptions;
+import fi.sutinse.pdfextractor.dto.JobPriority;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Service running extraction jobs asynchronously from a bounded in-process priority queue. A fixed
+ * number of workers take jobs from the queue, so the submission rate is decoupled from OCR
+ * capacity. Queued uploads wait in temporary files, so a full queue does not hold PDFs on the
+ * heap. Finished jobs are kept for a retention period, at most a fixed number of them, and are
+ * dropped by a periodic sweep.
+ */
+@ApplicationScoped
+public class ExtractionJobService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ExtractionJobService.class);
+
+  @Inject PdfExtractionService pdfExtractionService;
+
+  @Inject OcrAdmissionController admissionController;
+
+  @ConfigProperty(name = "extraction.jobs.workers", defaultValue = "2")
+  int workers;
+
+  @ConfigProperty(name = "extraction.jobs.queue-capacity", defaultValue = "100")
+  int queueCapacity;
+
+  @ConfigProperty(name = "extraction.jobs.retention", defaultValue = "PT1H")
+  Duration retention;
+
+  @ConfigProperty(name = "extraction.jobs.max-retained", defaultValue = "1000")
+  int maxRetained;
+
+  @ConfigProperty(name = "extraction.jobs.purge-interval", defaultValue = "PT1M")
+  Duration purgeInterval;
+
+  private final Map<String, ExtractionJob> jobs = new ConcurrentHashMap<>();
+  private final AtomicLong sequence = new AtomicLong();
+  private ThreadPoolExecutor executor;
+  private ScheduledExecutorService sweeper;
+
+  @PostConstruct
+  void start() {
+    executor =
+        new ThreadPoolExecutor(
+            workers,
+            workers,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new PriorityBlockingQueue<>(),
+            Thread.ofPlatform().name("extraction-job-", 1).daemon().factory());
+    sweeper =
+        Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("extraction-job-sweeper").daemon().factory());
+    sweeper.scheduleWithFixedDelay(
+        this::purgeExpired,
+        purgeInterval.toMillis(),
+        purgeInterval.toMillis(),
+        TimeUnit.MILLISECONDS);
+    LOGGER.info(
+        "Extraction job queue started with {} workers, capacity {}, retention {}, max retained {}",
+        workers,
+        queueCapacity,
+        retention,
+        maxRetained);
+  }
+
+  @PreDestroy
+  void stop() {
+    sweeper.shutdownNow();
+    for (Runnable job : executor.shutdownNow()) {
+      ((ExtractionJob) job).discard();
+    }
+  }
+
+  /**
+   * Queues a PDF for asynchronous extraction. The file is copied to a spool file owned by the job,
+   * so the upload may be deleted once this returns.
+   *
+   * @param pdfFile Uploaded PDF file
+   * @param filename Original filename
+   * @param options Requested response fields
+   * @param priority Job priority
+   * @return Status of the queued job
+   * @throws IOException if the file cannot be spooled
+   * @throws RejectedExecutionException if the queue is full
+   */
+  public ExtractionJobStatus submit(
+      Path pdfFile, String filename, ExtractionOptions options, JobPriority priority)
+      throws IOException {
+    purgeExpired();
+
+    Path spool = Files.createTempFile("pdf-job-", ".pdf");
+    ExtractionJob job =
+        new ExtractionJob(
+            UUID.randomUUID().toString(),
+            priority,
+            sequence.incrementAndGet(),
+            spool,
+            filename,
+            options,
+            retention,
+            pdfExtractionService,
+            admissionController);
+
+    try {
+      Files.copy(pdfFile, spool, StandardCopyOption.REPLACE_EXISTING);
+      // Capacity check and enqueue must not interleave with other submissions
+      synchronized (this) {
+        if (executor.getQueue().size() >= queueCapacity) {
+          throw new RejectedExecutionException(
+              "Extraction job queue is full (" + queueCapacity + " jobs)");
+        }
+        jobs.put(job.id(), job);
+        executor.execute(job);
+      }
+    } catch (IOException | RuntimeException e) {
+      job.discard();
+      throw e;
+    }
+
+    LOGGER.info(
+        "Queued extraction job {} for file: {}, priority: {}", job.id(), filename, priority);
+    return job.status();
+  }
+
+  /**
+   * Looks up a job that has not expired
+   *
+   * @param jobId Job id returned on submission
+   * @return Job, or empty if it is unknown or expired
+   */
+  public Optional<ExtractionJob> findJob(String jobId) {
+    LocalDateTime now = LocalDateTime.now();
+    return Optional.ofNullable(jobs.get(jobId)).filter(job -> !job.isExpired(now));
+  }
+
+  /** Number of jobs waiting for a worker */
+  public int queuedJobs() {
+    return executor.getQueue().size();
+  }
+
+  /** Drops expired jobs, then the oldest finished jobs beyond the retention limit */
+  void purgeExpired() {
+    LocalDateTime now = LocalDateTime.now();
+    jobs.values().removeIf(job -> job.isExpired(now));
+
+    List<ExtractionJob> finished =
+        jobs.values().stream().filter(job -> job.completedAt() != null).toList();
+    int excess = finished.size() - maxRetained;
+    if (excess > 0) {
+      finished.stream()
+          .sorted(Comparator.comparing(ExtractionJob::completedAt))
+          .limit(excess)
+          .forEach(job -> jobs.remove(job.id()));
+      LOGGER.info("Evicted {} finished jobs beyond the limit of {}", excess, maxRetained);
+    }
+  }
+}
@@ -0,0 +1,187 @@
+package fi.sutinse.pdfextractor.service;
+
+import fi.sutinse.pdfextractor.dto.LaneStats;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.context.Context;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Two-lane scheduling for extraction work. Text-layer attempts run on the fast lane and only
+ * documents that need OCR are handed to the OCR lane, so a backlog of scans never delays digital
+ * PDFs. A saturated fast lane runs work on the calling thread instead of queueing it. The OCR lane
+ * has no queue of its own: it has a thread for every OCR permit and waiting slot of {@link
+ * OcrAdmissionController}, so OCR work only ever waits, and is shed, in admission control. Tasks
+ * run in the trace context of the submitting thread, and the time they spent queued is added to
+ * its current span.
+ */
+@ApplicationScoped
+public class ExtractionLanes {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ExtractionLanes.class);
+
+  static final String FAST_LANE = "fast";
+  static final String OCR_LANE = "ocr";
+
+  private static final AttributeKey<String> LANE_ATTRIBUTE = AttributeKey.stringKey("pdf.lane");
+  private static final AttributeKey<Long> QUEUE_WAIT_ATTRIBUTE =
+      AttributeKey.longKey("pdf.lane.queue_wait_ms");
+
+  @ConfigProperty(name = "extraction.lanes.fast.threads", defaultValue = "0")
+  int fastThreads;
+
+  @ConfigProperty(name = "extraction.lanes.fast.queue-capacity", defaultValue = "256")
+  int fastQueueCapacity;
+
+  @Inject OcrAdmissionController admissionController;
+
+  private ThreadPoolExecutor fastLane;
+  private ThreadPoolExecutor ocrLane;
+  private final AtomicLong fastCallerRuns = new AtomicLong();
+  private final AtomicLong ocrRejected = new AtomicLong();
+
+  @PostConstruct
+  void start() {
+    int fastSize = fastThreads > 0 ? fastThreads : Runtime.getRuntime().availableProcessors();
+    fastLane =
+        new ThreadPoolExecutor(
+            fastSize,
+            fastSize,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, fastQueueCapacity)),
+            Thread.ofPlatform().name(FAST_LANE + "-lane-", 1).daemon().factory(),
+            (task, executor) -> {
+              // Never reject text-layer work, run it on the (usually virtual) caller thread
+              fastCallerRuns.incrementAndGet();
+              task.run();
+            });
+
+    // Threads beyond the permits block in admission control, which bounds and times out the wait
+    ocrLane =
+        new ThreadPoolExecutor(
+            admissionController.permitCount(),
+            admissionController.permitCount() + admissionController.maxWaiting(),
+            60L,
+            TimeUnit.SECONDS,
+            new SynchronousQueue<>(),
+            Thread.ofPlatform().name(OCR_LANE + "-lane-", 1).daemon().factory(),
+            (task, executor) -> {
+              ocrRejected.incrementAndGet();
+              throw new RejectedExecutionException("OCR lane has no free thread");
+            });
+    LOGGER.info(
+        "Extraction lanes started: fast {} threads, OCR {} threads",
+        fastLane.getMaximumPoolSize(),
+        ocrLane.getMaximumPoolSize());
+  }
+
+  @PreDestroy
+  void stop() {
+    fastLane.shutdownNow();
+    ocrLane.shutdownNow();
+  }
+
+  /**
+   * Runs text-layer work on the fast lane and waits for its result
+   *
+   * @param task Work to run
+   * @return Task result
+   * @throws IOException if the task fails with an I/O error or the wait is interrupted
+   */
+  public <T> T runFast(Callable<T> task) throws IOException {
+    return await(fastLane.submit(traced(FAST_LANE, task)));
+  }
+
+  /**
+   * Runs OCR work on the OCR lane and waits for its result
+   *
+   * @param task Work to run
+   * @return Task result
+   * @throws IOException if the task fails with an I/O error or the wait is interrupted
+   * @throws OcrOverloadedException if every OCR permit and waiting slot is taken
+   */
+  public <T> T runOcr(Callable<T> task) throws IOException {
+    Future<T> future;
+    try {
+      future = ocrLane.submit(traced(OCR_LANE, task));
+    } catch (RejectedExecutionException e) {
+      throw new OcrOverloadedException(
+          "OCR capacity exhausted, request queue is full", admissionController.retryAfter());
+    }
+    return await(future);
+  }
+
+  /** Current counters of both lanes */
+  public List<LaneStats> stats() {
+    return List.of(
+        stats(FAST_LANE, fastLane, fastQueueCapacity, fastCallerRuns.get()),
+        stats(OCR_LANE, ocrLane, 0, ocrRejected.get()));
+  }
+
+  private static LaneStats stats(
+      String lane, ThreadPoolExecutor executor, int queueCapacity, long overflow) {
+    return new LaneStats(
+        lane,
+        executor.getMaximumPoolSize(),
+        executor.getActiveCount(),
+        executor.getQueue().size(),
+        queueCapacity,
+        executor.getCompletedTaskCount(),
+        overflow);
+  }
+
+  /** Carries the caller's trace context to the lane thread and records the queue wait */
+  private static <T> Callable<T> traced(String lane, Callable<T> task) {
+    long queuedAt = System.nanoTime();
+    return Context.current()
+        .wrap(
+            () -> {
+              long waitMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - queuedAt);
+              Span.current()
+                  .addEvent(
+                      "lane.started",
+                      Attributes.of(LANE_ATTRIBUTE, lane, QUEUE_WAIT_ATTRIBUTE, waitMillis));
+              return task.call();
+            });
+  }
+
+  private static <T> T await(Future<T> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for extraction");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException ioException) {
+        throw ioException;
+      } else if (cause instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      } else if (cause instanceof Error error) {
+        throw error;
+      }
+      throw new IOException(cause);
+    }
+  }
+}
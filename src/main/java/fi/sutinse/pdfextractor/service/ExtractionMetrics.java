@@ -0,0 +1,260 @@
+package fi.sutinse.pdfextractor.service;
+
+import fi.sutinse.pdfextractor.dto.AdmissionStats;
+import fi.sutinse.pdfextractor.dto.ExtractionMethod;
+import fi.sutinse.pdfextractor.dto.LaneStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.opentelemetry.api.trace.Tracer;
+import io.quarkus.runtime.Startup;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Micrometer instrumentation of the extraction pipeline. Stage timers are tagged by stage and
+ * extraction method so slow stages show up per path; OCR capacity, render memory, lanes and the job
+ * queue are exposed as gauges read from their existing counters. The {@link ExtractionProfiler} of
+ * each extraction records into these meters and traces each stage.
+ */
+@Startup
+@ApplicationScoped
+public class ExtractionMetrics {
+
+  static final String STAGE_TIMER = "pdf.extraction.stage";
+  static final String DOCUMENT_TIMER = "pdf.extraction.duration";
+  static final String PAGES_COUNTER = "pdf.extraction.pages";
+  static final String RENDER_SUMMARY = "pdf.ocr.render.megapixels";
+
+  /** Pipeline stages timed per document, or per page for rendering and OCR */
+  public enum Stage {
+    LOAD("load"),
+    EMBEDDED_INVOICE("embedded-invoice"),
+    TEXT_STRIP("text-strip"),
+    FORM_FIELDS("form-fields"),
+    RENDER("render"),
+    OCR("ocr"),
+    NORMALIZE("normalize"),
+    CLASSIFY("classify"),
+    FIELD_EXTRACTION("field-extraction"),
+    SPATIAL_FIELDS("spatial-fields");
+
+    private final String tagValue;
+
+    Stage(String tagValue) {
+      this.tagValue = tagValue;
+    }
+
+    public String getTagValue() {
+      return tagValue;
+    }
+  }
+
+  @Inject MeterRegistry registry;
+
+  @Inject Tracer tracer;
+
+  @Inject OcrAdmissionController admissionController;
+
+  @Inject RenderMemoryBudget renderMemoryBudget;
+
+  @Inject RenderTargetPool renderTargetPool;
+
+  @Inject ExtractionLanes lanes;
+
+  @Inject ExtractionJobService jobService;
+
+  private final Map<String, Timer> stageTimers = new ConcurrentHashMap<>();
+  private final Map<String, Timer> documentTimers = new ConcurrentHashMap<>();
+  private final Map<ExtractionMethod, Counter> pageCounters = new ConcurrentHashMap<>();
+  private DistributionSummary renderedMegapixels;
+
+  @PostConstruct
+  void registerMeters() {
+    renderedMegapixels =
+        DistributionSummary.builder(RENDER_SUMMARY)
+            .description("Megapixels rendered per page for OCR")
+            .baseUnit("megapixels")
+            .publishPercentileHistogram()
+            .register(registry);
+
+    admissionGauge("pdf.ocr.permits.max", "OCR permits", AdmissionStats::maxConcurrent);
+    admissionGauge("pdf.ocr.permits.active", "OCR permits in use", AdmissionStats::active);
+    admissionGauge(
+        "pdf.ocr.permits.waiting", "Callers waiting for a permit", AdmissionStats::waiting);
+    FunctionTimer.builder(
+            "pdf.ocr.permit.wait",
+            admissionController,
+            OcrAdmissionController::waits,
+            OcrAdmissionController::totalWaitNanos,
+            TimeUnit.NANOSECONDS)
+        .description("Time spent waiting for an OCR permit")
+        .register(registry);
+    FunctionCounter.builder(
+            "pdf.ocr.shed", admissionController, c -> c.stats().rejected() + c.stats().timedOut())
+        .description("OCR requests shed because the wait queue was full or the wait timed out")
+        .register(registry);
+
+    Gauge.builder("pdf.render.memory.budget", renderMemoryBudget, RenderMemoryBudget::budgetBytes)
+        .description("Memory budget for rendered page images")
+        .baseUnit("bytes")
+        .register(registry);
+    Gauge.builder(
+            "pdf.render.memory.reserved", renderMemoryBudget, RenderMemoryBudget::reservedBytes)
+        .description("Render memory reserved by pages being rendered or recognized")
+        .baseUnit("bytes")
+        .register(registry);
+    Gauge.builder("pdf.render.memory.active", renderMemoryBudget, RenderMemoryBudget::active)
+        .description("Pages holding a render memory reservation")
+        .register(registry);
+    Gauge.builder("pdf.render.memory.waiting", renderMemoryBudget, RenderMemoryBudget::waiting)
+        .description("Pages waiting for render memory")
+        .register(registry);
+    FunctionTimer.builder(
+            "pdf.render.memory.wait",
+            renderMemoryBudget,
+            RenderMemoryBudget::waits,
+            RenderMemoryBudget::totalWaitNanos,
+            TimeUnit.NANOSECONDS)
+        .description("Time spent waiting for render memory")
+        .register(registry);
+    FunctionCounter.builder(
+            "pdf.render.downscaled", renderMemoryBudget, RenderMemoryBudget::downscaled)
+        .description("Pages rendered below the OCR resolution for lack of render memory")
+        .register(registry);
+    Gauge.builder("pdf.render.pool.idle", renderTargetPool, RenderTargetPool::pooledBytes)
+        .description("Idle page images kept for reuse")
+        .baseUnit("bytes")
+        .register(registry);
+    poolCounter("hit", RenderTargetPool::hits);
+    poolCounter("miss", RenderTargetPool::misses);
+    poolCounter("discarded", RenderTargetPool::discarded);
+
+    for (String lane : new String[] {ExtractionLanes.FAST_LANE, ExtractionLanes.OCR_LANE}) {
+      laneGauge(lane, "pdf.lane.threads", LaneStats::threads);
+      laneGauge(lane, "pdf.lane.active", LaneStats::active);
+      laneGauge(lane, "pdf.lane.queued", LaneStats::queued);
+      FunctionCounter.builder("pdf.lane.overflow", lanes, l -> laneStats(l, lane).overflow())
+          .description("Tasks run on the caller (fast lane) or rejected (OCR lane)")
+          .tag("lane", lane)
+          .register(registry);
+    }
+
+    Gauge.builder("pdf.jobs.queued", jobService, ExtractionJobService::queuedJobs)
+        .description("Extraction jobs waiting for a worker")
+        .register(registry);
+  }
+
+  /**
+   * Records the duration of one pipeline stage
+   *
+   * @param stage Pipeline stage
+   * @param method Extraction path the stage ran on
+   * @param nanos Elapsed time in nanoseconds
+   */
+  public void recordStage(Stage stage, ExtractionMethod method, long nanos) {
+    stageTimers
+        .computeIfAbsent(
+            stage.getTagValue() + '/' + method,
+            key ->
+                Timer.builder(STAGE_TIMER)
+                    .description("Duration of an extraction pipeline stage")
+                    .tag("stage", stage.getTagValue())
+                    .tag("method", tagValue(method))
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofMinutes(5))
+                    .register(registry))
+        .record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Creates the stage recorder of one extraction
+   *
+   * @param detailed Whether to also collect the per-request profile
+   * @return New profiler
+   */
+  public ExtractionProfiler profiler(boolean detailed) {
+    return new ExtractionProfiler(this, tracer, detailed);
+  }
+
+  /** Records the pixels of one page rendered for OCR */
+  public void recordRenderedPixels(long pixels) {
+    renderedMegapixels.record(pixels / 1_000_000.0);
+  }
+
+  /** Counts processed pages; the OCR page rate is the rate of the OCR method's count */
+  public void recordPages(ExtractionMethod method, int pages) {
+    pageCounters
+        .computeIfAbsent(
+            method,
+            key ->
+                Counter.builder(PAGES_COUNTER)
+                    .description("Pages processed")
+                    .tag("method", tagValue(method))
+                    .register(registry))
+        .increment(pages);
+  }
+
+  /**
+   * Records the end-to-end duration of one document
+   *
+   * @param method Method that produced the response, null if extraction failed before choosing one
+   * @param success Whether the extraction succeeded
+   * @param nanos Elapsed time in nanoseconds
+   */
+  public void recordDocument(ExtractionMethod method, boolean success, long nanos) {
+    String outcome = success ? "success" : "failure";
+    documentTimers
+        .computeIfAbsent(
+            method + "/" + outcome,
+            key ->
+                Timer.builder(DOCUMENT_TIMER)
+                    .description("End-to-end extraction time per document")
+                    .tag("method", method != null ? tagValue(method) : "none")
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofMinutes(10))
+                    .register(registry))
+        .record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  private void admissionGauge(
+      String name, String description, ToDoubleFunction<AdmissionStats> value) {
+    Gauge.builder(name, admissionController, c -> value.applyAsDouble(c.stats()))
+        .description(description)
+        .register(registry);
+  }
+
+  private void laneGauge(String lane, String name, ToDoubleFunction<LaneStats> value) {
+    Gauge.builder(name, lanes, l -> value.applyAsDouble(laneStats(l, lane)))
+        .tag("lane", lane)
+        .register(registry);
+  }
+
+  private void poolCounter(String result, ToDoubleFunction<RenderTargetPool> value) {
+    FunctionCounter.builder("pdf.render.pool.targets", renderTargetPool, value)
+        .description("Render targets by whether a pooled image was reused")
+        .tag("result", result)
+        .register(registry);
+  }
+
+  private static LaneStats laneStats(ExtractionLanes lanes, String lane) {
+    return lanes.stats().stream().filter(s -> s.lane().equals(lane)).findFirst().orElseThrow();
+  }
+
+  private static String tagValue(ExtractionMethod method) {
+    return method.name().toLowerCase();
+  }
+}
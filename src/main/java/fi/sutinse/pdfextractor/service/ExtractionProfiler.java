@@ -0,0 +1,241 @@
+package fi.sutinse.pdfextractor.service;
+
+import fi.sutinse.pdfextractor.dto.ExtractionMethod;
+import fi.sutinse.pdfextractor.dto.ExtractionProfile;
+import io.opentelemetry.api.trace.Tracer;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+/**
+ * Stage recorder of one extraction. Every stage feeds the stage metrics, becomes a trace span
+ * under the current context and a JFR event tagged with the document id; a detailed profiler also
+ * measures CPU time and allocations of each stage on the thread running it and collects per-page
+ * render and OCR timings for the response profile.
+ */
+public final class ExtractionProfiler {
+
+  /** Trace span names are the stage names with this prefix, e.g. {@code pdf.render} */
+  static final String SPAN_PREFIX = "pdf.";
+
+  static final String METHOD_ATTRIBUTE = "pdf.extraction.method";
+  public static final String PAGE_ATTRIBUTE = "pdf.page";
+  public static final String DPI_ATTRIBUTE = "pdf.render.dpi";
+  public static final String LANGUAGE_ATTRIBUTE = "pdf.ocr.language";
+  public static final String WORDS_ATTRIBUTE = "pdf.ocr.words";
+
+  private static final AtomicLong DOCUMENT_IDS = new AtomicLong();
+
+  private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+  private static final boolean CPU_TIME_SUPPORTED =
+      THREADS.isCurrentThreadCpuTimeSupported() && THREADS.isThreadCpuTimeEnabled();
+
+  /** HotSpot thread allocation counters, null on JVMs without them */
+  private static final com.sun.management.ThreadMXBean ALLOCATIONS =
+      THREADS instanceof com.sun.management.ThreadMXBean hotspot
+              && hotspot.isThreadAllocatedMemorySupported()
+              && hotspot.isThreadAllocatedMemoryEnabled()
+          ? hotspot
+          : null;
+
+  private final ExtractionMetrics metrics;
+  private final Tracer tracer;
+  private final boolean detailed;
+  private final long documentId = DOCUMENT_IDS.incrementAndGet();
+  private final Map<String, StageTotals> stages = new LinkedHashMap<>();
+  private final List<ExtractionProfile.PageTiming> pages = new ArrayList<>();
+  private long pixelsRendered;
+  private long allocatedBytes;
+
+  ExtractionProfiler(ExtractionMetrics metrics, Tracer tracer, boolean detailed) {
+    this.metrics = metrics;
+    this.tracer = tracer;
+    this.detailed = detailed;
+  }
+
+  /** Id of the extracted document in JFR events, unique within this process */
+  public long documentId() {
+    return documentId;
+  }
+
+  /** Starts timing and tracing a stage on the current thread */
+  public Span start(ExtractionMetrics.Stage stage, ExtractionMethod method) {
+    return new Span(stage, method);
+  }
+
+  /** Loads a document, timing it as the load stage */
+  public PDDocument load(PdfSource source, ExtractionMethod method) throws IOException {
+    Span span = start(ExtractionMetrics.Stage.LOAD, method);
+    span.event.bytes = source.size();
+    PDDocument document = source.load();
+    span.end();
+    return document;
+  }
+
+  /**
+   * Records one rendered and recognized page
+   *
+   * @param pageIndex Zero-based page index
+   * @param renderNanos Render time
+   * @param ocrNanos OCR time
+   * @param pixels Pixels of the rendered image
+   * @param dpi Render resolution
+   * @param engineProfile OCR engine settings used for the page
+   */
+  public void page(
+      int pageIndex, long renderNanos, long ocrNanos, long pixels, int dpi, String engineProfile) {
+    metrics.recordRenderedPixels(pixels);
+    ExtractionEvents.OcrPage event = new ExtractionEvents.OcrPage();
+    if (event.shouldCommit()) {
+      event.documentId = documentId;
+      event.page = pageIndex + 1;
+      event.renderTime = renderNanos;
+      event.ocrTime = ocrNanos;
+      event.pixels = pixels;
+      event.dpi = dpi;
+      event.engineProfile = engineProfile;
+      event.commit();
+    }
+    if (detailed) {
+      synchronized (this) {
+        pixelsRendered += pixels;
+        pages.add(
+            new ExtractionProfile.PageTiming(
+                pageIndex + 1, millis(renderNanos), millis(ocrNanos), pixels, dpi, engineProfile));
+      }
+    }
+  }
+
+  /** Profile collected so far, null unless this profiler is detailed */
+  public synchronized ExtractionProfile profile() {
+    if (!detailed) {
+      return null;
+    }
+    List<ExtractionProfile.StageTiming> stageTimings = new ArrayList<>();
+    long cpuNanos = 0;
+    for (StageTotals totals : stages.values()) {
+      stageTimings.add(
+          new ExtractionProfile.StageTiming(
+              totals.stage.getTagValue(),
+              totals.method,
+              totals.count,
+              millis(totals.wallNanos),
+              millis(totals.cpuNanos)));
+      cpuNanos += totals.cpuNanos;
+    }
+    return new ExtractionProfile(
+        stageTimings,
+        List.copyOf(pages),
+        pixelsRendered,
+        millis(cpuNanos),
+        ALLOCATIONS != null ? allocatedBytes : null);
+  }
+
+  private synchronized void add(
+      ExtractionMetrics.Stage stage,
+      ExtractionMethod method,
+      long wallNanos,
+      long cpuNanos,
+      long allocated) {
+    StageTotals totals =
+        stages.computeIfAbsent(stage + "/" + method, key -> new StageTotals(stage, method));
+    totals.count++;
+    totals.wallNanos += wallNanos;
+    totals.cpuNanos += cpuNanos;
+    allocatedBytes += allocated;
+  }
+
+  private static double millis(long nanos) {
+    return Math.round(nanos / 10_000.0) / 100.0;
+  }
+
+  private static long cpuNanos() {
+    return CPU_TIME_SUPPORTED ? THREADS.getCurrentThreadCpuTime() : 0;
+  }
+
+  private static long allocatedBytes() {
+    return ALLOCATIONS != null ? ALLOCATIONS.getCurrentThreadAllocatedBytes() : 0;
+  }
+
+  /** One timed stage invocation; must end on the thread that started it */
+  public final class Span {
+    private final ExtractionMetrics.Stage stage;
+    private final ExtractionMethod method;
+    private final io.opentelemetry.api.trace.Span traceSpan;
+    private final ExtractionEvents.Stage event = new ExtractionEvents.Stage();
+    private final long previousDocumentId = ExtractionEvents.enter(documentId);
+    private final long startNanos = System.nanoTime();
+    private final long startCpuNanos = detailed ? cpuNanos() : 0;
+    private final long startAllocated = detailed ? allocatedBytes() : 0;
+
+    private Span(ExtractionMetrics.Stage stage, ExtractionMethod method) {
+      this.stage = stage;
+      this.method = method;
+      this.traceSpan =
+          tracer
+              .spanBuilder(SPAN_PREFIX + stage.getTagValue())
+              .setAttribute(METHOD_ATTRIBUTE, method.name())
+              .startSpan();
+      event.begin();
+    }
+
+    /** Adds a numeric attribute to the stage's trace span; the page also tags its JFR event */
+    public Span attribute(String key, long value) {
+      traceSpan.setAttribute(key, value);
+      if (PAGE_ATTRIBUTE.equals(key)) {
+        event.page = (int) value;
+      }
+      return this;
+    }
+
+    /** Adds a text attribute to the stage's trace span */
+    public Span attribute(String key, String value) {
+      traceSpan.setAttribute(key, value);
+      return this;
+    }
+
+    /** Ends the stage, returning its wall time in nanoseconds */
+    public long end() {
+      long wallNanos = System.nanoTime() - startNanos;
+      traceSpan.end();
+      event.end();
+      if (event.shouldCommit()) {
+        event.documentId = documentId;
+        event.stage = stage.getTagValue();
+        event.method = method.name();
+        event.commit();
+      }
+      ExtractionEvents.exit(previousDocumentId);
+      metrics.recordStage(stage, method, wallNanos);
+      if (detailed) {
+        add(
+            stage,
+            method,
+            wallNanos,
+            cpuNanos() - startCpuNanos,
+            allocatedBytes() - startAllocated);
+      }
+      return wallNanos;
+    }
+  }
+
+  private static final class StageTotals {
+    private final ExtractionMetrics.Stage stage;
+    private final ExtractionMethod method;
+    private int count;
+    private long wallNanos;
+    private long cpuNanos;
+
+    StageTotals(ExtractionMetrics.Stage stage, ExtractionMethod method) {
+      this.stage = stage;
+      this.method = method;
+    }
+  }
+}
@@ -0,0 +1,178 @@
+package fi.sutinse.pdfextractor.service;
+
+import fi.sutinse.pdfextractor.model.DocumentSchema;
+import fi.sutinse.pdfextractor.model.DocumentType;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.interactive.form.PDAcroForm;
+import org.apache.pdfbox.pdmodel.interactive.form.PDField;
+import org.apache.pdfbox.pdmodel.interactive.form.PDPushButton;
+import org.apache.pdfbox.pdmodel.interactive.form.PDSignatureField;
+import org.apache.pdfbox.pdmodel.interactive.form.PDTerminalField;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Service for reading the answers of fillable PDF forms. Values typed into interactive AcroForm
+ * fields live in widget annotations that the text stripper does not emit, so they are read from the
+ * form itself and mapped to schema fields by matching each field's label against the schema
+ * labels.
+ */
+@ApplicationScoped
+public class FormFieldExtractionService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(FormFieldExtractionService.class);
+
+  /** Structured data key of all filled fields by field name */
+  static final String FORM_FIELDS_KEY = "form_fields";
+
+  /** Value of a check box or radio button that is not selected */
+  private static final String UNSELECTED = "Off";
+
+  @Inject StructuredDataExtractionService structuredDataService;
+
+  @ConfigProperty(name = "extraction.form.min-fields", defaultValue = "3")
+  int minFields;
+
+  /**
+   * Filled interactive form field
+   *
+   * @param name Fully qualified field name
+   * @param label Tooltip of the field, or its name made readable
+   * @param value Field value
+   */
+  public record FormField(String name, String label, String value) {}
+
+  /**
+   * Reads the filled fields of a document's interactive form
+   *
+   * @param document Loaded document
+   * @return Filled fields in form order, empty if the document has no form
+   */
+  public List<FormField> readFields(PDDocument document) {
+    // No fixup: building missing appearance streams is not needed to read values
+    PDAcroForm acroForm = document.getDocumentCatalog().getAcroForm(null);
+    if (acroForm == null) {
+      return List.of();
+    }
+
+    List<FormField> fields = new ArrayList<>();
+    for (PDField field : acroForm.getFieldTree()) {
+      if (!(field instanceof PDTerminalField)
+          || field instanceof PDSignatureField
+          || field instanceof PDPushButton) {
+        continue;
+      }
+      String value = field.getValueAsString();
+      if (value == null || value.isBlank() || value.equals(UNSELECTED)) {
+        continue;
+      }
+      String tooltip = field.getAlternateFieldName();
+      String label =
+          tooltip != null && !tooltip.isBlank()
+              ? tooltip.strip()
+              : readableName(field.getPartialName());
+      fields.add(new FormField(field.getFullyQualifiedName(), label, value.strip()));
+    }
+
+    LOGGER.debug("Read {} filled form fields", fields.size());
+    return fields;
+  }
+
+  /**
+   * Whether enough fields are filled to extract the document from its form alone
+   *
+   * @param fields Filled fields
+   * @return True if OCR can be skipped
+   */
+  public boolean isSufficient(List<FormField> fields) {
+    return minFields > 0 && fields.size() >= minFields;
+  }
+
+  /**
+   * Text of the form as one {@code label: value} line per field
+   *
+   * @param fields Filled fields
+   * @return Form text
+   */
+  public static String toText(List<FormField> fields) {
+    StringBuilder text = new StringBuilder();
+    for (FormField field : fields) {
+      text.append(field.label()).append(": ").append(field.value()).append('\n');
+    }
+    return text.toString().trim();
+  }
+
+  /**
+   * Maps filled fields to schema fields. A field maps to a schema field when its name is the
+   * schema key, or when a schema label covers at least half of its label. The first field mapped
+   * to a key wins. All filled fields are also included by name under {@value #FORM_FIELDS_KEY}.
+   *
+   * @param fields Filled fields
+   * @param documentType Document type whose schema to map to
+   * @return Structured data, empty if no field is filled
+   */
+  public Map<String, Object> extractStructuredData(
+      List<FormField> fields, DocumentType documentType) {
+    if (fields.isEmpty()) {
+      return Map.of();
+    }
+
+    Map<String, DocumentSchema.FieldSchema> schema =
+        DocumentSchema.getSchemaForDocumentType(documentType);
+    FuzzyLabelMatcher matcher = structuredDataService.labelMatcher(documentType);
+    Map<String, Object> structuredData = new HashMap<>();
+    Map<String, String> formFields = new LinkedHashMap<>();
+
+    for (FormField field : fields) {
+      formFields.put(field.name(), field.value());
+      String key = schemaKey(field, schema, matcher).orElse(null);
+      if (key != null && !structuredData.containsKey(key)) {
+        structuredData.put(key, field.value());
+        LOGGER.debug("Form field '{}' mapped to '{}'", field.name(), key);
+      }
+    }
+
+    structuredData.put(FORM_FIELDS_KEY, formFields);
+    return structuredData;
+  }
+
+  private static Optional<String> schemaKey(
+      FormField field, Map<String, DocumentSchema.FieldSchema> schema, FuzzyLabelMatcher matcher) {
+    String nameKey = readableName(field.name()).toLowerCase(Locale.ROOT).replace(' ', '_');
+    if (schema.containsKey(nameKey)) {
+      return Optional.of(nameKey);
+    }
+
+    // Longest, then cheapest label occurrence; a short label inside a long one is not enough
+    String label = field.label();
+    Comparator<FuzzyLabelMatcher.LabelMatch> longestFirst =
+        Comparator.comparingInt(match -> match.start() - match.end());
+    return matcher.findAll(label).stream()
+        .filter(match -> 2 * (match.end() - match.start()) >= label.length())
+        .min(longestFirst.thenComparingInt(FuzzyLabelMatcher.LabelMatch::cost))
+        .map(FuzzyLabelMatcher.LabelMatch::key);
+  }
+
+  /** Last part of a field name split into words, e.g. {@code applicant Name} */
+  static String readableName(String name) {
+    if (name == null) {
+      return "";
+    }
+    String lastPart = name.substring(name.lastIndexOf('.') + 1);
+    return lastPart
+        .replaceAll("([\\p{Ll}\\p{N}])(\\p{Lu})", "$1 $2")
+        .replaceAll("[_\\-\\s]+", " ")
+        .strip();
+  }
+}
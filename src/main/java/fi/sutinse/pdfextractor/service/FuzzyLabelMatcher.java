@@ -0,0 +1,318 @@
+package fi.sutinse.pdfextractor.service;
+
+import fi.sutinse.pdfextractor.model.DocumentSchema;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Error-tolerant label matcher for OCR text.
+ *
+ * <p>All labels are compiled once into a character trie. Scanning starts a bounded edit-distance
+ * automaton at every word start in the text and simulates it over the trie, so shared label
+ * prefixes are evaluated once and branches that already exceed the error budget are pruned. Plain
+ * substitutions, insertions and deletions cost {@value #EDIT_COST} units, while typical OCR
+ * confusions (ä/a, 0/o, 1/l, rn/m, vv/w, ...) and whitespace differences cost {@value
+ * #CONFUSION_COST} unit.
+ */
+public final class FuzzyLabelMatcher {
+
+  static final int EDIT_COST = 2;
+  static final int CONFUSION_COST = 1;
+
+  // Single character look-alikes produced by OCR engines (symmetric)
+  private static final String[] CHAR_CONFUSIONS = {
+    "aä", "aå", "oö", "o0", "ö0", "l1", "i1", "il", "l|", "s5", "b8", "g9", "z2", "ce", "uü",
+    "eé"
+  };
+
+  // Character pairs that OCR engines merge into one glyph or split from one glyph
+  private static final String[] PAIR_CONFUSIONS = {"mrn", "mnn", "wvv", "dcl", "hli"};
+
+  private static final Set<Integer> CHAR_CONFUSION_KEYS = new HashSet<>();
+
+  static {
+    for (String pair : CHAR_CONFUSIONS) {
+      CHAR_CONFUSION_KEYS.add(confusionKey(pair.charAt(0), pair.charAt(1)));
+      CHAR_CONFUSION_KEYS.add(confusionKey(pair.charAt(1), pair.charAt(0)));
+    }
+  }
+
+  /** Label occurrence found in the scanned text */
+  public record LabelMatch(String key, String label, int start, int end, int cost) {}
+
+  private record Label(String key, String label, int budget) {}
+
+  private final Node root = new Node('\0');
+  private final List<Label> labels = new ArrayList<>();
+  private final Set<String> compiledLabels = new HashSet<>();
+  private int maxLabelLength;
+  private int maxBudget;
+
+  /**
+   * Compiles a matcher for the given labels
+   *
+   * @param labelsByKey Labels grouped by the key reported for their matches
+   */
+  public FuzzyLabelMatcher(Map<String, ? extends Collection<String>> labelsByKey) {
+    for (Map.Entry<String, ? extends Collection<String>> entry : labelsByKey.entrySet()) {
+      for (String label : entry.getValue()) {
+        addLabel(entry.getKey(), label);
+      }
+    }
+  }
+
+  /**
+   * Compiles a matcher over all language patterns of a document schema
+   *
+   * @param schema Field schemas keyed by field key
+   * @return Matcher reporting field keys for label matches
+   */
+  public static FuzzyLabelMatcher forSchema(Map<String, DocumentSchema.FieldSchema> schema) {
+    Map<String, List<String>> labelsByKey = new HashMap<>();
+    for (Map.Entry<String, DocumentSchema.FieldSchema> entry : schema.entrySet()) {
+      List<String> fieldLabels = new ArrayList<>();
+      fieldLabels.addAll(entry.getValue().finnishPatterns());
+      fieldLabels.addAll(entry.getValue().swedishPatterns());
+      fieldLabels.addAll(entry.getValue().englishPatterns());
+      labelsByKey.put(entry.getKey(), fieldLabels);
+    }
+    return new FuzzyLabelMatcher(labelsByKey);
+  }
+
+  /**
+   * Finds all label occurrences within the error budget in one pass over the text. For each label
+   * and start position only the cheapest occurrence is reported.
+   *
+   * @param text Text to scan
+   * @return Matches ordered by start offset
+   */
+  public List<LabelMatch> findAll(CharSequence text) {
+    if (text == null || text.isEmpty() || labels.isEmpty()) {
+      return List.of();
+    }
+
+    List<LabelMatch> matches = new ArrayList<>();
+    int window = maxLabelLength + maxBudget;
+    char[] buffer = new char[window];
+    int[][] rows = new int[maxLabelLength + 1][window + 1];
+
+    for (int start = 0; start < text.length(); start++) {
+      if (!isWordStart(text, start)) {
+        continue;
+      }
+
+      int length = Math.min(window, text.length() - start);
+      for (int i = 0; i < length; i++) {
+        buffer[i] = fold(text.charAt(start + i));
+      }
+
+      // Root row: the empty label prefix against growing text prefixes
+      int[] rootRow = rows[0];
+      rootRow[0] = 0;
+      for (int j = 1; j <= length; j++) {
+        rootRow[j] = rootRow[j - 1] + insertCost(buffer[j - 1]);
+      }
+
+      for (Node child : root.children) {
+        descend(child, '\0', 1, text, start, buffer, length, rows, matches);
+      }
+    }
+
+    return matches;
+  }
+
+  private void descend(
+      Node node,
+      char parentChar,
+      int depth,
+      CharSequence text,
+      int start,
+      char[] buffer,
+      int length,
+      int[][] rows,
+      List<LabelMatch> matches) {
+    int[] previous = rows[depth - 1];
+    int[] grandparent = depth >= 2 ? rows[depth - 2] : null;
+    int[] row = rows[depth];
+    char p = node.c;
+
+    row[0] = previous[0] + deleteCost(p);
+    int best = row[0];
+    for (int j = 1; j <= length; j++) {
+      char t = buffer[j - 1];
+      int cost = previous[j - 1] + substituteCost(p, t);
+      cost = Math.min(cost, previous[j] + deleteCost(p));
+      cost = Math.min(cost, row[j - 1] + insertCost(t));
+      // One label character read as two glyphs (m -> rn)
+      if (j >= 2 && isPairConfusion(p, buffer[j - 2], t)) {
+        cost = Math.min(cost, previous[j - 2] + CONFUSION_COST);
+      }
+      // Two label characters read as one glyph (rn -> m)
+      if (grandparent != null && isPairConfusion(t, parentChar, p)) {
+        cost = Math.min(cost, grandparent[j - 1] + CONFUSION_COST);
+      }
+      row[j] = cost;
+      best = Math.min(best, cost);
+    }
+
+    if (best > maxBudget) {
+      return;
+    }
+
+    for (int labelId : node.labelIds) {
+      collectMatch(labels.get(labelId), row, text, start, buffer, length, matches);
+    }
+
+    for (Node child : node.children) {
+      descend(child, p, depth + 1, text, start, buffer, length, rows, matches);
+    }
+  }
+
+  private void collectMatch(
+      Label label,
+      int[] row,
+      CharSequence text,
+      int start,
+      char[] buffer,
+      int length,
+      List<LabelMatch> matches) {
+    int bestEnd = -1;
+    int bestCost = Integer.MAX_VALUE;
+    for (int j = 1; j <= length; j++) {
+      if (row[j] <= label.budget()
+          && row[j] < bestCost
+          && buffer[j - 1] != ' '
+          && isWordEnd(text, start + j)) {
+        bestEnd = j;
+        bestCost = row[j];
+      }
+    }
+
+    if (bestEnd > 0) {
+      matches.add(new LabelMatch(label.key(), label.label(), start, start + bestEnd, bestCost));
+    }
+  }
+
+  private void addLabel(String key, String label) {
+    if (label == null || label.isBlank()) {
+      return;
+    }
+
+    String folded = foldLabel(label);
+    if (!compiledLabels.add(key + '\u0000' + folded)) {
+      return;
+    }
+
+    int budget = budgetFor(folded);
+    int labelId = labels.size();
+    labels.add(new Label(key, label, budget));
+    maxLabelLength = Math.max(maxLabelLength, folded.length());
+    maxBudget = Math.max(maxBudget, budget);
+
+    Node node = root;
+    for (int i = 0; i < folded.length(); i++) {
+      node = node.childFor(folded.charAt(i));
+    }
+    node.labelIds = Arrays.copyOf(node.labelIds, node.labelIds.length + 1);
+    node.labelIds[node.labelIds.length - 1] = labelId;
+  }
+
+  /** Error budget in cost units: short labels tolerate one confusion, long ones two edits */
+  static int budgetFor(String label) {
+    int letters = (int) label.chars().filter(Character::isLetterOrDigit).count();
+    if (letters <= 2) {
+      return 0;
+    } else if (letters <= 5) {
+      return CONFUSION_COST;
+    } else if (letters <= 9) {
+      return EDIT_COST;
+    }
+    return 2 * EDIT_COST;
+  }
+
+  private static String foldLabel(String label) {
+    StringBuilder folded = new StringBuilder(label.length());
+    for (int i = 0; i < label.length(); i++) {
+      char c = fold(label.charAt(i));
+      if (c != ' ' || (folded.length() > 0 && folded.charAt(folded.length() - 1) != ' ')) {
+        folded.append(c);
+      }
+    }
+    return folded.toString().trim();
+  }
+
+  private static char fold(char c) {
+    return Character.isWhitespace(c) ? ' ' : Character.toLowerCase(c);
+  }
+
+  private static int substituteCost(char p, char t) {
+    if (p == t) {
+      return 0;
+    }
+    return CHAR_CONFUSION_KEYS.contains(confusionKey(p, t)) ? CONFUSION_COST : EDIT_COST;
+  }
+
+  private static int deleteCost(char p) {
+    return p == ' ' ? CONFUSION_COST : EDIT_COST;
+  }
+
+  private static int insertCost(char t) {
+    return t == ' ' ? CONFUSION_COST : EDIT_COST;
+  }
+
+  private static boolean isPairConfusion(char single, char first, char second) {
+    for (String confusion : PAIR_CONFUSIONS) {
+      if (confusion.charAt(0) == single
+          && confusion.charAt(1) == first
+          && confusion.charAt(2) == second) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static int confusionKey(char a, char b) {
+    return (a << 16) | b;
+  }
+
+  private static boolean isWordStart(CharSequence text, int index) {
+    return Character.isLetterOrDigit(text.charAt(index))
+        && (index == 0 || !Character.isLetterOrDigit(text.charAt(index - 1)));
+  }
+
+  private static boolean isWordEnd(CharSequence text, int index) {
+    return index >= text.length() || !Character.isLetterOrDigit(text.charAt(index));
+  }
+
+  /** Trie node keyed by folded label character */
+  private static final class Node {
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final int[] NO_LABELS = new int[0];
+
+    final char c;
+    Node[] children = NO_CHILDREN;
+    int[] labelIds = NO_LABELS;
+
+    Node(char c) {
+      this.c = c;
+    }
+
+    Node childFor(char next) {
+      for (Node child : children) {
+        if (child.c == next) {
+          return child;
+        }
+      }
+      Node child = new Node(next);
+      children = Arrays.copyOf(children, children.length + 1);
+      children[children.length - 1] = child;
+      return child;
+    }
+  }
+}
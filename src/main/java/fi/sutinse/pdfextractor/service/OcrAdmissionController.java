@@ -0,0 +1,207 @@
+package fi.sutinse.pdfextractor.service;
+
+import fi.sutinse.pdfextractor.dto.AdmissionStats;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.function.Supplier;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bulkhead for page rendering and OCR. A fixed number of permits bounds concurrent OCR work, and a
+ * bounded number of callers may wait for a permit. When the wait queue is full, or a caller waits
+ * longer than the maximum wait, the call is shed with {@link OcrOverloadedException} instead of
+ * piling up more renders in memory.
+ */
+@ApplicationScoped
+public class OcrAdmissionController {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(OcrAdmissionController.class);
+
+  private static final AttributeKey<Long> PERMIT_WAIT_ATTRIBUTE =
+      AttributeKey.longKey("pdf.ocr.permit_wait_ms");
+
+  @ConfigProperty(name = "extraction.ocr.max-concurrent", defaultValue = "0")
+  int maxConcurrent;
+
+  @ConfigProperty(name = "extraction.ocr.max-waiting", defaultValue = "16")
+  int maxWaiting;
+
+  @ConfigProperty(name = "extraction.ocr.max-wait", defaultValue = "PT30S")
+  Duration maxWait;
+
+  @ConfigProperty(name = "extraction.ocr.retry-after", defaultValue = "PT10S")
+  Duration retryAfter;
+
+  @ConfigProperty(name = "extraction.ocr.retry-timeout", defaultValue = "PT10M")
+  Duration retryTimeout;
+
+  private Semaphore permits;
+  private int permitCount;
+  private final AtomicInteger active = new AtomicInteger();
+  private final AtomicInteger waiting = new AtomicInteger();
+  private final AtomicLong admitted = new AtomicLong();
+  private final AtomicLong rejected = new AtomicLong();
+  private final AtomicLong timedOut = new AtomicLong();
+  private final AtomicLong waited = new AtomicLong();
+  private final AtomicLong totalWaitNanos = new AtomicLong();
+  private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+
+  @PostConstruct
+  void init() {
+    permitCount = maxConcurrent > 0 ? maxConcurrent : Runtime.getRuntime().availableProcessors();
+    permits = new Semaphore(permitCount, true);
+    LOGGER.info(
+        "OCR admission control: {} concurrent, {} waiting, max wait {}",
+        permitCount,
+        maxWaiting,
+        maxWait);
+  }
+
+  /**
+   * Acquires an OCR permit, waiting in the bounded queue if all permits are in use
+   *
+   * @return Permit to close when the OCR work is done
+   * @throws OcrOverloadedException if the wait queue is full or the maximum wait is exceeded
+   */
+  public Permit acquire() {
+    try {
+      // Zero timeout respects fairness, so queued callers are not overtaken
+      if (permits.tryAcquire(0, TimeUnit.NANOSECONDS)) {
+        return admit();
+      }
+
+      if (waiting.incrementAndGet() > maxWaiting) {
+        waiting.decrementAndGet();
+        rejected.incrementAndGet();
+        throw new OcrOverloadedException(
+            "OCR capacity exhausted, request queue is full", retryAfter);
+      }
+
+      long start = System.nanoTime();
+      try {
+        if (!permits.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS)) {
+          timedOut.incrementAndGet();
+          throw new OcrOverloadedException(
+              "OCR capacity exhausted, timed out after " + maxWait.toSeconds() + " s", retryAfter);
+        }
+      } finally {
+        waiting.decrementAndGet();
+        long waitNanos = System.nanoTime() - start;
+        waited.incrementAndGet();
+        totalWaitNanos.addAndGet(waitNanos);
+        maxWaitNanos.accumulate(waitNanos);
+        Span.current()
+            .addEvent(
+                "ocr.permit.wait",
+                Attributes.of(PERMIT_WAIT_ATTRIBUTE, TimeUnit.NANOSECONDS.toMillis(waitNanos)));
+      }
+      return admit();
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new OcrOverloadedException("Interrupted while waiting for OCR capacity", retryAfter);
+    }
+  }
+
+  private Permit admit() {
+    admitted.incrementAndGet();
+    active.incrementAndGet();
+    return new Permit();
+  }
+
+  /**
+   * Runs a background extraction, waiting the advised delay and retrying while OCR is overloaded.
+   * Queued work such as jobs and batches uses this instead of failing when interactive requests
+   * fill the OCR queue, but gives up once the retry timeout has passed.
+   *
+   * @param extraction Extraction to run
+   * @return Extraction result
+   * @throws OcrOverloadedException if OCR is still overloaded when the retry timeout has passed
+   * @throws InterruptedException if interrupted between attempts
+   */
+  public <T> T retryWhileOverloaded(Supplier<T> extraction) throws InterruptedException {
+    long deadline = System.nanoTime() + retryTimeout.toNanos();
+    while (true) {
+      try {
+        return extraction.get();
+      } catch (OcrOverloadedException e) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          throw new OcrOverloadedException(
+              "OCR capacity exhausted, gave up retrying after " + retryTimeout.toSeconds() + " s",
+              e.getRetryAfter());
+        }
+        LOGGER.debug("OCR overloaded, retrying in {}", e.getRetryAfter());
+        // The last attempt is made at the deadline
+        TimeUnit.NANOSECONDS.sleep(Math.min(e.getRetryAfter().toNanos(), remaining));
+      }
+    }
+  }
+
+  /** Current admission counters */
+  public AdmissionStats stats() {
+    long waits = waited.get();
+    return new AdmissionStats(
+        permitCount,
+        active.get(),
+        waiting.get(),
+        maxWaiting,
+        admitted.get(),
+        rejected.get(),
+        timedOut.get(),
+        waits > 0 ? totalWaitNanos.get() / 1e6 / waits : 0,
+        TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()));
+  }
+
+  /** Number of concurrent OCR permits */
+  int permitCount() {
+    return permitCount;
+  }
+
+  /** Number of callers that may wait for a permit */
+  int maxWaiting() {
+    return maxWaiting;
+  }
+
+  /** Delay advised to shed callers */
+  Duration retryAfter() {
+    return retryAfter;
+  }
+
+  /** Number of acquisitions that had to wait for a permit */
+  long waits() {
+    return waited.get();
+  }
+
+  /** Total time callers have waited for permits */
+  double totalWaitNanos() {
+    return totalWaitNanos.get();
+  }
+
+  /** OCR permit, released once when closed */
+  public final class Permit implements AutoCloseable {
+    private boolean released;
+
+    private Permit() {}
+
+    @Override
+    public void close() {
+      if (!released) {
+        released = true;
+        active.decrementAndGet();
+        permits.release();
+      }
+    }
+  }
+}
@@ -0,0 +1,19 @@
+package fi.sutinse.pdfextractor.service;
+
+import java.time.Duration;
+
+/** Thrown when OCR capacity is exhausted and the request is shed instead of queued */
+public class OcrOverloadedException extends RuntimeException {
+
+  private final Duration retryAfter;
+
+  public OcrOverloadedException(String message, Duration retryAfter) {
+    super(message);
+    this.retryAfter = retryAfter;
+  }
+
+  /** Advised delay before retrying */
+  public Duration getRetryAfter() {
+    return retryAfter;
+  }
+}
@@ -0,0 +1,302 @@
+package fi.sutinse.pdfextractor.service;
+
+import fi.sutinse.pdfextractor.dto.ExtractionMetadata;
+import fi.sutinse.pdfextractor.dto.ExtractionMethod;
+import fi.sutinse.pdfextractor.dto.ExtractionStreamEvent;
+import fi.sutinse.pdfextractor.dto.PageExtractionResult;
+import fi.sutinse.pdfextractor.dto.PdfExtractionResponse;
+import fi.sutinse.pdfextractor.dto.StructuredText;
+import fi.sutinse.pdfextractor.dto.TextElement;
+import fi.sutinse.pdfextractor.dto.TextLocation;
+import fi.sutinse.pdfextractor.dto.WordBoxes;
+import fi.sutinse.pdfextractor.model.DocumentType;
+import fi.sutinse.pdfextractor.model.Language;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Page-by-page extraction over one loaded PDF document.
+ *
+ * <p>Every call to {@link #next()} extracts exactly one page, using the text layer when the page
+ * has meaningful text and the OCR lane otherwise, so pages are produced only as fast as the
+ * consumer asks for them. Only the word boxes of OCR pages are kept, in compact columns. The last
+ * event is a summary with document type, structured data and metadata computed from the
+ * accumulated page text, with OCR field values located from the word boxes like {@code
+ * /extract} does.
+ *
+ * <p>A document with an embedded e-invoice or enough filled form fields is never OCRed: pages come
+ * from the text layer only and the summary carries the invoice or form values.
+ */
+public class PageExtractionStream
+    implements Iterator<ExtractionStreamEvent>, Iterable<ExtractionStreamEvent>, AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PageExtractionStream.class);
+
+  private final PDDocument document;
+  private final String filename;
+  private final long fileSize;
+  private final EmbeddedInvoiceExtractionService.EmbeddedInvoice invoice;
+  private final List<FormFieldExtractionService.FormField> formFields;
+  private final boolean skipOcr;
+  private final long startTime;
+  private final int pageCount;
+  private final TesseractOcrService tesseractService;
+  private final TextNormalizationService normalizationService;
+  private final StructuredDataExtractionService structuredDataService;
+  private final SpatialFieldExtractionService spatialExtractionService;
+  private final FormFieldExtractionService formFieldService;
+  private final ExtractionLanes lanes;
+
+  private final PDFTextStripper textStripper = new PDFTextStripper();
+  private final StringBuilder documentText = new StringBuilder();
+  private final WordBoxes ocrWords = new WordBoxes();
+  private PDFRenderer renderer;
+  private Language ocrLanguage;
+  private int nextPage;
+  private int textLayerPages;
+  private int ocrPages;
+  private boolean summaryEmitted;
+
+  PageExtractionStream(
+      PDDocument document,
+      String filename,
+      long fileSize,
+      EmbeddedInvoiceExtractionService.EmbeddedInvoice invoice,
+      List<FormFieldExtractionService.FormField> formFields,
+      TesseractOcrService tesseractService,
+      TextNormalizationService normalizationService,
+      StructuredDataExtractionService structuredDataService,
+      SpatialFieldExtractionService spatialExtractionService,
+      FormFieldExtractionService formFieldService,
+      ExtractionLanes lanes) {
+    this.document = document;
+    this.filename = filename;
+    this.fileSize = fileSize;
+    this.invoice = invoice;
+    this.formFields = formFields;
+    this.skipOcr = invoice != null || formFieldService.isSufficient(formFields);
+    this.startTime = System.currentTimeMillis();
+    this.pageCount = document.getNumberOfPages();
+    this.tesseractService = tesseractService;
+    this.normalizationService = normalizationService;
+    this.structuredDataService = structuredDataService;
+    this.spatialExtractionService = spatialExtractionService;
+    this.formFieldService = formFieldService;
+    this.lanes = lanes;
+  }
+
+  @Override
+  public Iterator<ExtractionStreamEvent> iterator() {
+    return this;
+  }
+
+  @Override
+  public boolean hasNext() {
+    return !summaryEmitted;
+  }
+
+  @Override
+  public ExtractionStreamEvent next() {
+    if (summaryEmitted) {
+      throw new NoSuchElementException();
+    }
+    if (nextPage < pageCount) {
+      return ExtractionStreamEvent.page(extractPage(nextPage++));
+    }
+    summaryEmitted = true;
+    return ExtractionStreamEvent.summary(buildSummary());
+  }
+
+  private PageExtractionResult extractPage(int pageIndex) {
+    long pageStart = System.currentTimeMillis();
+    int pageNumber = pageIndex + 1;
+
+    try {
+      textStripper.setStartPage(pageNumber);
+      textStripper.setEndPage(pageNumber);
+      String pageText = textStripper.getText(document);
+
+      // Without OCR, pages lacking a text layer are returned as they are
+      if (skipOcr || PdfExtractionService.isTextMeaningful(pageText)) {
+        textLayerPages++;
+        appendPageText(pageNumber, pageText.trim());
+        return new PageExtractionResult(
+            pageNumber,
+            pageCount,
+            ExtractionMethod.PDFBOX,
+            pageText.trim(),
+            List.of(TextElement.textOnly(pageText.trim())),
+            System.currentTimeMillis() - pageStart);
+      }
+
+      // Only pages without a text layer go to the OCR lane
+      TesseractOcrService.PageText ocrPage = lanes.runOcr(() -> ocrPage(pageIndex));
+      ocrPages++;
+      appendPageText(pageNumber, ocrPage.text().trim());
+      ocrWords.addAll(ocrPage.elements());
+      return new PageExtractionResult(
+          pageNumber,
+          pageCount,
+          ExtractionMethod.TESSERACT_OCR,
+          ocrPage.text().trim(),
+          ocrPage.elements(),
+          System.currentTimeMillis() - pageStart);
+
+    } catch (OcrOverloadedException e) {
+      throw e;
+    } catch (IOException | RuntimeException e) {
+      LOGGER.warn(
+          "Extraction failed for page {} of file {}: {}", pageNumber, filename, e.getMessage());
+      return new PageExtractionResult(
+          pageNumber, pageCount, null, "", List.of(), System.currentTimeMillis() - pageStart);
+    }
+  }
+
+  /** OCRs a page, picking the language from the text seen so far or from the page itself */
+  private TesseractOcrService.PageText ocrPage(int pageIndex) throws IOException {
+    if (renderer == null) {
+      renderer = new PDFRenderer(document);
+    }
+
+    if (ocrLanguage == null && !tesseractService.isAutoDetectEnabled()) {
+      ocrLanguage = tesseractService.getCurrentLanguage();
+    } else if (ocrLanguage == null && documentText.length() >= 200) {
+      ocrLanguage = Language.detectFromContent(documentText.toString());
+    }
+
+    if (ocrLanguage != null) {
+      return tesseractService.extractPage(document, renderer, pageIndex, ocrLanguage);
+    }
+
+    // First OCR page without enough context: OCR with the default language, then redo the page
+    // if the detected language differs
+    Language defaultLanguage = tesseractService.getCurrentLanguage();
+    TesseractOcrService.PageText page =
+        tesseractService.extractPage(document, renderer, pageIndex, defaultLanguage);
+    ocrLanguage = Language.detectFromContent(page.text());
+    LOGGER.info(
+        "Auto-detected language: {} ({})",
+        ocrLanguage.getEnglishName(),
+        ocrLanguage.getTesseractCode());
+    return ocrLanguage == defaultLanguage
+        ? page
+        : tesseractService.extractPage(document, renderer, pageIndex, ocrLanguage);
+  }
+
+  private void appendPageText(int pageNumber, String pageText) {
+    if (pageText.isEmpty()) {
+      return;
+    }
+    if (!documentText.isEmpty()) {
+      documentText.append("\n\n--- Page ").append(pageNumber).append(" ---\n\n");
+    }
+    documentText.append(pageText);
+  }
+
+  private PdfExtractionResponse buildSummary() {
+    String fullText = documentText.toString().trim();
+    if (invoice != null) {
+      return invoiceSummary(fullText);
+    }
+
+    // A filled form without a text layer is summarized from its fields, as /extract does
+    boolean formOnly = skipOcr && !PdfExtractionService.isTextMeaningful(fullText);
+    if (formOnly) {
+      fullText = FormFieldExtractionService.toText(formFields);
+    }
+    if (fullText.isEmpty()) {
+      return PdfExtractionResponse.failure("No text could be extracted");
+    }
+
+    Language detectedLanguage = Language.detectFromContent(fullText);
+    boolean normalized = ocrPages > 0;
+    String text =
+        normalized ? normalizationService.normalizeText(fullText, detectedLanguage) : fullText;
+    DocumentType docType = DocumentType.detectFromContent(text, detectedLanguage);
+    if (formOnly && docType == DocumentType.UNKNOWN) {
+      docType = DocumentType.FORM;
+    }
+    Map<String, Object> structuredData =
+        new HashMap<>(structuredDataService.extractStructuredData(text, docType, detectedLanguage));
+    // Values typed into form fields take precedence over values found after labels
+    structuredData.putAll(formFieldService.extractStructuredData(formFields, docType));
+
+    // Geometric label/value pairs from the word boxes take precedence over the flattened text
+    Map<String, TextLocation> fieldLocations = new HashMap<>();
+    spatialExtractionService
+        .extractFields(ocrWords, docType)
+        .forEach(
+            (field, located) -> {
+              structuredData.put(field, located.value());
+              fieldLocations.put(field, located.location());
+            });
+
+    ExtractionMethod method =
+        formOnly
+            ? ExtractionMethod.ACROFORM
+            : ocrPages == 0
+                ? ExtractionMethod.PDFBOX
+                : textLayerPages == 0 ? ExtractionMethod.TESSERACT_OCR : ExtractionMethod.HYBRID;
+
+    ExtractionMetadata metadata =
+        ExtractionMetadata.create(
+            filename,
+            fileSize,
+            pageCount,
+            System.currentTimeMillis() - startTime,
+            normalized,
+            detectedLanguage.getTesseractCode());
+
+    LOGGER.info(
+        "Streamed extraction completed for file: {}, method: {}, type: {}, pages: {}",
+        filename,
+        method,
+        docType,
+        pageCount);
+
+    return PdfExtractionResponse.success(
+        StructuredText.dataOnly(structuredData, fieldLocations, ocrPages > 0),
+        method,
+        docType,
+        metadata);
+  }
+
+  /** Summary of a document with an embedded e-invoice, whose fields are exact */
+  private PdfExtractionResponse invoiceSummary(String fullText) {
+    String language =
+        fullText.isEmpty() ? null : Language.detectFromContent(fullText).getTesseractCode();
+    ExtractionMetadata metadata =
+        ExtractionMetadata.create(
+            filename, fileSize, pageCount, System.currentTimeMillis() - startTime, false, language);
+
+    LOGGER.info(
+        "Streamed extraction read embedded {} e-invoice {} from file: {}",
+        invoice.format().getDisplayName(),
+        invoice.filename(),
+        filename);
+
+    return PdfExtractionResponse.success(
+        StructuredText.dataOnly(invoice.structuredData(), Map.of(), false),
+        ExtractionMethod.EMBEDDED_INVOICE,
+        DocumentType.INVOICE,
+        metadata);
+  }
+
+  @Override
+  public void close() {
+    try {
+      document.close();
+    } catch (IOException e) {
+      LOGGER.warn("Could not close document {}: {}", filename, e.getMessage());
+    }
+  }
+}
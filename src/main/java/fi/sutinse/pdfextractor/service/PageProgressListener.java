@@ -0,0 +1,17 @@
+package fi.sutinse.pdfextractor.service;
+
+/** Callback receiving page-level extraction progress */
+@FunctionalInterface
+public interface PageProgressListener {
+
+  /** Listener ignoring all progress */
+  PageProgressListener NONE = (pagesDone, pageCount) -> {};
+
+  /**
+   * Called after pages have been processed
+   *
+   * @param pagesDone Number of pages processed so far
+   * @param pageCount Total number of pages in the document
+   */
+  void pagesCompleted(int pagesDone, int pageCount);
+}
@@ -0,0 +1,261 @@
+package fi.sutinse.pdfextractor.service;
+
+import fi.sutinse.pdfextractor.dto.TextLocation;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Uniform grid index over the word boxes of a single page.
+ *
+ * <p>Boxes are bucketed into square cells a few line heights wide, stored in compact offset
+ * arrays. Neighbour queries only visit the cells overlapping their bounded search window, so the
+ * cost stays proportional to the local word density rather than the page size. Instances keep
+ * per-query scratch state and must not be shared between threads.
+ */
+public final class PageSpatialIndex {
+
+  private static final int MIN_CELL_SIZE = 8;
+  private static final int MAX_CELLS = 1 << 20;
+
+  private final int[] left;
+  private final int[] top;
+  private final int[] right;
+  private final int[] bottom;
+
+  private final int originX;
+  private final int originY;
+  private final int cellSize;
+  private final int columns;
+  private final int rows;
+  private final int[] cellStart;
+  private final int[] cellWords;
+
+  private final int[] visited;
+  private int queryStamp;
+
+  private PageSpatialIndex(List<TextLocation> boxes) {
+    int count = boxes.size();
+    left = new int[count];
+    top = new int[count];
+    right = new int[count];
+    bottom = new int[count];
+    visited = new int[count];
+
+    int minX = Integer.MAX_VALUE;
+    int minY = Integer.MAX_VALUE;
+    int maxX = Integer.MIN_VALUE;
+    int maxY = Integer.MIN_VALUE;
+    int[] heights = new int[count];
+    for (int i = 0; i < count; i++) {
+      TextLocation box = boxes.get(i);
+      left[i] = box.x();
+      top[i] = box.y();
+      right[i] = box.x() + Math.max(box.width(), 1);
+      bottom[i] = box.y() + Math.max(box.height(), 1);
+      heights[i] = bottom[i] - top[i];
+      minX = Math.min(minX, left[i]);
+      minY = Math.min(minY, top[i]);
+      maxX = Math.max(maxX, right[i]);
+      maxY = Math.max(maxY, bottom[i]);
+    }
+
+    if (count == 0) {
+      minX = minY = maxX = maxY = 0;
+    }
+
+    // Cells span a few median line heights so typical queries touch a handful of cells
+    Arrays.sort(heights);
+    int size = Math.max(MIN_CELL_SIZE, count > 0 ? heights[count / 2] * 4 : MIN_CELL_SIZE);
+    while ((long) ((maxX - minX) / size + 1) * ((maxY - minY) / size + 1) > MAX_CELLS) {
+      size *= 2;
+    }
+
+    originX = minX;
+    originY = minY;
+    cellSize = size;
+    columns = (maxX - minX) / size + 1;
+    rows = (maxY - minY) / size + 1;
+
+    // Two passes: count boxes per cell, then fill the compact cell arrays
+    cellStart = new int[columns * rows + 1];
+    for (int i = 0; i < count; i++) {
+      for (int row = rowOf(top[i]); row <= rowOf(bottom[i]); row++) {
+        for (int column = columnOf(left[i]); column <= columnOf(right[i]); column++) {
+          cellStart[row * columns + column + 1]++;
+        }
+      }
+    }
+    for (int cell = 0; cell < columns * rows; cell++) {
+      cellStart[cell + 1] += cellStart[cell];
+    }
+    cellWords = new int[cellStart[columns * rows]];
+    int[] fill = Arrays.copyOf(cellStart, columns * rows);
+    for (int i = 0; i < count; i++) {
+      for (int row = rowOf(top[i]); row <= rowOf(bottom[i]); row++) {
+        for (int column = columnOf(left[i]); column <= columnOf(right[i]); column++) {
+          cellWords[fill[row * columns + column]++] = i;
+        }
+      }
+    }
+  }
+
+  /**
+   * Builds an index over word boxes; box indexes match list positions
+   *
+   * @param boxes Word boxes of one page
+   * @return Spatial index
+   */
+  public static PageSpatialIndex of(List<TextLocation> boxes) {
+    return new PageSpatialIndex(boxes);
+  }
+
+  /** Number of indexed boxes */
+  public int size() {
+    return left.length;
+  }
+
+  /**
+   * Finds the nearest box to the right of the given box on the same baseline
+   *
+   * @param l Left edge of the reference box
+   * @param t Top edge of the reference box
+   * @param r Right edge of the reference box
+   * @param b Bottom edge of the reference box
+   * @param maxGap Largest accepted horizontal gap
+   * @param accept Filter for candidate box indexes
+   * @return Box index or -1 if none is within range
+   */
+  public int nearestRightOf(int l, int t, int r, int b, int maxGap, IntPredicate accept) {
+    int height = b - t;
+    int best = -1;
+    long bestScore = Long.MAX_VALUE;
+    int stamp = nextStamp();
+
+    for (int row = rowOf(t); row <= rowOf(b); row++) {
+      for (int column = columnOf(r - height / 2); column <= columnOf(r + maxGap); column++) {
+        int cell = row * columns + column;
+        for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+          int i = cellWords[k];
+          if (visited[i] == stamp) {
+            continue;
+          }
+          visited[i] = stamp;
+
+          int gap = Math.max(0, left[i] - r);
+          if (left[i] < r - height / 2
+              || gap > maxGap
+              || !sharesBaseline(i, t, b)
+              || !accept.test(i)) {
+            continue;
+          }
+
+          long score = (long) gap * 4 + Math.abs(top[i] - t);
+          if (score < bestScore) {
+            bestScore = score;
+            best = i;
+          }
+        }
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Finds the nearest box below the given box that overlaps its horizontal span
+   *
+   * @param l Left edge of the reference box
+   * @param t Top edge of the reference box
+   * @param r Right edge of the reference box
+   * @param b Bottom edge of the reference box
+   * @param maxGap Largest accepted vertical gap
+   * @param accept Filter for candidate box indexes
+   * @return Box index or -1 if none is within range
+   */
+  public int nearestBelow(int l, int t, int r, int b, int maxGap, IntPredicate accept) {
+    int height = b - t;
+    int best = -1;
+    long bestScore = Long.MAX_VALUE;
+    int stamp = nextStamp();
+
+    for (int row = rowOf(b - height / 4); row <= rowOf(b + maxGap); row++) {
+      for (int column = columnOf(l); column <= columnOf(r + height); column++) {
+        int cell = row * columns + column;
+        for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+          int i = cellWords[k];
+          if (visited[i] == stamp) {
+            continue;
+          }
+          visited[i] = stamp;
+
+          int gap = Math.max(0, top[i] - b);
+          if (top[i] < b - height / 4
+              || gap > maxGap
+              || right[i] < l
+              || left[i] > r + height
+              || !accept.test(i)) {
+            continue;
+          }
+
+          long score = (long) gap * 4 + Math.abs(left[i] - l);
+          if (score < bestScore) {
+            bestScore = score;
+            best = i;
+          }
+        }
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Finds the next box on the same line as an indexed box
+   *
+   * @param word Index of the reference box
+   * @param maxGap Largest accepted horizontal gap
+   * @param accept Filter for candidate box indexes
+   * @return Box index or -1 if the line ends
+   */
+  public int nextOnLine(int word, int maxGap, IntPredicate accept) {
+    return nearestRightOf(
+        left[word], top[word], right[word], bottom[word], maxGap, i -> i != word && accept.test(i));
+  }
+
+  public int left(int word) {
+    return left[word];
+  }
+
+  public int top(int word) {
+    return top[word];
+  }
+
+  public int right(int word) {
+    return right[word];
+  }
+
+  public int bottom(int word) {
+    return bottom[word];
+  }
+
+  /** Vertical overlap of at least half the smaller height counts as the same baseline */
+  private boolean sharesBaseline(int i, int t, int b) {
+    int overlap = Math.min(bottom[i], b) - Math.max(top[i], t);
+    return overlap * 2 >= Math.min(bottom[i] - top[i], b - t);
+  }
+
+  private int nextStamp() {
+    if (++queryStamp == Integer.MAX_VALUE) {
+      Arrays.fill(visited, 0);
+      queryStamp = 1;
+    }
+    return queryStamp;
+  }
+
+  private int columnOf(int x) {
+    return Math.clamp((x - originX) / cellSize, 0, columns - 1);
+  }
+
+  private int rowOf(int y) {
+    return Math.clamp((y - originY) / cellSize, 0, rows - 1);
+  }
+}
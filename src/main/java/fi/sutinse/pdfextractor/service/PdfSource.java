@@ -0,0 +1,53 @@
+package fi.sutinse.pdfextractor.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+/**
+ * PDF input that can be loaded more than once: bytes already in memory, or a file that PDFBox
+ * reads by random access without copying it to the heap.
+ */
+public sealed interface PdfSource {
+
+  /** Loads the document; the caller must close it */
+  PDDocument load() throws IOException;
+
+  /** Size of the PDF in bytes */
+  long size();
+
+  /** Factory method for PDF data held in memory */
+  static PdfSource of(byte[] data) {
+    return new InMemory(data);
+  }
+
+  /** Factory method for a PDF file read in place */
+  static PdfSource of(Path file) throws IOException {
+    return new OnDisk(file, Files.size(file));
+  }
+
+  /** PDF bytes in memory */
+  record InMemory(byte[] data) implements PdfSource {
+
+    @Override
+    public PDDocument load() throws IOException {
+      return Loader.loadPDF(data);
+    }
+
+    @Override
+    public long size() {
+      return data.length;
+    }
+  }
+
+  /** PDF file loaded through a buffered random-access reader */
+  record OnDisk(Path file, long size) implements PdfSource {
+
+    @Override
+    public PDDocument load() throws IOException {
+      return Loader.loadPDF(file.toFile());
+    }
+  }
+}
@@ -0,0 +1,288 @@
+package fi.sutinse.pdfextractor.service;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.quarkus.runtime.configuration.MemorySize;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Process-wide memory budget for rendered page images. Before rendering, a page reserves its pixel
+ * buffer size, estimated from the page size and resolution, and releases it once OCR is done, so
+ * the memory held by renders stays bounded whatever the mix of requests and page formats. A
+ * reservation that does not fit waits for other pages to finish; if the wait times out, the page
+ * is rendered at the highest lower resolution that fits, down to a minimum. A page too large for
+ * the whole budget at the minimum resolution is rendered alone.
+ */
+@ApplicationScoped
+public class RenderMemoryBudget {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(RenderMemoryBudget.class);
+
+  /** PDFBox renders RGB pages into {@code TYPE_INT_RGB} images, one int per pixel */
+  static final int BYTES_PER_PIXEL = 4;
+
+  private static final float POINTS_PER_INCH = 72;
+
+  private static final AttributeKey<Long> WAIT_ATTRIBUTE =
+      AttributeKey.longKey("pdf.render.memory_wait_ms");
+
+  /** Budget in bytes, 0 for a quarter of the maximum heap */
+  @ConfigProperty(name = "extraction.render.memory-budget", defaultValue = "0")
+  MemorySize memoryBudget;
+
+  @ConfigProperty(name = "extraction.render.max-wait", defaultValue = "PT10S")
+  Duration maxWait;
+
+  @ConfigProperty(name = "extraction.render.min-dpi", defaultValue = "150")
+  int minDpi;
+
+  private final ReentrantLock lock = new ReentrantLock(true);
+  private final Condition memoryFreed = lock.newCondition();
+  private long budgetBytes;
+  private long reservedBytes;
+  private int active;
+  private int waiting;
+  private final AtomicLong reservations = new AtomicLong();
+  private final AtomicLong downscaled = new AtomicLong();
+  private final AtomicLong waited = new AtomicLong();
+  private final AtomicLong totalWaitNanos = new AtomicLong();
+
+  @PostConstruct
+  void init() {
+    long configured = memoryBudget.asLongValue();
+    budgetBytes = configured > 0 ? configured : Runtime.getRuntime().maxMemory() / 4;
+    LOGGER.info(
+        "Render memory budget: {} MB, max wait {}, min {} DPI",
+        budgetBytes / (1024 * 1024),
+        maxWait,
+        minDpi);
+  }
+
+  /**
+   * Estimated pixel buffer size of a page rendered at a resolution
+   *
+   * @param widthPoints Page width in PDF points
+   * @param heightPoints Page height in PDF points
+   * @param dpi Render resolution
+   * @return Buffer size in bytes
+   */
+  static long estimateBytes(float widthPoints, float heightPoints, int dpi) {
+    long width = (long) Math.ceil(widthPoints / POINTS_PER_INCH * dpi);
+    long height = (long) Math.ceil(heightPoints / POINTS_PER_INCH * dpi);
+    return width * height * BYTES_PER_PIXEL;
+  }
+
+  /**
+   * Highest resolution at which a page fits in a number of bytes
+   *
+   * @return Resolution, 0 if the page does not fit even at 1 DPI
+   */
+  static int fittingDpi(float widthPoints, float heightPoints, long bytes) {
+    double squareInches = widthPoints / POINTS_PER_INCH * (heightPoints / POINTS_PER_INCH);
+    int dpi = (int) Math.sqrt((double) bytes / BYTES_PER_PIXEL / squareInches);
+    // Rounding up of the pixel dimensions can take the estimate just over
+    while (dpi > 0 && estimateBytes(widthPoints, heightPoints, dpi) > bytes) {
+      dpi--;
+    }
+    return dpi;
+  }
+
+  /**
+   * Reserves memory for rendering a page, waiting or lowering the resolution while the budget is
+   * exhausted
+   *
+   * @param widthPoints Page width in PDF points
+   * @param heightPoints Page height in PDF points
+   * @param dpi Requested render resolution
+   * @return Reservation with the resolution to render at, to close once the image is released
+   * @throws OcrOverloadedException if no memory becomes available even for the minimum resolution
+   */
+  public Reservation reserve(float widthPoints, float heightPoints, int dpi) {
+    reservations.incrementAndGet();
+    int lowestDpi = Math.min(dpi, minDpi);
+    long bytes = estimateBytes(widthPoints, heightPoints, dpi);
+    if (bytes > budgetBytes) {
+      // Would never fit: render at the resolution that fills the budget, alone if need be
+      int fitting = Math.max(lowestDpi, fittingDpi(widthPoints, heightPoints, budgetBytes));
+      long fittingBytes = estimateBytes(widthPoints, heightPoints, fitting);
+      if (fitting < dpi) {
+        downscaled.incrementAndGet();
+      }
+      return acquire(fitting, fittingBytes, Math.min(fittingBytes, budgetBytes));
+    }
+
+    lock.lock();
+    try {
+      if (await(bytes, maxWait.toNanos())) {
+        return grant(dpi, bytes, bytes);
+      }
+      // Timed out: take what is free now, if that still gives a usable resolution
+      int fitting = fittingDpi(widthPoints, heightPoints, budgetBytes - reservedBytes);
+      if (fitting >= lowestDpi) {
+        downscaled.incrementAndGet();
+        long fittingBytes = estimateBytes(widthPoints, heightPoints, fitting);
+        return grant(fitting, fittingBytes, fittingBytes);
+      }
+    } finally {
+      lock.unlock();
+    }
+
+    if (lowestDpi < dpi) {
+      downscaled.incrementAndGet();
+    }
+    long lowestBytes = estimateBytes(widthPoints, heightPoints, lowestDpi);
+    return acquire(lowestDpi, lowestBytes, lowestBytes);
+  }
+
+  /** Waits up to the maximum wait for a reservation, then sheds the page */
+  private Reservation acquire(int dpi, long bytes, long reservedSize) {
+    lock.lock();
+    try {
+      if (await(reservedSize, maxWait.toNanos())) {
+        return grant(dpi, bytes, reservedSize);
+      }
+    } finally {
+      lock.unlock();
+    }
+    throw new OcrOverloadedException(
+        "Render memory exhausted, timed out after " + maxWait.toSeconds() + " s", maxWait);
+  }
+
+  /** Waits with the lock held until the bytes are free; true if they are */
+  private boolean await(long bytes, long timeoutNanos) {
+    if (budgetBytes - reservedBytes >= bytes) {
+      return true;
+    }
+    waiting++;
+    long start = System.nanoTime();
+    long remaining = timeoutNanos;
+    try {
+      while (budgetBytes - reservedBytes < bytes && remaining > 0) {
+        remaining = memoryFreed.awaitNanos(remaining);
+      }
+      return budgetBytes - reservedBytes >= bytes;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new OcrOverloadedException("Interrupted while waiting for render memory", maxWait);
+    } finally {
+      waiting--;
+      long waitNanos = System.nanoTime() - start;
+      waited.incrementAndGet();
+      totalWaitNanos.addAndGet(waitNanos);
+      Span.current()
+          .addEvent(
+              "render.memory.wait",
+              Attributes.of(WAIT_ATTRIBUTE, TimeUnit.NANOSECONDS.toMillis(waitNanos)));
+    }
+  }
+
+  private Reservation grant(int dpi, long bytes, long reservedSize) {
+    reservedBytes += reservedSize;
+    active++;
+    return new Reservation(dpi, bytes, reservedSize);
+  }
+
+  /** Configured budget in bytes */
+  public long budgetBytes() {
+    return budgetBytes;
+  }
+
+  /** Bytes currently reserved by pages being rendered or recognized */
+  public long reservedBytes() {
+    lock.lock();
+    try {
+      return reservedBytes;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Pages holding a reservation */
+  public int active() {
+    lock.lock();
+    try {
+      return active;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Pages waiting for memory */
+  public int waiting() {
+    lock.lock();
+    try {
+      return waiting;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Reservations requested so far */
+  long reservations() {
+    return reservations.get();
+  }
+
+  /** Reservations granted at a lower resolution than requested */
+  long downscaled() {
+    return downscaled.get();
+  }
+
+  /** Number of reservations that had to wait for memory */
+  long waits() {
+    return waited.get();
+  }
+
+  /** Total time reservations have waited for memory */
+  double totalWaitNanos() {
+    return totalWaitNanos.get();
+  }
+
+  /** Reserved render memory, released once when closed */
+  public final class Reservation implements AutoCloseable {
+    private final int dpi;
+    private final long bytes;
+    private final long reservedSize;
+    private boolean released;
+
+    private Reservation(int dpi, long bytes, long reservedSize) {
+      this.dpi = dpi;
+      this.bytes = bytes;
+      this.reservedSize = reservedSize;
+    }
+
+    /** Resolution to render the page at */
+    public int dpi() {
+      return dpi;
+    }
+
+    /** Estimated pixel buffer size at that resolution */
+    public long bytes() {
+      return bytes;
+    }
+
+    @Override
+    public void close() {
+      lock.lock();
+      try {
+        if (!released) {
+          released = true;
+          reservedBytes -= reservedSize;
+          active--;
+          memoryFreed.signalAll();
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+}
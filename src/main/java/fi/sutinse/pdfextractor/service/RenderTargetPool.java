@@ -0,0 +1,157 @@
+package fi.sutinse.pdfextractor.service;
+
+import io.quarkus.runtime.configuration.MemorySize;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pool of page images reused across renders. A page image at OCR resolution is tens of megabytes,
+ * a humongous object for G1 that fragments regions when allocated and dropped for every page.
+ * Images are pooled in size buckets, each side rounded up to {@link #BUCKET_PIXELS}, and a target
+ * is a view of the requested size onto a pooled image. Idle images are kept up to a byte limit.
+ */
+@ApplicationScoped
+public class RenderTargetPool {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(RenderTargetPool.class);
+
+  /** Granularity of bucket sizes; A4 and Letter at 300 DPI share a bucket */
+  static final int BUCKET_PIXELS = 256;
+
+  /** Bytes of idle images to keep, 0 to disable pooling */
+  @ConfigProperty(name = "extraction.render.pool-max-bytes", defaultValue = "128M")
+  MemorySize poolMaxBytes;
+
+  private long maxPooledBytes;
+  private final Map<Long, ArrayDeque<BufferedImage>> idle = new HashMap<>();
+  private long pooledBytes;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong discarded = new AtomicLong();
+
+  @PostConstruct
+  void init() {
+    maxPooledBytes = poolMaxBytes.asLongValue();
+    LOGGER.info("Render target pool: {} MB of idle page images", maxPooledBytes / (1024 * 1024));
+  }
+
+  /** Side length rounded up to the bucket granularity */
+  static int bucket(int pixels) {
+    return (pixels + BUCKET_PIXELS - 1) / BUCKET_PIXELS * BUCKET_PIXELS;
+  }
+
+  /** Bytes held by a pooled image, one int per pixel */
+  static long bytes(BufferedImage image) {
+    return (long) image.getWidth() * image.getHeight() * RenderMemoryBudget.BYTES_PER_PIXEL;
+  }
+
+  /**
+   * Takes a white RGB render target, reusing a pooled image of the same bucket if one is idle
+   *
+   * @param width Image width in pixels
+   * @param height Image height in pixels
+   * @return Render target, to close once the image is no longer used
+   */
+  public RenderTarget acquire(int width, int height) {
+    int bucketWidth = bucket(width);
+    int bucketHeight = bucket(height);
+    BufferedImage pooled = take(key(bucketWidth, bucketHeight));
+    if (pooled != null) {
+      hits.incrementAndGet();
+    } else {
+      misses.incrementAndGet();
+      pooled = new BufferedImage(bucketWidth, bucketHeight, BufferedImage.TYPE_INT_RGB);
+    }
+
+    // The view shares the pooled raster, so only the requested area is cleared and rendered
+    BufferedImage image = pooled.getSubimage(0, 0, width, height);
+    Graphics2D graphics = image.createGraphics();
+    try {
+      graphics.setBackground(Color.WHITE);
+      graphics.clearRect(0, 0, width, height);
+    } finally {
+      graphics.dispose();
+    }
+    return new RenderTarget(pooled, image);
+  }
+
+  private synchronized BufferedImage take(long key) {
+    ArrayDeque<BufferedImage> images = idle.get(key);
+    BufferedImage image = images != null ? images.pollLast() : null;
+    if (image != null) {
+      pooledBytes -= bytes(image);
+    }
+    return image;
+  }
+
+  private synchronized void release(BufferedImage image) {
+    long size = bytes(image);
+    if (pooledBytes + size > maxPooledBytes) {
+      // Left to the garbage collector; the pool never grows past its limit
+      discarded.incrementAndGet();
+      return;
+    }
+    idle.computeIfAbsent(key(image.getWidth(), image.getHeight()), k -> new ArrayDeque<>())
+        .addLast(image);
+    pooledBytes += size;
+  }
+
+  private static long key(int width, int height) {
+    return (long) width << 32 | height;
+  }
+
+  /** Bytes of idle pooled images */
+  public synchronized long pooledBytes() {
+    return pooledBytes;
+  }
+
+  /** Targets served from an idle pooled image */
+  long hits() {
+    return hits.get();
+  }
+
+  /** Targets that needed a new image */
+  long misses() {
+    return misses.get();
+  }
+
+  /** Released images dropped because the pool was full */
+  long discarded() {
+    return discarded.get();
+  }
+
+  /** Page image borrowed from the pool, returned once when closed */
+  public final class RenderTarget implements AutoCloseable {
+    private final BufferedImage pooled;
+    private final BufferedImage image;
+    private boolean released;
+
+    private RenderTarget(BufferedImage pooled, BufferedImage image) {
+      this.pooled = pooled;
+      this.image = image;
+    }
+
+    /** Image of the requested size to render into */
+    public BufferedImage image() {
+      return image;
+    }
+
+    @Override
+    public void close() {
+      if (!released) {
+        released = true;
+        release(pooled);
+      }
+    }
+  }
+}
@@ -0,0 +1,229 @@
+package fi.sutinse.pdfextractor.service;
+
+import fi.sutinse.pdfextractor.dto.TextElement;
+import fi.sutinse.pdfextractor.dto.TextLocation;
+import fi.sutinse.pdfextractor.model.DocumentType;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntPredicate;
+import java.util.regex.Pattern;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Service for extracting structured data from OCR word boxes by geometry. Labels are located with
+ * the fuzzy schema matcher and their values are searched to the right on the same baseline, then
+ * below the label, using a per-page spatial index.
+ */
+@ApplicationScoped
+public class SpatialFieldExtractionService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SpatialFieldExtractionService.class);
+
+  private static final int MAX_VALUE_WORDS = 12;
+
+  // Value cleanup runs for every candidate word box, so the patterns are compiled once
+  private static final Pattern LEADING_SEPARATORS = Pattern.compile("^[\\s:;.,-]+");
+  private static final Pattern TRAILING_PUNCTUATION = Pattern.compile("[,;.\\s]+$");
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+  @Inject StructuredDataExtractionService structuredDataService;
+
+  @ConfigProperty(name = "extraction.spatial.enabled", defaultValue = "true")
+  boolean enabled;
+
+  @ConfigProperty(name = "extraction.spatial.max-right-gap", defaultValue = "15")
+  double maxRightGap;
+
+  @ConfigProperty(name = "extraction.spatial.max-below-gap", defaultValue = "3")
+  double maxBelowGap;
+
+  /** Field value located on a page */
+  public record LocatedValue(String value, TextLocation location, int cost) {}
+
+  /**
+   * Extracts field values from word boxes using geometric label/value relationships
+   *
+   * @param elements OCR text elements with locations
+   * @param documentType Detected document type
+   * @return Located values by field key, empty if spatial extraction is disabled
+   */
+  public Map<String, LocatedValue> extractFields(
+      List<TextElement> elements, DocumentType documentType) {
+    if (!enabled || elements == null || elements.isEmpty()) {
+      return Map.of();
+    }
+
+    FuzzyLabelMatcher matcher = structuredDataService.labelMatcher(documentType);
+
+    // Group words by page, keeping OCR reading order
+    Map<Integer, List<TextElement>> pages = new TreeMap<>();
+    for (TextElement element : elements) {
+      if (element.locations() != null && !element.locations().isEmpty()) {
+        pages
+            .computeIfAbsent(element.locations().get(0).pageNumber(), page -> new ArrayList<>())
+            .add(element);
+      }
+    }
+
+    Map<String, LocatedValue> fields = new HashMap<>();
+    for (List<TextElement> words : pages.values()) {
+      extractFromPage(words, matcher, fields);
+    }
+
+    LOGGER.debug("Spatial extraction located {} fields on {} pages", fields.size(), pages.size());
+    return fields;
+  }
+
+  private void extractFromPage(
+      List<TextElement> words, FuzzyLabelMatcher matcher, Map<String, LocatedValue> fields) {
+    int count = words.size();
+    int[] wordStarts = new int[count];
+    List<TextLocation> boxes = new ArrayList<>(count);
+    StringBuilder pageText = new StringBuilder();
+    for (int i = 0; i < count; i++) {
+      if (i > 0) {
+        pageText.append(' ');
+      }
+      TextElement word = words.get(i);
+      wordStarts[i] = pageText.length();
+      pageText.append(word.text());
+      boxes.add(word.locations().get(0));
+    }
+
+    List<FuzzyLabelMatcher.LabelMatch> matches = new ArrayList<>(matcher.findAll(pageText));
+    if (matches.isEmpty()) {
+      return;
+    }
+
+    // Words that belong to any label are never taken as values
+    boolean[] labelWords = new boolean[count];
+    for (FuzzyLabelMatcher.LabelMatch match : matches) {
+      int last = wordAt(wordStarts, match.end() - 1);
+      for (int i = wordAt(wordStarts, match.start()); i <= last; i++) {
+        labelWords[i] = true;
+      }
+    }
+
+    PageSpatialIndex index = PageSpatialIndex.of(boxes);
+    matches.sort(
+        Comparator.comparingInt(FuzzyLabelMatcher.LabelMatch::cost)
+            .thenComparingInt(FuzzyLabelMatcher.LabelMatch::start));
+
+    for (FuzzyLabelMatcher.LabelMatch match : matches) {
+      LocatedValue existing = fields.get(match.key());
+      if (existing != null && existing.cost() <= match.cost()) {
+        continue;
+      }
+
+      int first = wordAt(wordStarts, match.start());
+      int last = wordAt(wordStarts, match.end() - 1);
+      LocatedValue value = locateValue(words, wordStarts, index, labelWords, match, first, last);
+      if (value != null) {
+        fields.put(match.key(), value);
+      }
+    }
+  }
+
+  private LocatedValue locateValue(
+      List<TextElement> words,
+      int[] wordStarts,
+      PageSpatialIndex index,
+      boolean[] labelWords,
+      FuzzyLabelMatcher.LabelMatch match,
+      int first,
+      int last) {
+    // Value glued to the label inside the same OCR word ("Eräpäivä:31.12.2024")
+    TextElement lastWord = words.get(last);
+    String inline = cleanValue(lastWord.text().substring(match.end() - wordStarts[last]));
+    if (inline != null) {
+      return new LocatedValue(inline, lastWord.locations().get(0), match.cost());
+    }
+
+    int l = Integer.MAX_VALUE;
+    int t = Integer.MAX_VALUE;
+    int r = Integer.MIN_VALUE;
+    int b = Integer.MIN_VALUE;
+    for (int i = first; i <= last; i++) {
+      l = Math.min(l, index.left(i));
+      t = Math.min(t, index.top(i));
+      r = Math.max(r, index.right(i));
+      b = Math.max(b, index.bottom(i));
+    }
+    int height = Math.max(1, index.bottom(last) - index.top(last));
+
+    IntPredicate isValueWord =
+        i -> !labelWords[i] && cleanValue(words.get(i).text()) != null;
+
+    int valueWord = index.nearestRightOf(l, t, r, b, (int) (height * maxRightGap), isValueWord);
+    if (valueWord < 0) {
+      valueWord = index.nearestBelow(l, t, r, b, (int) (height * maxBelowGap), isValueWord);
+    }
+    if (valueWord < 0) {
+      return null;
+    }
+
+    // Continue along the value line while words stay close together
+    List<Integer> valueWords = new ArrayList<>();
+    valueWords.add(valueWord);
+    int current = valueWord;
+    while (valueWords.size() < MAX_VALUE_WORDS) {
+      int wordHeight = index.bottom(current) - index.top(current);
+      int next = index.nextOnLine(current, wordHeight * 2, i -> !labelWords[i]);
+      if (next < 0 || valueWords.contains(next)) {
+        break;
+      }
+      valueWords.add(next);
+      current = next;
+    }
+
+    StringBuilder text = new StringBuilder();
+    int vl = Integer.MAX_VALUE;
+    int vt = Integer.MAX_VALUE;
+    int vr = Integer.MIN_VALUE;
+    int vb = Integer.MIN_VALUE;
+    for (int i : valueWords) {
+      if (!text.isEmpty()) {
+        text.append(' ');
+      }
+      text.append(words.get(i).text());
+      vl = Math.min(vl, index.left(i));
+      vt = Math.min(vt, index.top(i));
+      vr = Math.max(vr, index.right(i));
+      vb = Math.max(vb, index.bottom(i));
+    }
+
+    String value = cleanValue(text.toString());
+    if (value == null) {
+      return null;
+    }
+
+    // All words of the page share the label's page number
+    int page = lastWord.locations().get(0).pageNumber();
+    return new LocatedValue(value, TextLocation.of(vl, vt, vr - vl, vb - vt, page), match.cost());
+  }
+
+  /** Index of the word containing the given page text offset */
+  private static int wordAt(int[] wordStarts, int offset) {
+    int position = Arrays.binarySearch(wordStarts, offset);
+    return position >= 0 ? position : -position - 2;
+  }
+
+  /** Strips label separators and trailing punctuation, null if nothing meaningful remains */
+  private static String cleanValue(String value) {
+    String cleaned = LEADING_SEPARATORS.matcher(value).replaceFirst("");
+    cleaned = TRAILING_PUNCTUATION.matcher(cleaned).replaceFirst("").trim();
+    if (cleaned.isEmpty() || cleaned.codePoints().noneMatch(Character::isLetterOrDigit)) {
+      return null;
+    }
+    return WHITESPACE.matcher(cleaned).replaceAll(" ");
+  }
+}
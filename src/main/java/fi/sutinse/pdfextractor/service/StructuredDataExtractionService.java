@@ -4,6 +4,8 @@ import fi.sutinse.pdfextractor.model.DocumentSchema;
 import fi.sutinse.pdfextractor.model.DocumentType;
 import fi.sutinse.pdfextractor.model.Language;
 import jakarta.enterprise.context.ApplicationScoped;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -18,6 +20,30 @@ public class StructuredDataExtractionService {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(StructuredDataExtractionService.class);
 
+  // Value shapes tried after a label, in order of preference
+  private static final List<Pattern> VALUE_PATTERNS =
+      List.of(
+          Pattern.compile("\\s*:?\\s*([^\\n\\r]*)"),
+          Pattern.compile("\\s*:?\\s*([0-9]+[.,]?[0-9]*)"),
+          Pattern.compile("\\s*:?\\s*([0-9]{1,2}[./-][0-9]{1,2}[./-][0-9]{2,4})"),
+          Pattern.compile("\\s*:?\\s*([0-9]+[.,][0-9]{2}\\s*[€$£]?)"));
+
+  // Labels must not start or end inside a word
+  private static final String LABEL_START = "(?<![\\p{L}\\p{N}])";
+  private static final String LABEL_END = "(?![\\p{L}\\p{N}])";
+
+  // Fuzzy label matchers precompiled once per document type schema
+  private final Map<DocumentType, FuzzyLabelMatcher> labelMatchers =
+      new EnumMap<>(DocumentType.class);
+
+  public StructuredDataExtractionService() {
+    for (DocumentType documentType : DocumentType.values()) {
+      labelMatchers.put(
+          documentType,
+          FuzzyLabelMatcher.forSchema(DocumentSchema.getSchemaForDocumentType(documentType)));
+    }
+  }
+
   /**
    * Extracts structured data from text using document type schema
    *
@@ -39,12 +65,36 @@ public class StructuredDataExtractionService {
     Map<String, DocumentSchema.FieldSchema> schema =
         DocumentSchema.getSchemaForDocumentType(documentType);
     Map<String, Object> structuredData = new HashMap<>();
+    List<FuzzyLabelMatcher.LabelMatch> fuzzyMatches = null;
 
     for (Map.Entry<String, DocumentSchema.FieldSchema> entry : schema.entrySet()) {
       String fieldKey = entry.getKey();
       DocumentSchema.FieldSchema fieldSchema = entry.getValue();
+      ExtractionEvents.FieldExtraction event = new ExtractionEvents.FieldExtraction();
+      event.begin();
 
       String extractedValue = extractFieldValue(text, fieldSchema, language);
+
+      // Fall back to error-tolerant label matching for OCR-garbled labels (single scan per text)
+      boolean fuzzy = false;
+      if (extractedValue == null) {
+        if (fuzzyMatches == null) {
+          fuzzyMatches = labelMatcher(documentType).findAll(text);
+        }
+        extractedValue = extractFuzzyFieldValue(text, fieldKey, fuzzyMatches);
+        fuzzy = extractedValue != null;
+      }
+
+      event.end();
+      if (event.shouldCommit()) {
+        event.documentId = ExtractionEvents.currentDocument();
+        event.field = fieldKey;
+        event.textLength = text.length();
+        event.matched = extractedValue != null;
+        event.fuzzy = fuzzy;
+        event.commit();
+      }
+
       if (extractedValue != null && !extractedValue.trim().isEmpty()) {
         structuredData.put(fieldKey, extractedValue.trim());
         LOGGER.debug("Extracted field '{}': '{}'", fieldKey, extractedValue.trim());
@@ -55,6 +105,16 @@ public class StructuredDataExtractionService {
     return structuredData;
   }
 
+  /**
+   * Gets the precompiled fuzzy label matcher for a document type schema
+   *
+   * @param documentType Document type
+   * @return Label matcher over all language patterns of the schema
+   */
+  public FuzzyLabelMatcher labelMatcher(DocumentType documentType) {
+    return labelMatchers.get(documentType);
+  }
+
   /**
    * Extracts value for a specific field from text
    *
@@ -96,6 +156,59 @@ public class StructuredDataExtractionService {
     return null;
   }
 
+  /**
+   * Extracts value for a field using fuzzy label matches, cheapest and earliest match first
+   *
+   * @param text Raw text content
+   * @param fieldKey Field key to extract
+   * @param matches Fuzzy label matches found in the text
+   * @return Extracted value or null if not found
+   */
+  private String extractFuzzyFieldValue(
+      String text, String fieldKey, List<FuzzyLabelMatcher.LabelMatch> matches) {
+    List<FuzzyLabelMatcher.LabelMatch> candidates =
+        matches.stream()
+            .filter(match -> match.key().equals(fieldKey))
+            .sorted(
+                Comparator.comparingInt(FuzzyLabelMatcher.LabelMatch::cost)
+                    .thenComparingInt(FuzzyLabelMatcher.LabelMatch::start))
+            .toList();
+
+    for (FuzzyLabelMatcher.LabelMatch match : candidates) {
+      String value = extractValueAfter(text, match.end());
+      if (value != null) {
+        LOGGER.debug(
+            "Fuzzy label '{}' matched '{}' with cost {}",
+            match.label(),
+            text.substring(match.start(), match.end()),
+            match.cost());
+        return value;
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Extracts value that directly follows a label ending at the given offset
+   *
+   * @param text Raw text content
+   * @param offset Offset just after the label
+   * @return Extracted value or null if not found
+   */
+  private String extractValueAfter(String text, int offset) {
+    for (Pattern valuePattern : VALUE_PATTERNS) {
+      Matcher matcher = valuePattern.matcher(text).region(offset, text.length());
+      if (matcher.lookingAt()) {
+        String value = cleanExtractedValue(matcher.group(1).trim());
+        if (value != null) {
+          return value;
+        }
+      }
+    }
+    return null;
+  }
+
   /**
    * Gets appropriate patterns based on detected language
    *
@@ -132,7 +245,8 @@ public class StructuredDataExtractionService {
     
     // Pattern 1: "field: value" or "field value" 
     Pattern colonPattern = Pattern.compile(
-        "(?i)" + Pattern.quote(fieldPattern) + "\\s*:?\\s*([^\\n\\r]*)", 
+        "(?i)" + LABEL_START + Pattern.quote(fieldPattern) + LABEL_END
+            + "\\s*:?\\s*([^\\n\\r]*)", 
         Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
     
     Matcher matcher = colonPattern.matcher(text);
@@ -145,7 +259,8 @@ public class StructuredDataExtractionService {
 
     // Pattern 2: Look for numeric values after the field name
     Pattern numericPattern = Pattern.compile(
-        "(?i)" + Pattern.quote(fieldPattern) + "\\s*:?\\s*([0-9]+[.,]?[0-9]*)", 
+        "(?i)" + LABEL_START + Pattern.quote(fieldPattern) + LABEL_END
+            + "\\s*:?\\s*([0-9]+[.,]?[0-9]*)", 
         Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
     
     matcher = numericPattern.matcher(text);
@@ -155,7 +270,8 @@ public class StructuredDataExtractionService {
 
     // Pattern 3: Look for date patterns after field name
     Pattern datePattern = Pattern.compile(
-        "(?i)" + Pattern.quote(fieldPattern) + "\\s*:?\\s*([0-9]{1,2}[./-][0-9]{1,2}[./-][0-9]{2,4})", 
+        "(?i)" + LABEL_START + Pattern.quote(fieldPattern) + LABEL_END
+            + "\\s*:?\\s*([0-9]{1,2}[./-][0-9]{1,2}[./-][0-9]{2,4})", 
         Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
     
     matcher = datePattern.matcher(text);
@@ -165,7 +281,8 @@ public class StructuredDataExtractionService {
 
     // Pattern 4: Look for currency amounts after field name
     Pattern currencyPattern = Pattern.compile(
-        "(?i)" + Pattern.quote(fieldPattern) + "\\s*:?\\s*([0-9]+[.,][0-9]{2}\\s*[€$£]?)", 
+        "(?i)" + LABEL_START + Pattern.quote(fieldPattern) + LABEL_END
+            + "\\s*:?\\s*([0-9]+[.,][0-9]{2}\\s*[€$£]?)", 
         Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
     
     matcher = currencyPattern.matcher(text);
@@ -1,21 +1,25 @@
 package fi.sutinse.pdfextractor.service;
 
+import fi.sutinse.pdfextractor.dto.ExtractionMethod;
 import fi.sutinse.pdfextractor.dto.StructuredText;
-import fi.sutinse.pdfextractor.dto.TextElement;
-import fi.sutinse.pdfextractor.dto.TextLocation;
+import fi.sutinse.pdfextractor.dto.WordBoxes;
 import fi.sutinse.pdfextractor.model.Language;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
 import net.sourceforge.tess4j.Tesseract;
 import net.sourceforge.tess4j.TesseractException;
 import net.sourceforge.tess4j.Word;
-import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.pdfbox.rendering.RenderDestination;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,7 +30,24 @@ public class TesseractOcrService {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(TesseractOcrService.class);
 
-  private final Tesseract tesseract;
+  /** Render resolution of pages for OCR */
+  static final int OCR_DPI = 300;
+
+  private static final float POINTS_PER_INCH = 72;
+
+  /** Neural nets LSTM engine */
+  private static final int OCR_ENGINE_MODE = 1;
+
+  /** Automatic page segmentation with OSD */
+  private static final int PAGE_SEG_MODE = 1;
+
+  @Inject OcrAdmissionController admissionController;
+
+  @Inject RenderMemoryBudget renderMemoryBudget;
+
+  @Inject RenderTargetPool renderTargetPool;
+
+  @Inject ExtractionMetrics metrics;
 
   @ConfigProperty(name = "tesseract.language", defaultValue = "fin")
   String defaultLanguage;
@@ -34,26 +55,27 @@ public class TesseractOcrService {
   @ConfigProperty(name = "tesseract.auto-detect-language", defaultValue = "true")
   boolean autoDetectLanguage;
 
-  public TesseractOcrService() {
-    this.tesseract = new Tesseract();
-    configureTesseract();
-  }
-
-  private void configureTesseract() {
+  /**
+   * Creates an OCR engine configured with the default language. Engines keep per-call settings
+   * such as the language, so every extraction gets its own engine and concurrent requests never
+   * change each other's language.
+   */
+  private Tesseract newEngine() {
+    Tesseract tesseract = new Tesseract();
     try {
       // Set default language (can be overridden per request)
       Language defaultLang = Language.fromString(defaultLanguage);
       tesseract.setLanguage(defaultLang.getTesseractCode());
 
       // Configure OCR engine mode and page segmentation
-      tesseract.setOcrEngineMode(1); // Neural nets LSTM engine
-      tesseract.setPageSegMode(1); // Automatic page segmentation with OSD
+      tesseract.setOcrEngineMode(OCR_ENGINE_MODE);
+      tesseract.setPageSegMode(PAGE_SEG_MODE);
 
       // Additional configuration for better text recognition
       tesseract.setVariable("preserve_interword_spaces", "1");
-      tesseract.setVariable("user_defined_dpi", "300");
+      tesseract.setVariable("user_defined_dpi", String.valueOf(OCR_DPI));
 
-      LOGGER.info(
+      LOGGER.debug(
           "TesseractOCR configured with default language: {} ({})",
           defaultLang.getEnglishName(),
           defaultLang.getTesseractCode());
@@ -61,6 +83,7 @@ public class TesseractOcrService {
     } catch (Exception e) {
       LOGGER.warn("Could not configure TesseractOCR, using default settings: {}", e.getMessage());
     }
+    return tesseract;
   }
 
   /**
@@ -86,12 +109,50 @@ public class TesseractOcrService {
    */
   public String extractTextFromPdf(byte[] pdfData, Language language)
       throws TesseractException, IOException {
-    LOGGER.debug("Starting OCR extraction for PDF data of size: {} bytes", pdfData.length);
+    return extractTextFromPdf(pdfData, language, PageProgressListener.NONE);
+  }
+
+  /**
+   * Extracts text from PDF using OCR, reporting progress after every page
+   *
+   * @param pdfData PDF file data as byte array
+   * @param language Optional language to use for OCR (null for auto-detection)
+   * @param progress Listener notified as pages are processed
+   * @return Extracted text
+   * @throws TesseractException if OCR fails
+   * @throws IOException if PDF processing fails
+   */
+  public String extractTextFromPdf(byte[] pdfData, Language language, PageProgressListener progress)
+      throws TesseractException, IOException {
+    return extractTextFromPdf(PdfSource.of(pdfData), language, progress, metrics.profiler(false));
+  }
+
+  /**
+   * Extracts text from a PDF source using OCR, reporting progress after every page
+   *
+   * @param source PDF bytes or file
+   * @param language Optional language to use for OCR (null for auto-detection)
+   * @param progress Listener notified as pages are processed
+   * @param profiler Recorder of stage and page timings
+   * @return Extracted text
+   * @throws TesseractException if OCR fails
+   * @throws IOException if PDF processing fails
+   */
+  public String extractTextFromPdf(
+      PdfSource source,
+      Language language,
+      PageProgressListener progress,
+      ExtractionProfiler profiler)
+      throws TesseractException, IOException {
+    LOGGER.debug("Starting OCR extraction for PDF data of size: {} bytes", source.size());
 
     StringBuilder extractedText = new StringBuilder();
     Language detectedLanguage = null;
+    Tesseract tesseract = newEngine();
+    String languageCode = getCurrentLanguage().getTesseractCode();
 
-    try (PDDocument document = Loader.loadPDF(pdfData)) {
+    try (OcrAdmissionController.Permit permit = admissionController.acquire();
+        PDDocument document = profiler.load(source, ExtractionMethod.TESSERACT_OCR)) {
       PDFRenderer renderer = new PDFRenderer(document);
       int pageCount = document.getNumberOfPages();
 
@@ -100,12 +161,13 @@ public class TesseractOcrService {
       // First pass: extract some text to detect language if needed
       if (language == null && autoDetectLanguage && pageCount > 0) {
         try {
-          BufferedImage firstPageImage = renderer.renderImageWithDPI(0, 300, ImageType.RGB);
-          String firstPageText = tesseract.doOCR(firstPageImage);
+          String firstPageText =
+              ocrPage(tesseract, document, renderer, 0, languageCode, profiler);
           detectedLanguage = Language.detectFromContent(firstPageText);
 
           // Update tesseract language for better results
-          tesseract.setLanguage(detectedLanguage.getTesseractCode());
+          languageCode = detectedLanguage.getTesseractCode();
+          tesseract.setLanguage(languageCode);
           LOGGER.info(
               "Auto-detected language: {} ({})",
               detectedLanguage.getEnglishName(),
@@ -115,7 +177,8 @@ public class TesseractOcrService {
         }
       } else if (language != null) {
         // Use specified language
-        tesseract.setLanguage(language.getTesseractCode());
+        languageCode = language.getTesseractCode();
+        tesseract.setLanguage(languageCode);
         detectedLanguage = language;
         LOGGER.info(
             "Using specified language: {} ({})",
@@ -126,11 +189,9 @@ public class TesseractOcrService {
       // Process all pages
       for (int pageIndex = 0; pageIndex < pageCount; pageIndex++) {
         try {
-          // Render PDF page as image at high DPI for better OCR
-          BufferedImage image = renderer.renderImageWithDPI(pageIndex, 300, ImageType.RGB);
-
-          // Extract text from image using Tesseract
-          String pageText = tesseract.doOCR(image);
+          // Render the page at high DPI and extract its text using Tesseract
+          String pageText =
+              ocrPage(tesseract, document, renderer, pageIndex, languageCode, profiler);
 
           if (pageText != null && !pageText.trim().isEmpty()) {
             extractedText.append(pageText);
@@ -145,6 +206,8 @@ public class TesseractOcrService {
           LOGGER.warn("OCR failed for page {}: {}", pageIndex + 1, e.getMessage());
           // Continue with other pages
         }
+        metrics.recordPages(ExtractionMethod.TESSERACT_OCR, 1);
+        progress.pagesCompleted(pageIndex + 1, pageCount);
       }
     }
 
@@ -178,11 +241,20 @@ public class TesseractOcrService {
    */
   public String extractTextFromImage(BufferedImage image, Language language)
       throws TesseractException {
+    Tesseract tesseract = newEngine();
     if (language != null) {
       tesseract.setLanguage(language.getTesseractCode());
       LOGGER.debug("Using language {} for image OCR", language.getEnglishName());
     }
-    return tesseract.doOCR(image);
+    try (OcrAdmissionController.Permit permit = admissionController.acquire()) {
+      ExtractionProfiler.Span span =
+          metrics
+              .profiler(false)
+              .start(ExtractionMetrics.Stage.OCR, ExtractionMethod.TESSERACT_OCR);
+      String text = tesseract.doOCR(image);
+      span.end();
+      return text;
+    }
   }
 
   /**
@@ -228,15 +300,56 @@ public class TesseractOcrService {
    */
   public StructuredText extractStructuredTextFromPdf(byte[] pdfData, Language language)
       throws TesseractException, IOException {
+    return extractStructuredTextFromPdf(pdfData, language, PageProgressListener.NONE);
+  }
+
+  /**
+   * Extracts structured text with locations using OCR, reporting progress after every page
+   *
+   * @param pdfData PDF file data as byte array
+   * @param language Optional language to use for OCR (null for auto-detection)
+   * @param progress Listener notified as pages are processed
+   * @return Structured text with location information
+   * @throws TesseractException if OCR fails
+   * @throws IOException if PDF processing fails
+   */
+  public StructuredText extractStructuredTextFromPdf(
+      byte[] pdfData, Language language, PageProgressListener progress)
+      throws TesseractException, IOException {
+    return extractStructuredTextFromPdf(
+        PdfSource.of(pdfData), language, progress, metrics.profiler(false));
+  }
+
+  /**
+   * Extracts structured text with locations from a PDF source using OCR, reporting progress after
+   * every page
+   *
+   * @param source PDF bytes or file
+   * @param language Optional language to use for OCR (null for auto-detection)
+   * @param progress Listener notified as pages are processed
+   * @param profiler Recorder of stage and page timings
+   * @return Structured text with location information
+   * @throws TesseractException if OCR fails
+   * @throws IOException if PDF processing fails
+   */
+  public StructuredText extractStructuredTextFromPdf(
+      PdfSource source,
+      Language language,
+      PageProgressListener progress,
+      ExtractionProfiler profiler)
+      throws TesseractException, IOException {
     LOGGER.debug(
         "Starting OCR extraction with location data for PDF data of size: {} bytes",
-        pdfData.length);
+        source.size());
 
     StringBuilder fullTextBuilder = new StringBuilder();
-    List<TextElement> allElements = new ArrayList<>();
+    WordBoxes allElements = new WordBoxes();
     Language detectedLanguage = null;
+    Tesseract tesseract = newEngine();
+    String languageCode = getCurrentLanguage().getTesseractCode();
 
-    try (PDDocument document = Loader.loadPDF(pdfData)) {
+    try (OcrAdmissionController.Permit permit = admissionController.acquire();
+        PDDocument document = profiler.load(source, ExtractionMethod.TESSERACT_OCR)) {
       PDFRenderer renderer = new PDFRenderer(document);
       int pageCount = document.getNumberOfPages();
 
@@ -245,12 +358,13 @@ public class TesseractOcrService {
       // First pass: extract some text to detect language if needed
       if (language == null && autoDetectLanguage && pageCount > 0) {
         try {
-          BufferedImage firstPageImage = renderer.renderImageWithDPI(0, 300, ImageType.RGB);
-          String firstPageText = tesseract.doOCR(firstPageImage);
+          String firstPageText =
+              ocrPage(tesseract, document, renderer, 0, languageCode, profiler);
           detectedLanguage = Language.detectFromContent(firstPageText);
 
           // Update tesseract language for better results
-          tesseract.setLanguage(detectedLanguage.getTesseractCode());
+          languageCode = detectedLanguage.getTesseractCode();
+          tesseract.setLanguage(languageCode);
           LOGGER.info(
               "Auto-detected language: {} ({})",
               detectedLanguage.getEnglishName(),
@@ -260,7 +374,8 @@ public class TesseractOcrService {
         }
       } else if (language != null) {
         // Use specified language
-        tesseract.setLanguage(language.getTesseractCode());
+        languageCode = language.getTesseractCode();
+        tesseract.setLanguage(languageCode);
         detectedLanguage = language;
         LOGGER.info(
             "Using specified language: {} ({})",
@@ -271,34 +386,12 @@ public class TesseractOcrService {
       // Process all pages and extract words with locations
       for (int pageIndex = 0; pageIndex < pageCount; pageIndex++) {
         try {
-          // Render PDF page as image at high DPI for better OCR
-          BufferedImage image = renderer.renderImageWithDPI(pageIndex, 300, ImageType.RGB);
-
-          // Extract words with location information (using constant 2 for word level)
-          List<Word> words = tesseract.getWords(image, 2);
-
-          if (words != null && !words.isEmpty()) {
-            // Process words and build text elements with locations
-            for (Word word : words) {
-              String wordText = word.getText();
-              if (wordText != null && !wordText.trim().isEmpty()) {
-                // Create location for this word
-                TextLocation location =
-                    TextLocation.of(
-                        word.getBoundingBox().x,
-                        word.getBoundingBox().y,
-                        word.getBoundingBox().width,
-                        word.getBoundingBox().height,
-                        pageIndex + 1);
-
-                // Create text element with location
-                TextElement element = TextElement.withLocations(wordText, List.of(location));
-                allElements.add(element);
-
-                // Add to full text
-                fullTextBuilder.append(wordText).append(" ");
-              }
-            }
+          PageText page =
+              extractPage(tesseract, document, renderer, pageIndex, languageCode, profiler);
+
+          if (!page.elements().isEmpty()) {
+            allElements.addAll(page.elements());
+            fullTextBuilder.append(page.text());
 
             // Add page separator if not last page
             if (pageIndex < pageCount - 1) {
@@ -310,12 +403,14 @@ public class TesseractOcrService {
               "OCR completed for page {}/{} with {} words",
               pageIndex + 1,
               pageCount,
-              words != null ? words.size() : 0);
+              page.elements().size());
 
         } catch (Exception e) {
           LOGGER.warn("OCR failed for page {}: {}", pageIndex + 1, e.getMessage());
           // Continue with other pages
         }
+        metrics.recordPages(ExtractionMethod.TESSERACT_OCR, 1);
+        progress.pagesCompleted(pageIndex + 1, pageCount);
       }
     }
 
@@ -328,4 +423,202 @@ public class TesseractOcrService {
 
     return StructuredText.fromElements(fullText, allElements);
   }
+
+  /**
+   * Extracts words with locations from a single rendered page
+   *
+   * @param document Loaded document
+   * @param renderer Renderer of the document
+   * @param pageIndex Zero-based page index
+   * @param language Optional language to use for OCR (null for the default language)
+   * @return Page text and word elements with locations
+   * @throws IOException if page rendering fails
+   * @throws OcrOverloadedException if no OCR capacity or render memory becomes available in time
+   */
+  public PageText extractPage(
+      PDDocument document, PDFRenderer renderer, int pageIndex, Language language)
+      throws IOException {
+    Tesseract tesseract = newEngine();
+    String languageCode = getCurrentLanguage().getTesseractCode();
+    if (language != null) {
+      languageCode = language.getTesseractCode();
+      tesseract.setLanguage(languageCode);
+    }
+
+    try (OcrAdmissionController.Permit permit = admissionController.acquire()) {
+      return extractPage(
+          tesseract, document, renderer, pageIndex, languageCode, metrics.profiler(false));
+    }
+  }
+
+  private PageText extractPage(
+      Tesseract tesseract,
+      PDDocument document,
+      PDFRenderer renderer,
+      int pageIndex,
+      String languageCode,
+      ExtractionProfiler profiler)
+      throws IOException {
+    List<Word> words;
+    double scale;
+    // The reservation and the pooled image cover the page until OCR is done with it
+    try (RenderMemoryBudget.Reservation reservation = reserve(document, pageIndex);
+        RenderTargetPool.RenderTarget target =
+            renderTarget(document, pageIndex, reservation.dpi())) {
+      // Render PDF page as image at high DPI for better OCR
+      int dpi = reservation.dpi();
+      ExtractionProfiler.Span render =
+          profiler
+              .start(ExtractionMetrics.Stage.RENDER, ExtractionMethod.TESSERACT_OCR)
+              .attribute(ExtractionProfiler.PAGE_ATTRIBUTE, pageIndex + 1)
+              .attribute(ExtractionProfiler.DPI_ATTRIBUTE, dpi);
+      BufferedImage image = render(renderer, pageIndex, dpi, target);
+      long renderNanos = render.end();
+      tesseract.setVariable("user_defined_dpi", String.valueOf(dpi));
+
+      // Extract words with location information (using constant 2 for word level)
+      ExtractionProfiler.Span ocr =
+          profiler
+              .start(ExtractionMetrics.Stage.OCR, ExtractionMethod.TESSERACT_OCR)
+              .attribute(ExtractionProfiler.PAGE_ATTRIBUTE, pageIndex + 1)
+              .attribute(ExtractionProfiler.LANGUAGE_ATTRIBUTE, languageCode);
+      words = tesseract.getWords(image, 2);
+      ocr.attribute(ExtractionProfiler.WORDS_ATTRIBUTE, words != null ? words.size() : 0);
+      profiler.page(
+          pageIndex,
+          renderNanos,
+          ocr.end(),
+          (long) image.getWidth() * image.getHeight(),
+          dpi,
+          engineProfile(languageCode));
+      // Locations stay in OCR_DPI pixels when the page was rendered at a lower resolution
+      scale = (double) OCR_DPI / dpi;
+    }
+
+    StringBuilder pageText = new StringBuilder();
+    // Word boxes go to primitive columns rather than an element object per word
+    WordBoxes elements = new WordBoxes(words != null ? words.size() : 0);
+    if (words != null) {
+      for (Word word : words) {
+        String wordText = word.getText();
+        if (wordText != null && !wordText.trim().isEmpty()) {
+          Rectangle box = word.getBoundingBox();
+          elements.add(
+              wordText,
+              scale(box.x, scale),
+              scale(box.y, scale),
+              scale(box.width, scale),
+              scale(box.height, scale),
+              pageIndex + 1);
+          pageText.append(wordText).append(" ");
+        }
+      }
+    }
+
+    return new PageText(pageText.toString(), elements);
+  }
+
+  /** Renders a page and recognizes its text, recording render and OCR time */
+  private String ocrPage(
+      Tesseract tesseract,
+      PDDocument document,
+      PDFRenderer renderer,
+      int pageIndex,
+      String languageCode,
+      ExtractionProfiler profiler)
+      throws IOException, TesseractException {
+    try (RenderMemoryBudget.Reservation reservation = reserve(document, pageIndex);
+        RenderTargetPool.RenderTarget target =
+            renderTarget(document, pageIndex, reservation.dpi())) {
+      int dpi = reservation.dpi();
+      ExtractionProfiler.Span render =
+          profiler
+              .start(ExtractionMetrics.Stage.RENDER, ExtractionMethod.TESSERACT_OCR)
+              .attribute(ExtractionProfiler.PAGE_ATTRIBUTE, pageIndex + 1)
+              .attribute(ExtractionProfiler.DPI_ATTRIBUTE, dpi);
+      BufferedImage image = render(renderer, pageIndex, dpi, target);
+      long renderNanos = render.end();
+      tesseract.setVariable("user_defined_dpi", String.valueOf(dpi));
+
+      ExtractionProfiler.Span ocr =
+          profiler
+              .start(ExtractionMetrics.Stage.OCR, ExtractionMethod.TESSERACT_OCR)
+              .attribute(ExtractionProfiler.PAGE_ATTRIBUTE, pageIndex + 1)
+              .attribute(ExtractionProfiler.LANGUAGE_ATTRIBUTE, languageCode);
+      String text = tesseract.doOCR(image);
+      ocr.attribute(ExtractionProfiler.WORDS_ATTRIBUTE, countWords(text));
+      profiler.page(
+          pageIndex,
+          renderNanos,
+          ocr.end(),
+          (long) image.getWidth() * image.getHeight(),
+          dpi,
+          engineProfile(languageCode));
+      return text;
+    }
+  }
+
+  /** Reserves render memory for a page at {@link #OCR_DPI}, or the lower resolution granted */
+  private RenderMemoryBudget.Reservation reserve(PDDocument document, int pageIndex) {
+    // Rendering uses the crop box; rotation swaps the sides but not the pixel count
+    PDRectangle box = document.getPage(pageIndex).getCropBox();
+    return renderMemoryBudget.reserve(box.getWidth(), box.getHeight(), OCR_DPI);
+  }
+
+  /** Takes a pooled image sized like PDFBox's own render of the page at a resolution */
+  private RenderTargetPool.RenderTarget renderTarget(PDDocument document, int pageIndex, int dpi) {
+    PDPage page = document.getPage(pageIndex);
+    PDRectangle box = page.getCropBox();
+    float scale = dpi / POINTS_PER_INCH;
+    int width = Math.max((int) Math.floor(box.getWidth() * scale), 1);
+    int height = Math.max((int) Math.floor(box.getHeight() * scale), 1);
+    return page.getRotation() % 180 != 0
+        ? renderTargetPool.acquire(height, width)
+        : renderTargetPool.acquire(width, height);
+  }
+
+  /** Renders a page into a pooled image instead of allocating a new one per page */
+  private static BufferedImage render(
+      PDFRenderer renderer, int pageIndex, int dpi, RenderTargetPool.RenderTarget target)
+      throws IOException {
+    float scale = dpi / POINTS_PER_INCH;
+    Graphics2D graphics = target.image().createGraphics();
+    try {
+      // Same background and destination as PDFRenderer.renderImage
+      graphics.setBackground(Color.WHITE);
+      renderer.renderPageToGraphics(pageIndex, graphics, scale, scale, RenderDestination.EXPORT);
+    } finally {
+      graphics.dispose();
+    }
+    return target.image();
+  }
+
+  private static int scale(int pixels, double factor) {
+    return (int) Math.round(pixels * factor);
+  }
+
+  /** Number of whitespace separated words in OCR output */
+  static int countWords(String text) {
+    if (text == null) {
+      return 0;
+    }
+    int words = 0;
+    boolean inWord = false;
+    for (int i = 0; i < text.length(); i++) {
+      boolean whitespace = Character.isWhitespace(text.charAt(i));
+      if (!whitespace && !inWord) {
+        words++;
+      }
+      inWord = !whitespace;
+    }
+    return words;
+  }
+
+  /** Engine settings of a page, e.g. {@code lstm/psm1/fin} */
+  private static String engineProfile(String languageCode) {
+    return "lstm/psm" + PAGE_SEG_MODE + "/" + languageCode;
+  }
+
+  /** OCR result of a single page */
+  public record PageText(String text, WordBoxes elements) {}
 }
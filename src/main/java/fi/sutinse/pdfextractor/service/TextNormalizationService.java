@@ -5,6 +5,7 @@ import jakarta.enterprise.context.ApplicationScoped;
 import java.text.Normalizer;
 import java.util.List;
 import java.util.SequencedCollection;
+import java.util.function.UnaryOperator;
 import java.util.regex.Pattern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,16 +16,16 @@ public class TextNormalizationService {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(TextNormalizationService.class);
 
-  // Common OCR errors in Nordic/European text using JDK 21 Sequenced Collections
+  // Common OCR errors in Nordic/European text using JDK 21 Sequenced Collections. Glyph merges
+  // such as rn/m and vv/w are not rewritten globally because that corrupts correct words
+  // ("barn", "Kornelius"); schema labels tolerate them through FuzzyLabelMatcher instead.
   private static final SequencedCollection<Pattern> COMMON_CORRECTIONS =
       List.of(
           // Common character substitutions
           Pattern.compile("([0-9])O([0-9])"), // 0 -> O confusion in numbers
           Pattern.compile("([a-zA-Z])0([a-zA-Z])"), // O -> 0 confusion in words
           Pattern.compile("l1"), // l -> 1 confusion
-          Pattern.compile("I1"), // I -> 1 confusion
-          Pattern.compile("rn"), // r+n -> m confusion
-          Pattern.compile("vv") // w -> vv confusion
+          Pattern.compile("I1") // I -> 1 confusion
           );
 
   private static final SequencedCollection<String> COMMON_REPLACEMENTS =
@@ -32,9 +33,7 @@ public class TextNormalizationService {
           "$100$2", // Fix 0/O in numbers
           "$1O$2", // Fix O/0 in words
           "ll", // Fix l/1
-          "Il", // Fix I/1
-          "m", // Fix rn/m
-          "w" // Fix vv/w
+          "Il" // Fix I/1
           );
 
   // Finnish specific corrections using JDK 21 Sequenced Collections
@@ -85,19 +84,27 @@ public class TextNormalizationService {
         language.getEnglishName());
 
     // Step 1: Unicode normalization
-    String normalized = Normalizer.normalize(text, Normalizer.Form.NFC);
+    String normalized =
+        step("unicode", text, language, input -> Normalizer.normalize(input, Normalizer.Form.NFC));
 
     // Step 2: Whitespace normalization
-    normalized = normalizeWhitespace(normalized);
+    normalized = step("whitespace", normalized, language, this::normalizeWhitespace);
 
     // Step 3: Common OCR corrections
-    normalized = applyCommonCorrections(normalized);
+    normalized = step("common-corrections", normalized, language, this::applyCommonCorrections);
 
     // Step 4: Language-specific OCR corrections
-    normalized = applyLanguageSpecificCorrections(normalized, language);
+    normalized =
+        step(
+            "language-corrections",
+            normalized,
+            language,
+            input -> applyLanguageSpecificCorrections(input, language));
 
     // Step 5: Document type specific normalization (if detected as invoice)
-    normalized = normalizeDocumentText(normalized, language);
+    normalized =
+        step(
+            "document-text", normalized, language, input -> normalizeDocumentText(input, language));
 
     LOGGER.debug(
         "Text normalization completed, length: {} -> {}", text.length(), normalized.length());
@@ -116,6 +123,27 @@ public class TextNormalizationService {
     return normalizeText(text, detectedLanguage);
   }
 
+  /** Runs one normalization step, recorded as a JFR event when enabled */
+  private static String step(
+      String name, String text, Language language, UnaryOperator<String> normalization) {
+    ExtractionEvents.NormalizationStep event = new ExtractionEvents.NormalizationStep();
+    if (!event.isEnabled()) {
+      return normalization.apply(text);
+    }
+    event.begin();
+    String normalized = normalization.apply(text);
+    event.end();
+    if (event.shouldCommit()) {
+      event.documentId = ExtractionEvents.currentDocument();
+      event.step = name;
+      event.language = language.getTesseractCode();
+      event.inputLength = text.length();
+      event.outputLength = normalized.length();
+      event.commit();
+    }
+    return normalized;
+  }
+
   /** Normalizes whitespace characters */
   private String normalizeWhitespace(String text) {
     // Replace multiple consecutive whitespace with single space
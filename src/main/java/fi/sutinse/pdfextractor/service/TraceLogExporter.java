@@ -0,0 +1,68 @@
+package fi.sutinse.pdfextractor.service;
+
+import io.opentelemetry.context.Context;
+import io.opentelemetry.exporter.logging.otlp.OtlpJsonLoggingSpanExporter;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Second span export next to OTLP: when enabled, finished spans are written as OTLP JSON lines to
+ * the {@code io.opentelemetry.exporter.logging.otlp} log category, which a file handler can route
+ * to a trace file. Quarkus registers span processor beans with the tracer provider.
+ */
+@ApplicationScoped
+public class TraceLogExporter implements SpanProcessor {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TraceLogExporter.class);
+
+  @ConfigProperty(name = "extraction.tracing.log-export", defaultValue = "false")
+  boolean enabled;
+
+  private SpanProcessor delegate;
+
+  @PostConstruct
+  void init() {
+    if (enabled) {
+      delegate = BatchSpanProcessor.builder(OtlpJsonLoggingSpanExporter.create()).build();
+      LOGGER.info("Trace log export enabled");
+    }
+  }
+
+  @Override
+  public void onStart(Context parentContext, ReadWriteSpan span) {}
+
+  @Override
+  public boolean isStartRequired() {
+    return false;
+  }
+
+  @Override
+  public void onEnd(ReadableSpan span) {
+    if (delegate != null) {
+      delegate.onEnd(span);
+    }
+  }
+
+  @Override
+  public boolean isEndRequired() {
+    return enabled;
+  }
+
+  @Override
+  public CompletableResultCode shutdown() {
+    return delegate != null ? delegate.shutdown() : CompletableResultCode.ofSuccess();
+  }
+
+  @Override
+  public CompletableResultCode forceFlush() {
+    return delegate != null ? delegate.forceFlush() : CompletableResultCode.ofSuccess();
+  }
+}
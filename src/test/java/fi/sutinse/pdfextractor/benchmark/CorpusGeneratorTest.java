@@ -0,0 +1,67 @@
+package fi.sutinse.pdfextractor.benchmark;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import fi.sutinse.pdfextractor.model.DocumentType;
+import fi.sutinse.pdfextractor.model.Language;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CorpusGeneratorTest {
+
+  @TempDir Path directory;
+
+  private final CorpusGenerator generator = new CorpusGenerator(5);
+
+  @Test
+  public void testOutputIsDeterministic() throws Exception {
+    Path first = directory.resolve("first.pdf");
+    Path second = directory.resolve("second.pdf");
+    generator.generate(
+        CorpusGenerator.DocumentClass.SCAN_JPEG, DocumentType.INVOICE, Language.FINNISH, first);
+    generator.generate(
+        CorpusGenerator.DocumentClass.SCAN_JPEG, DocumentType.INVOICE, Language.FINNISH, second);
+
+    assertArrayEquals(Files.readAllBytes(first), Files.readAllBytes(second));
+  }
+
+  @Test
+  public void testTextDocumentHasTextLayer() throws Exception {
+    Path file = generate(CorpusGenerator.DocumentClass.TEXT);
+
+    try (PDDocument document = Loader.loadPDF(file.toFile())) {
+      assertEquals(CorpusGenerator.PAGES_PER_DOCUMENT, document.getNumberOfPages());
+      assertFalse(new PDFTextStripper().getText(document).isBlank());
+    }
+  }
+
+  @Test
+  public void testScannedDocumentHasNoTextLayer() throws Exception {
+    Path file = generate(CorpusGenerator.DocumentClass.SCAN_G4);
+
+    try (PDDocument document = Loader.loadPDF(file.toFile())) {
+      assertEquals(CorpusGenerator.PAGES_PER_DOCUMENT, document.getNumberOfPages());
+      assertTrue(new PDFTextStripper().getText(document).isBlank());
+    }
+  }
+
+  @Test
+  public void testLargeDocumentPageCount() throws Exception {
+    Path file = generate(CorpusGenerator.DocumentClass.LARGE);
+
+    try (PDDocument document = Loader.loadPDF(file.toFile())) {
+      assertEquals(5, document.getNumberOfPages());
+    }
+  }
+
+  private Path generate(CorpusGenerator.DocumentClass documentClass) throws Exception {
+    Path file = directory.resolve(documentClass.directoryName() + ".pdf");
+    generator.generate(documentClass, DocumentType.REPORT, Language.ENGLISH, file);
+    return file;
+  }
+}
@@ -0,0 +1,61 @@
+package fi.sutinse.pdfextractor.cli;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class BenchmarkOptionsTest {
+
+  @Test
+  public void testParseAllOptions() {
+    BenchmarkOptions options =
+        BenchmarkOptions.parse(
+            List.of(
+                "--generate",
+                "--large-pages",
+                "50",
+                "--warmup",
+                "0",
+                "--iterations",
+                "5",
+                "--concurrency",
+                "4",
+                "--json",
+                "report.json",
+                "/tmp/corpus"));
+
+    assertEquals(Path.of("/tmp/corpus"), options.corpus());
+    assertTrue(options.generate());
+    assertEquals(50, options.largePages());
+    assertEquals(0, options.warmup());
+    assertEquals(5, options.iterations());
+    assertEquals(4, options.concurrency());
+    assertEquals(Path.of("report.json"), options.json());
+  }
+
+  @Test
+  public void testDefaults() {
+    BenchmarkOptions options = BenchmarkOptions.parse(List.of("corpus"));
+
+    assertFalse(options.generate());
+    assertEquals(BenchmarkOptions.DEFAULT_LARGE_PAGES, options.largePages());
+    assertEquals(1, options.warmup());
+    assertEquals(3, options.iterations());
+    assertEquals(1, options.concurrency());
+    assertNull(options.json());
+  }
+
+  @Test
+  public void testInvalidOptions() {
+    assertThrows(IllegalArgumentException.class, () -> BenchmarkOptions.parse(List.of()));
+    assertThrows(
+        IllegalArgumentException.class, () -> BenchmarkOptions.parse(List.of("a", "b")));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> BenchmarkOptions.parse(List.of("--iterations", "0", "corpus")));
+    assertThrows(
+        IllegalArgumentException.class, () -> BenchmarkOptions.parse(List.of("--fast", "corpus")));
+  }
+}
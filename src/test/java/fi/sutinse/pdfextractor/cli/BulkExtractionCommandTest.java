@@ -0,0 +1,87 @@
+package fi.sutinse.pdfextractor.cli;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+@QuarkusTest
+public class BulkExtractionCommandTest {
+
+  @Inject BulkExtractionCommand command;
+
+  private Path directory;
+
+  @BeforeEach
+  public void createTree() throws Exception {
+    directory = Files.createTempDirectory("bulk-");
+    Files.createDirectories(directory.resolve("2024"));
+    Files.writeString(directory.resolve("a.pdf"), "Not a PDF");
+    Files.writeString(directory.resolve("2024/b.pdf"), "Also not a PDF");
+    Files.writeString(directory.resolve("2024/copy-of-a.pdf"), "Not a PDF");
+    Files.writeString(directory.resolve("notes.txt"), "Ignored");
+  }
+
+  @AfterEach
+  public void deleteTree() throws Exception {
+    try (Stream<Path> paths = Files.walk(directory)) {
+      for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  @Test
+  public void testExtractsEachDocumentOnceAndResumes() throws Exception {
+    Path output = directory.resolve("out.jsonl");
+    Path checkpoint = directory.resolve("checkpoint.txt");
+    List<String> args =
+        List.of(
+            directory.toString(),
+            "--output",
+            output.toString(),
+            "--checkpoint",
+            checkpoint.toString(),
+            "--workers",
+            "2");
+
+    BulkExtractionCommand.Summary first = command.extract(BulkOptions.parse(args));
+
+    // Identical content is extracted once
+    assertEquals(2, first.documents());
+    assertEquals(2, first.failed());
+    assertEquals(1, first.skipped());
+    assertEquals(2, Files.readAllLines(output).size());
+    assertEquals(2, Files.readAllLines(checkpoint).size());
+
+    BulkExtractionCommand.Summary resumed = command.extract(BulkOptions.parse(args));
+
+    assertEquals(0, resumed.documents());
+    assertEquals(3, resumed.skipped());
+    assertEquals(2, Files.readAllLines(output).size());
+  }
+
+  @Test
+  public void testInvalidArgumentsReturnUsageExitCode() {
+    assertEquals(BulkExtractionCommand.EXIT_USAGE, command.run(List.of("--workers", "x")));
+  }
+
+  @Test
+  public void testSha256() throws Exception {
+    assertEquals(
+        "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+        BulkExtractionCommand.sha256(writeTemp("abc")));
+  }
+
+  private Path writeTemp(String content) throws Exception {
+    return Files.writeString(directory.resolve("content.bin"), content);
+  }
+}
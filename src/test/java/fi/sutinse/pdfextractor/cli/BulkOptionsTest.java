@@ -0,0 +1,67 @@
+package fi.sutinse.pdfextractor.cli;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import fi.sutinse.pdfextractor.dto.ExtractionOptions;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class BulkOptionsTest {
+
+  @Test
+  public void testParseAllOptions() {
+    BulkOptions options =
+        BulkOptions.parse(
+            List.of(
+                "/archive/2019",
+                "--file-list",
+                "-",
+                "--output",
+                "out.jsonl",
+                "--checkpoint",
+                "done.txt",
+                "--workers",
+                "8",
+                "--ocr-concurrency",
+                "4",
+                "--fields",
+                "documentType",
+                "--report-interval",
+                "10",
+                "/archive/2020"));
+
+    assertEquals(List.of(Path.of("/archive/2019"), Path.of("/archive/2020")), options.inputs());
+    assertEquals(BulkOptions.STDIN, options.fileList());
+    assertEquals(Path.of("out.jsonl"), options.output());
+    assertEquals(Path.of("done.txt"), options.checkpoint());
+    assertEquals(8, options.workers());
+    assertEquals(4, options.ocrConcurrency());
+    assertTrue(options.extractionOptions().includes(ExtractionOptions.Field.DOCUMENT_TYPE));
+    assertFalse(options.extractionOptions().includes(ExtractionOptions.Field.CONTENT));
+    assertEquals(10, options.reportIntervalSeconds());
+  }
+
+  @Test
+  public void testDefaults() {
+    BulkOptions options = BulkOptions.parse(List.of("/archive"));
+
+    assertNull(options.output());
+    assertNull(options.checkpoint());
+    assertEquals(Runtime.getRuntime().availableProcessors(), options.workers());
+    assertEquals(0, options.ocrConcurrency());
+    assertEquals(ExtractionOptions.ALL, options.extractionOptions());
+  }
+
+  @Test
+  public void testInvalidOptions() {
+    assertThrows(IllegalArgumentException.class, () -> BulkOptions.parse(List.of()));
+    assertThrows(IllegalArgumentException.class, () -> BulkOptions.parse(List.of("--verbose")));
+    assertThrows(
+        IllegalArgumentException.class, () -> BulkOptions.parse(List.of("/a", "--workers")));
+    assertThrows(
+        IllegalArgumentException.class, () -> BulkOptions.parse(List.of("/a", "--workers", "0")));
+    assertThrows(
+        IllegalArgumentException.class, () -> BulkOptions.parse(List.of("/a", "--fields", "x")));
+  }
+}
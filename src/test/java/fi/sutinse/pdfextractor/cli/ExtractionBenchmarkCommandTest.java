@@ -0,0 +1,88 @@
+package fi.sutinse.pdfextractor.cli;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import fi.sutinse.pdfextractor.benchmark.CorpusGenerator;
+import fi.sutinse.pdfextractor.model.DocumentType;
+import fi.sutinse.pdfextractor.model.Language;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+@QuarkusTest
+public class ExtractionBenchmarkCommandTest {
+
+  @Inject ExtractionBenchmarkCommand command;
+
+  private Path corpus;
+
+  @BeforeEach
+  public void createCorpus() throws Exception {
+    corpus = Files.createTempDirectory("corpus-");
+    Path text = Files.createDirectories(corpus.resolve("text"));
+    new CorpusGenerator(1)
+        .generate(
+            CorpusGenerator.DocumentClass.TEXT,
+            DocumentType.INVOICE,
+            Language.FINNISH,
+            text.resolve("invoice-fin.pdf"));
+    Files.writeString(corpus.resolve("broken.pdf"), "Not a PDF");
+  }
+
+  @AfterEach
+  public void deleteCorpus() throws Exception {
+    try (Stream<Path> paths = Files.walk(corpus)) {
+      for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  @Test
+  public void testReportsEachDocumentClass() throws Exception {
+    ExtractionBenchmarkCommand.Report report =
+        command.benchmark(
+            BenchmarkOptions.parse(
+                List.of("--warmup", "0", "--iterations", "2", corpus.toString())));
+
+    assertEquals(4, report.documents());
+    assertEquals(2, report.classes().size());
+
+    ExtractionBenchmarkCommand.ClassResult broken = report.classes().get(0);
+    assertEquals(ExtractionBenchmarkCommand.ROOT_CLASS, broken.documentClass());
+    assertEquals(2, broken.failures());
+
+    ExtractionBenchmarkCommand.ClassResult text = report.classes().get(1);
+    assertEquals("text", text.documentClass());
+    assertEquals(2, text.documents());
+    assertEquals(0, text.failures());
+    assertEquals(2 * CorpusGenerator.PAGES_PER_DOCUMENT, text.pages());
+    assertTrue(text.pagesPerSecond() > 0);
+    assertTrue(text.p99Ms() >= text.p50Ms());
+    assertTrue(report.peakHeapBytes() > 0);
+  }
+
+  @Test
+  public void testEmptyCorpusFails() throws Exception {
+    Path empty = Files.createDirectory(corpus.resolve("empty"));
+    assertEquals(
+        BulkExtractionCommand.EXIT_FAILURE, command.run(List.of(empty.toString())));
+  }
+
+  @Test
+  public void testPercentile() {
+    long[] sorted = {10, 20, 30, 40, 50, 60, 70, 80, 90, 100};
+
+    assertEquals(50, ExtractionBenchmarkCommand.percentile(sorted, 0.50));
+    assertEquals(100, ExtractionBenchmarkCommand.percentile(sorted, 0.99));
+    assertEquals(10, ExtractionBenchmarkCommand.percentile(sorted, 0.0));
+    assertEquals(0, ExtractionBenchmarkCommand.percentile(new long[0], 0.5));
+  }
+}
@@ -0,0 +1,122 @@
+package fi.sutinse.pdfextractor.cli;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import fi.sutinse.pdfextractor.benchmark.CorpusGenerator;
+import fi.sutinse.pdfextractor.model.DocumentType;
+import fi.sutinse.pdfextractor.model.Language;
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+@QuarkusTest
+public class LoadTestCommandTest {
+
+  @Inject LoadTestCommand command;
+
+  @TestHTTPResource("/")
+  URL url;
+
+  private Path corpus;
+
+  @BeforeEach
+  public void createCorpus() throws Exception {
+    corpus = Files.createTempDirectory("loadtest-");
+    Path text = Files.createDirectories(corpus.resolve("text"));
+    new CorpusGenerator(1)
+        .generate(
+            CorpusGenerator.DocumentClass.TEXT,
+            DocumentType.INVOICE,
+            Language.ENGLISH,
+            text.resolve("invoice-eng.pdf"));
+  }
+
+  @AfterEach
+  public void deleteCorpus() throws Exception {
+    try (Stream<Path> paths = Files.walk(corpus)) {
+      for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  @Test
+  public void testLoadStepAgainstService() throws Exception {
+    Path histograms = corpus.resolve("hgrm");
+    LoadTestCommand.Report report =
+        command.loadTest(
+            LoadTestOptions.parse(
+                List.of(
+                    "--url",
+                    url.toString(),
+                    "--rates",
+                    "4",
+                    "--duration",
+                    "1",
+                    "--warmup",
+                    "0",
+                    "--histograms",
+                    histograms.toString(),
+                    corpus.toString())));
+
+    assertEquals(1, report.steps().size());
+    LoadTestCommand.StepResult step = report.steps().get(0);
+    assertEquals(4, step.requests());
+    assertEquals(4, step.succeeded());
+    assertEquals(0, step.failed());
+    assertTrue(step.p99Ms() >= step.p50Ms());
+    assertTrue(step.maxMs() > 0);
+    assertTrue(Files.exists(histograms.resolve("rate-4.00.hgrm")));
+  }
+
+  @Test
+  public void testStepSaturation() {
+    long second = TimeUnit.SECONDS.toNanos(1);
+
+    LoadTestCommand.StepRecorder healthy = new LoadTestCommand.StepRecorder(0);
+    healthy.record(0, 0, second / 10, 200);
+    healthy.record(second / 2, second / 2, second / 2 + second / 10, 200);
+    LoadTestCommand.StepResult fast = LoadTestCommand.result(2, healthy, 1, 1000);
+    assertFalse(fast.saturated());
+    assertEquals(2.0, fast.throughput(), 0.001);
+    assertEquals(100.0, fast.p50Ms(), 1.0);
+
+    // Second request queued behind the first: the backlog stretches the step
+    LoadTestCommand.StepRecorder queued = new LoadTestCommand.StepRecorder(0);
+    queued.record(0, 0, 2 * second, 200);
+    queued.record(second / 2, second / 2, 4 * second, 200);
+    LoadTestCommand.StepResult slow = LoadTestCommand.result(2, queued, 1, 10_000);
+    assertTrue(slow.saturated());
+    assertEquals(0.5, slow.throughput(), 0.001);
+
+    LoadTestCommand.StepRecorder rejecting = new LoadTestCommand.StepRecorder(0);
+    rejecting.record(0, 0, second / 10, 200);
+    rejecting.record(second / 2, second / 2, second / 2 + second / 100, 429);
+    LoadTestCommand.StepResult rejected = LoadTestCommand.result(2, rejecting, 1, 1000);
+    assertTrue(rejected.saturated());
+    assertEquals(1, rejected.rejected());
+  }
+
+  @Test
+  public void testMultipartBody() {
+    LoadTestCommand.Upload upload =
+        LoadTestCommand.upload("a.pdf", "%PDF-1.7".getBytes(StandardCharsets.US_ASCII));
+    String body = new String(upload.body(), StandardCharsets.ISO_8859_1);
+
+    assertTrue(body.startsWith("--" + upload.boundary() + "\r\n"));
+    assertTrue(body.contains("name=\"file\"; filename=\"a.pdf\""));
+    assertTrue(body.contains("\r\n\r\n%PDF-1.7\r\n"));
+    assertTrue(body.endsWith("--" + upload.boundary() + "--\r\n"));
+  }
+}
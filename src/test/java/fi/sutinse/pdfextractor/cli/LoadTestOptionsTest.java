@@ -0,0 +1,79 @@
+package fi.sutinse.pdfextractor.cli;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class LoadTestOptionsTest {
+
+  @Test
+  public void testParseAllOptions() {
+    LoadTestOptions options =
+        LoadTestOptions.parse(
+            List.of(
+                "--url",
+                "http://ocr.example.com:9000",
+                "--generate",
+                "--large-pages",
+                "10",
+                "--rates",
+                "4, 0.5,2,2",
+                "--duration",
+                "30",
+                "--warmup",
+                "0",
+                "--slo",
+                "5000",
+                "--timeout",
+                "60",
+                "--json",
+                "report.json",
+                "--histograms",
+                "hgrm",
+                "/tmp/corpus"));
+
+    assertEquals(Path.of("/tmp/corpus"), options.corpus());
+    assertEquals(URI.create("http://ocr.example.com:9000"), options.url());
+    assertTrue(options.generate());
+    assertEquals(10, options.largePages());
+    assertEquals(List.of(0.5, 2.0, 4.0), options.rates());
+    assertEquals(30, options.duration());
+    assertEquals(0, options.warmup());
+    assertEquals(5000, options.sloMillis());
+    assertEquals(60, options.timeout());
+    assertEquals(Path.of("report.json"), options.json());
+    assertEquals(Path.of("hgrm"), options.histograms());
+  }
+
+  @Test
+  public void testDefaults() {
+    LoadTestOptions options = LoadTestOptions.parse(List.of("corpus"));
+
+    assertEquals(URI.create(LoadTestOptions.DEFAULT_URL), options.url());
+    assertFalse(options.generate());
+    assertEquals(LoadTestOptions.DEFAULT_RATES, options.rates());
+    assertEquals(60, options.duration());
+    assertEquals(10, options.warmup());
+    assertNull(options.json());
+    assertNull(options.histograms());
+  }
+
+  @Test
+  public void testInvalidOptions() {
+    assertThrows(IllegalArgumentException.class, () -> LoadTestOptions.parse(List.of()));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> LoadTestOptions.parse(List.of("--rates", "1,0", "corpus")));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> LoadTestOptions.parse(List.of("--rates", "fast", "corpus")));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> LoadTestOptions.parse(List.of("--url", "localhost:8080", "corpus")));
+    assertThrows(
+        IllegalArgumentException.class, () -> LoadTestOptions.parse(List.of("--rates")));
+  }
+}
@@ -0,0 +1,74 @@
+package fi.sutinse.pdfextractor.cli;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class SoakOptionsTest {
+
+  @Test
+  public void testParseAllOptions() {
+    SoakOptions options =
+        SoakOptions.parse(
+            List.of(
+                "--generate",
+                "--mode",
+                "ocr",
+                "--pages",
+                "1000",
+                "--duration",
+                "90",
+                "--concurrency",
+                "2",
+                "--sample-interval",
+                "5",
+                "--warmup-pages",
+                "0",
+                "--max-memory-growth",
+                "128",
+                "--max-direct-growth",
+                "32",
+                "--max-handle-growth",
+                "4",
+                "--samples",
+                "soak.csv",
+                "/tmp/corpus"));
+
+    assertEquals(Path.of("/tmp/corpus"), options.corpus());
+    assertTrue(options.generate());
+    assertEquals(SoakOptions.Mode.OCR, options.mode());
+    assertEquals(1000, options.pages());
+    assertEquals(90, options.duration());
+    assertEquals(2, options.concurrency());
+    assertEquals(5, options.sampleInterval());
+    assertEquals(0, options.warmupPages());
+    assertEquals(128, options.maxMemoryGrowth());
+    assertEquals(32, options.maxDirectGrowth());
+    assertEquals(4, options.maxHandleGrowth());
+    assertEquals(Path.of("soak.csv"), options.samples());
+  }
+
+  @Test
+  public void testDefaults() {
+    SoakOptions options = SoakOptions.parse(List.of("corpus"));
+
+    assertEquals(SoakOptions.Mode.BOTH, options.mode());
+    assertEquals(SoakOptions.DEFAULT_PAGES, options.pages());
+    assertEquals(SoakOptions.DEFAULT_PAGES / 20, options.warmupPages());
+    assertEquals(0, options.duration());
+    assertNull(options.samples());
+  }
+
+  @Test
+  public void testInvalidOptions() {
+    assertThrows(IllegalArgumentException.class, () -> SoakOptions.parse(List.of()));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> SoakOptions.parse(List.of("--mode", "forever", "corpus")));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> SoakOptions.parse(List.of("--pages", "0", "corpus")));
+  }
+}
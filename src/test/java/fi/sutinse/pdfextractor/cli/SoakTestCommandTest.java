@@ -0,0 +1,108 @@
+package fi.sutinse.pdfextractor.cli;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import fi.sutinse.pdfextractor.benchmark.CorpusGenerator;
+import fi.sutinse.pdfextractor.cli.ResourceSampler.ResourceSample;
+import fi.sutinse.pdfextractor.model.DocumentType;
+import fi.sutinse.pdfextractor.model.Language;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+@QuarkusTest
+public class SoakTestCommandTest {
+
+  @Inject SoakTestCommand command;
+
+  private Path corpus;
+
+  @BeforeEach
+  public void createCorpus() throws Exception {
+    corpus = Files.createTempDirectory("soak-");
+    Path text = Files.createDirectories(corpus.resolve("text"));
+    new CorpusGenerator(1)
+        .generate(
+            CorpusGenerator.DocumentClass.TEXT,
+            DocumentType.RECEIPT,
+            Language.SWEDISH,
+            text.resolve("receipt-swe.pdf"));
+  }
+
+  @AfterEach
+  public void deleteCorpus() throws Exception {
+    try (Stream<Path> paths = Files.walk(corpus)) {
+      for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  @Test
+  public void testShortSoakSamplesResources() throws Exception {
+    Path samples = corpus.resolve("samples.csv");
+    SoakTestCommand.Report report =
+        command.soak(
+            SoakOptions.parse(
+                List.of(
+                    "--mode",
+                    "pipeline",
+                    "--pages",
+                    "20",
+                    "--sample-interval",
+                    "1",
+                    "--samples",
+                    samples.toString(),
+                    corpus.resolve("text").toString())));
+
+    assertTrue(report.pages() >= 20);
+    assertEquals(0, report.failures());
+    assertTrue(report.samples() >= 2);
+    assertTrue(
+        report.resources().stream()
+            .anyMatch(resource -> resource.resource().equals("direct-buffers")));
+    List<String> lines = Files.readAllLines(samples);
+    assertEquals(ResourceSample.CSV_HEADER, lines.get(0));
+    assertEquals(report.samples() + 1, lines.size());
+  }
+
+  @Test
+  public void testSustainedGrowth() {
+    // Steady growth is sustained, a spike that recedes is not
+    assertEquals(50, SoakTestCommand.sustainedGrowth(new long[] {10, 20, 30, 40, 50, 60, 70, 80}));
+    assertEquals(0, SoakTestCommand.sustainedGrowth(new long[] {10, 10, 10, 500, 10, 10, 10, 10}));
+    assertEquals(0, SoakTestCommand.sustainedGrowth(new long[] {10, 10, 10, 10, 10, 10, 10, 90}));
+    assertEquals(0, SoakTestCommand.sustainedGrowth(new long[] {10, 90}));
+  }
+
+  @Test
+  public void testGrowthAfterWarmup() {
+    List<ResourceSample> samples = new ArrayList<>();
+    for (int i = 0; i < 12; i++) {
+      // Temp files leak one per sample once warmed up; native memory is unavailable
+      long tempFiles = i < 4 ? 0 : i * 10;
+      samples.add(new ResourceSample(i * 1000L, i * 100L, i, 1 << 30, -1, 0, 0, 0, 50, tempFiles));
+    }
+    SoakOptions options =
+        SoakOptions.parse(List.of("--warmup-pages", "400", "--max-handle-growth", "16", "x"));
+
+    List<SoakTestCommand.ResourceGrowth> resources = SoakTestCommand.growth(samples, options);
+
+    assertTrue(resources.stream().noneMatch(r -> r.resource().equals("native-committed")));
+    SoakTestCommand.ResourceGrowth tempFiles =
+        resources.stream().filter(r -> r.resource().equals("temp-files")).findFirst().orElseThrow();
+    assertEquals(50, tempFiles.baseline());
+    assertEquals(50, tempFiles.growth());
+    assertTrue(tempFiles.leaking());
+    assertEquals(
+        1, resources.stream().filter(SoakTestCommand.ResourceGrowth::leaking).count());
+  }
+}
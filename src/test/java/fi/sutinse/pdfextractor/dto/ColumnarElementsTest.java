@@ -0,0 +1,65 @@
+package fi.sutinse.pdfextractor.dto;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ColumnarElementsTest {
+
+  @Test
+  void testFromElementsWithLocations() {
+    List<TextElement> elements =
+        List.of(
+            TextElement.withLocations("Lasku", List.of(TextLocation.of(10, 20, 50, 15, 1))),
+            TextElement.withLocations("12345", List.of(TextLocation.of(70, 20, 40, 15, 2))));
+
+    ColumnarElements columns = ColumnarElements.from(elements);
+
+    assertEquals(2, columns.size());
+    assertEquals("Lasku 12345", columns.text());
+    assertArrayEquals(new int[] {0, 6}, columns.offsets());
+    assertArrayEquals(new int[] {5, 5}, columns.lengths());
+    assertArrayEquals(new int[] {10, 70}, columns.x());
+    assertArrayEquals(new int[] {20, 20}, columns.y());
+    assertArrayEquals(new int[] {50, 40}, columns.width());
+    assertArrayEquals(new int[] {15, 15}, columns.height());
+    assertArrayEquals(new int[] {1, 2}, columns.pageNumber());
+  }
+
+  @Test
+  void testRoundTripToElements() {
+    List<TextElement> elements =
+        List.of(
+            TextElement.withLocations("Hello", List.of(TextLocation.of(1, 2, 3, 4, 1))),
+            TextElement.textOnly("world"));
+
+    ColumnarElements columns = ColumnarElements.from(elements);
+
+    assertEquals(elements.get(0), columns.element(0));
+    assertEquals(elements.get(1), columns.element(1));
+    assertEquals(-1, columns.pageNumber()[1]);
+  }
+
+  @Test
+  void testEqualityComparesColumns() {
+    List<TextElement> elements =
+        List.of(TextElement.withLocations("Lasku", List.of(TextLocation.of(10, 20, 50, 15, 1))));
+
+    ColumnarElements columns = ColumnarElements.from(elements);
+    ColumnarElements same = ColumnarElements.from(elements);
+
+    assertEquals(columns, same);
+    assertEquals(columns.hashCode(), same.hashCode());
+    assertNotEquals(columns, ColumnarElements.from(List.of(TextElement.textOnly("Lasku"))));
+    assertTrue(columns.toString().contains("x=[10]"));
+  }
+
+  @Test
+  void testEmptyElements() {
+    ColumnarElements columns = ColumnarElements.from(List.of());
+
+    assertEquals(0, columns.size());
+    assertEquals("", columns.text());
+  }
+}
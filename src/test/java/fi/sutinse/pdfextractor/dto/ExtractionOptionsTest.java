@@ -0,0 +1,79 @@
+package fi.sutinse.pdfextractor.dto;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class ExtractionOptionsTest {
+
+  @Test
+  void testDefaultIncludesEverything() {
+    assertSame(ExtractionOptions.ALL, ExtractionOptions.fromFields(null));
+    assertSame(ExtractionOptions.ALL, ExtractionOptions.fromFields(" "));
+    for (ExtractionOptions.Field field : ExtractionOptions.Field.values()) {
+      assertTrue(ExtractionOptions.ALL.includes(field));
+    }
+  }
+
+  @Test
+  void testStructuredDataOnlyStillNeedsWordBoxes() {
+    ExtractionOptions options =
+        ExtractionOptions.fromFields("structuredData, documentType,METADATA");
+
+    assertTrue(options.includes(ExtractionOptions.Field.METADATA));
+    assertFalse(options.includes(ExtractionOptions.Field.CONTENT));
+    assertFalse(options.includes(ExtractionOptions.Field.ELEMENTS));
+    assertTrue(options.needsWordBoxes());
+    assertTrue(options.needsStructuredData());
+    assertTrue(options.needsText());
+  }
+
+  @Test
+  void testMetadataOnlyNeedsNoText() {
+    ExtractionOptions options = ExtractionOptions.fromFields("metadata,methodUsed");
+
+    assertFalse(options.needsText());
+    assertFalse(options.needsWordBoxes());
+    assertFalse(options.needsDocumentType());
+    assertFalse(options.needsExtractedText());
+  }
+
+  @Test
+  void testFieldLocationsNeedWordBoxesAndFields() {
+    ExtractionOptions options = ExtractionOptions.fromFields("fieldLocations");
+
+    assertTrue(options.needsWordBoxes());
+    assertTrue(options.needsStructuredData());
+    assertTrue(options.needsDocumentType());
+  }
+
+  @Test
+  void testExtractedTextSelectsAllTextFields() {
+    ExtractionOptions options = ExtractionOptions.fromFields("extractedText");
+
+    assertTrue(options.includes(ExtractionOptions.Field.CONTENT));
+    assertTrue(options.includes(ExtractionOptions.Field.ELEMENTS));
+    assertTrue(options.includes(ExtractionOptions.Field.STRUCTURED_DATA));
+    assertTrue(options.includes(ExtractionOptions.Field.FIELD_LOCATIONS));
+    assertFalse(options.includes(ExtractionOptions.Field.METADATA));
+  }
+
+  @Test
+  void testProfileAddsMetadata() {
+    ExtractionOptions options = ExtractionOptions.fromFields("documentType").withProfile();
+
+    assertTrue(options.profile());
+    assertTrue(options.includes(ExtractionOptions.Field.METADATA));
+    assertTrue(options.includes(ExtractionOptions.Field.DOCUMENT_TYPE));
+    assertFalse(options.includes(ExtractionOptions.Field.CONTENT));
+    assertFalse(ExtractionOptions.ALL.profile());
+  }
+
+  @Test
+  void testUnknownFieldIsRejected() {
+    IllegalArgumentException e =
+        assertThrows(
+            IllegalArgumentException.class, () -> ExtractionOptions.fromFields("content,pages"));
+    assertTrue(e.getMessage().contains("pages"));
+  }
+}
@@ -74,4 +74,37 @@ class StructuredTextTest {
     assertEquals("Hello", structuredText.structuredData().get("greeting"));
     assertEquals("world", structuredText.structuredData().get("target"));
   }
+
+  @Test
+  void testToColumnar() {
+    TextElement element =
+        TextElement.withLocations("Hello", List.of(TextLocation.of(10, 20, 50, 15, 1)));
+    StructuredText structuredText =
+        StructuredText.fromElements("Hello", List.of(element), Map.of("greeting", "Hello"));
+
+    StructuredText columnar = structuredText.toColumnar();
+
+    assertNull(columnar.elements());
+    assertNotNull(columnar.columnarElements());
+    assertEquals(element, columnar.columnarElements().element(0));
+    assertEquals(structuredText.content(), columnar.content());
+    assertEquals(structuredText.structuredData(), columnar.structuredData());
+    assertNull(structuredText.columnarElements());
+  }
+
+  @Test
+  void testProject() {
+    StructuredText structuredText =
+        StructuredText.fromText("Lasku 123", Map.of("invoice_number", "123"));
+
+    StructuredText projected =
+        structuredText.project(ExtractionOptions.fromFields("structuredData,metadata"));
+
+    assertNull(projected.content());
+    assertNull(projected.elements());
+    assertNull(projected.fieldLocations());
+    assertEquals(structuredText.structuredData(), projected.structuredData());
+    assertNull(structuredText.project(ExtractionOptions.fromFields("documentType")));
+    assertEquals(structuredText, structuredText.project(ExtractionOptions.ALL));
+  }
 }
@@ -0,0 +1,61 @@
+package fi.sutinse.pdfextractor.dto;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class WordBoxesTest {
+
+  @Test
+  void testViewMaterializesElements() {
+    WordBoxes words = new WordBoxes(1);
+    words.add("Lasku", 10, 20, 50, 15, 1);
+    words.add("12345", 70, 20, 40, 15, 2);
+    words.add(TextElement.textOnly("yhteensä"));
+
+    assertEquals(
+        List.of(
+            TextElement.withLocations("Lasku", List.of(TextLocation.of(10, 20, 50, 15, 1))),
+            TextElement.withLocations("12345", List.of(TextLocation.of(70, 20, 40, 15, 2))),
+            TextElement.textOnly("yhteensä")),
+        words);
+  }
+
+  @Test
+  void testAddAllCopiesAnotherStore() {
+    WordBoxes page = new WordBoxes();
+    page.add("Eräpäivä", 1, 2, 3, 4, 2);
+    WordBoxes document = new WordBoxes();
+    document.add("Lasku", 10, 20, 50, 15, 1);
+
+    assertTrue(document.addAll(page));
+
+    assertEquals(2, document.size());
+    assertEquals(page.get(0), document.get(1));
+  }
+
+  @Test
+  void testToColumnarMatchesElementConversion() {
+    WordBoxes words = new WordBoxes();
+    words.add("Hello", 1, 2, 3, 4, 1);
+    words.add(TextElement.textOnly("world"));
+
+    ColumnarElements direct = ColumnarElements.from(words);
+    ColumnarElements converted = ColumnarElements.from(List.copyOf(words));
+
+    assertEquals(converted.text(), direct.text());
+    assertArrayEquals(converted.offsets(), direct.offsets());
+    assertArrayEquals(converted.lengths(), direct.lengths());
+    assertArrayEquals(converted.x(), direct.x());
+    assertArrayEquals(converted.pageNumber(), direct.pageNumber());
+  }
+
+  @Test
+  void testGetOutOfBounds() {
+    WordBoxes words = new WordBoxes();
+    words.add("Lasku", 10, 20, 50, 15, 1);
+
+    assertThrows(IndexOutOfBoundsException.class, () -> words.get(1));
+  }
+}
@@ -0,0 +1,101 @@
+package fi.sutinse.pdfextractor.resource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import fi.sutinse.pdfextractor.dto.ExtractionMetadata;
+import fi.sutinse.pdfextractor.dto.ExtractionMethod;
+import fi.sutinse.pdfextractor.dto.PdfExtractionResponse;
+import fi.sutinse.pdfextractor.dto.StructuredText;
+import fi.sutinse.pdfextractor.dto.TextElement;
+import fi.sutinse.pdfextractor.dto.TextLocation;
+import fi.sutinse.pdfextractor.model.DocumentType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class BinaryFormatProviderTest {
+
+  private static final ObjectMapper JSON_MAPPER =
+      JsonMapper.builder()
+          .addModule(new JavaTimeModule())
+          .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+          .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+          .build();
+
+  @Test
+  void testCborRoundTripEqualsJsonRoundTrip() throws Exception {
+    PdfExtractionResponse response = ocrResponse(200);
+
+    byte[] cbor = BinaryFormatProvider.cborMapper().writeValueAsBytes(response);
+    PdfExtractionResponse fromCbor =
+        BinaryFormatProvider.cborMapper().readValue(cbor, PdfExtractionResponse.class);
+    PdfExtractionResponse fromJson =
+        JSON_MAPPER.readValue(
+            JSON_MAPPER.writeValueAsBytes(response), PdfExtractionResponse.class);
+
+    assertEquals(response, fromCbor);
+    assertEquals(fromJson, fromCbor);
+  }
+
+  @Test
+  void testSmileRoundTripEqualsJsonRoundTrip() throws Exception {
+    PdfExtractionResponse response = ocrResponse(200);
+
+    byte[] smile = BinaryFormatProvider.smileMapper().writeValueAsBytes(response);
+    PdfExtractionResponse fromSmile =
+        BinaryFormatProvider.smileMapper().readValue(smile, PdfExtractionResponse.class);
+
+    assertEquals(response, fromSmile);
+  }
+
+  @Test
+  void testFailureRoundTrip() throws Exception {
+    PdfExtractionResponse failure = PdfExtractionResponse.failure("Failed to process PDF");
+
+    byte[] cbor = BinaryFormatProvider.cborMapper().writeValueAsBytes(failure);
+
+    assertEquals(
+        failure, BinaryFormatProvider.cborMapper().readValue(cbor, PdfExtractionResponse.class));
+  }
+
+  @Test
+  void testBinaryEncodingsAreSmallerThanJson() throws Exception {
+    PdfExtractionResponse response = ocrResponse(2000);
+
+    int json = JSON_MAPPER.writeValueAsBytes(response).length;
+    int cbor = BinaryFormatProvider.cborMapper().writeValueAsBytes(response).length;
+    int smile = BinaryFormatProvider.smileMapper().writeValueAsBytes(response).length;
+
+    assertTrue(cbor < json * 2 / 3, "CBOR " + cbor + " vs JSON " + json);
+    assertTrue(smile < json * 2 / 3, "Smile " + smile + " vs JSON " + json);
+  }
+
+  private static PdfExtractionResponse ocrResponse(int words) {
+    List<TextElement> elements = new ArrayList<>();
+    StringBuilder content = new StringBuilder();
+    for (int i = 0; i < words; i++) {
+      String word = "sana" + i;
+      elements.add(
+          TextElement.withLocations(
+              word, List.of(TextLocation.of(100 + i % 40 * 50, 200 + i / 40 * 40, 45, 30, 1))));
+      content.append(word).append(' ');
+    }
+
+    StructuredText text =
+        StructuredText.fromElements(
+            content.toString().trim(),
+            elements,
+            Map.of("invoice_number", "12345"),
+            Map.of("invoice_number", TextLocation.of(500, 100, 100, 30, 1)));
+    ExtractionMetadata metadata =
+        ExtractionMetadata.create("scan.pdf", 123456, 1, 4321, true, "fin");
+    return PdfExtractionResponse.success(
+        text, ExtractionMethod.TESSERACT_OCR, DocumentType.INVOICE, metadata);
+  }
+}
@@ -1,15 +1,35 @@
 package fi.sutinse.pdfextractor.resource;
 
 import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.quarkus.test.junit.QuarkusTest;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
 import org.junit.jupiter.api.Test;
 
 @QuarkusTest
 public class PdfExtractionResourceTest {
 
+  private static final List<String> INVOICE_LINES =
+      List.of(
+          "Lasku", "Laskunumero: 12345", "Laskun päivämäärä: 15.01.2025", "Yhteensä: 249,60 EUR");
+
   @Test
   public void testHealthEndpoint() {
     given()
@@ -21,6 +41,29 @@ public class PdfExtractionResourceTest {
         .body("status", is("UP"));
   }
 
+  @Test
+  public void testAdmissionStatsEndpoint() {
+    given()
+        .when()
+        .get("/api/pdf/admission")
+        .then()
+        .statusCode(200)
+        .body("maxConcurrent", notNullValue())
+        .body("waiting", is(0));
+  }
+
+  @Test
+  public void testMetricsEndpoint() {
+    given()
+        .when()
+        .get("/q/metrics")
+        .then()
+        .statusCode(200)
+        .body(containsString("pdf_ocr_permits_max"))
+        .body(containsString("pdf_lane_queued"))
+        .body(containsString("pdf_jobs_queued"));
+  }
+
   @Test
   public void testEmptyFileUpload() {
     given()
@@ -57,4 +100,222 @@ public class PdfExtractionResourceTest {
         .body("success", is(false))
         .body("errorMessage", notNullValue());
   }
+
+  @Test
+  public void testRawInvalidPdfContent() {
+    given()
+        .contentType("application/pdf")
+        .body("Invalid PDF content".getBytes())
+        .queryParam("filename", "invalid.pdf")
+        .when()
+        .post("/api/pdf/extract")
+        .then()
+        .statusCode(500)
+        .body("success", is(false))
+        .body("errorMessage", containsString("Failed to process PDF"));
+  }
+
+  @Test
+  public void testRawEmptyBody() {
+    given()
+        .contentType("application/pdf")
+        .body(new byte[0])
+        .when()
+        .post("/api/pdf/extract")
+        .then()
+        .statusCode(400)
+        .body("errorMessage", is("Empty file received"));
+  }
+
+  @Test
+  public void testSpoolStopsAtLimit() throws Exception {
+    Path target = Files.createTempFile("spool-", ".pdf");
+    try {
+      assertEquals(
+          -1,
+          PdfExtractionResource.spoolLimited(
+              new ByteArrayInputStream(new byte[1025]), target, 1024));
+      assertEquals(
+          1024,
+          PdfExtractionResource.spoolLimited(
+              new ByteArrayInputStream(new byte[1024]), target, 1024));
+      assertEquals(1024, Files.size(target));
+    } finally {
+      Files.deleteIfExists(target);
+    }
+  }
+
+  @Test
+  public void testUnknownProjectionField() {
+    given()
+        .multiPart("file", "test.pdf", "Invalid PDF content".getBytes(), "application/pdf")
+        .queryParam("fields", "structuredData,unknown")
+        .when()
+        .post("/api/pdf/extract")
+        .then()
+        .statusCode(400)
+        .body("success", is(false))
+        .body("errorMessage", containsString("unknown"));
+  }
+
+  @Test
+  public void testBatchUnknownProjectionField() {
+    given()
+        .multiPart("files", "a.pdf", "Invalid PDF content".getBytes(), "application/pdf")
+        .queryParam("fields", "pages")
+        .accept("application/x-ndjson")
+        .when()
+        .post("/api/pdf/extract/batch")
+        .then()
+        .statusCode(400);
+  }
+
+  @Test
+  public void testBatchReportsPerFileStatus() {
+    given()
+        .multiPart("files", "a.pdf", "Invalid PDF content".getBytes(), "application/pdf")
+        .multiPart("files", "b.txt", "Not a PDF".getBytes(), "text/plain")
+        .accept("application/x-ndjson")
+        .when()
+        .post("/api/pdf/extract/batch")
+        .then()
+        .statusCode(200)
+        .body(containsString("\"filename\":\"a.pdf\""))
+        .body(containsString("Only PDF files are supported"));
+  }
+
+  @Test
+  public void testUnknownJob() {
+    given()
+        .when()
+        .get("/api/pdf/jobs/no-such-job")
+        .then()
+        .statusCode(404)
+        .body("success", is(false));
+  }
+
+  @Test
+  public void testJobInvalidPriority() {
+    given()
+        .multiPart("file", "test.pdf", "Invalid PDF content".getBytes(), "application/pdf")
+        .queryParam("priority", "urgent")
+        .when()
+        .post("/api/pdf/jobs")
+        .then()
+        .statusCode(400)
+        .body("errorMessage", containsString("urgent"));
+  }
+
+  @Test
+  public void testJobSubmissionIsAccepted() {
+    given()
+        .multiPart("file", "invalid.pdf", "Invalid PDF content".getBytes(), "application/pdf")
+        .when()
+        .post("/api/pdf/jobs")
+        .then()
+        .statusCode(202)
+        .header("Location", containsString("/api/pdf/jobs/"))
+        .body("jobId", notNullValue());
+  }
+
+  @Test
+  public void testStreamInvalidFileType() {
+    given()
+        .multiPart("file", "test.txt", "Not a PDF".getBytes(), "text/plain")
+        .when()
+        .post("/api/pdf/extract/stream")
+        .then()
+        .statusCode(400)
+        .body("success", is(false));
+  }
+
+  @Test
+  public void testStreamInvalidPdfContentEndsWithFailureSummary() {
+    given()
+        .multiPart("file", "invalid.pdf", "Invalid PDF content".getBytes(), "application/pdf")
+        .when()
+        .post("/api/pdf/extract/stream")
+        .then()
+        .statusCode(200)
+        .body(containsString("\"type\":\"summary\""))
+        .body(containsString("\"success\":false"));
+  }
+
+  @Test
+  public void testJsonIsTheDefaultFormat() throws Exception {
+    given()
+        .multiPart("file", "invoice.pdf", textPdf(), "application/pdf")
+        .when()
+        .post("/api/pdf/extract")
+        .then()
+        .statusCode(200)
+        .contentType(containsString("application/json"))
+        .body("success", is(true));
+  }
+
+  @Test
+  public void testCborResponseMatchesJson() throws Exception {
+    byte[] pdf = textPdf();
+    JsonNode json = new ObjectMapper().readTree(extract(pdf, "application/json"));
+    JsonNode cbor =
+        BinaryFormatProvider.cborMapper()
+            .readTree(extract(pdf, BinaryFormatProvider.APPLICATION_CBOR));
+
+    assertTrue(json.at("/extractedText/content").asText().contains("Laskunumero: 12345"));
+    assertEquals(withoutTimings(json), withoutTimings(cbor));
+  }
+
+  @Test
+  public void testSmileResponseMatchesJson() throws Exception {
+    byte[] pdf = textPdf();
+    JsonNode json = new ObjectMapper().readTree(extract(pdf, "application/json"));
+    JsonNode smile =
+        BinaryFormatProvider.smileMapper()
+            .readTree(extract(pdf, BinaryFormatProvider.APPLICATION_SMILE));
+
+    assertTrue(json.at("/extractedText/content").asText().contains("Laskunumero: 12345"));
+    assertEquals(withoutTimings(json), withoutTimings(smile));
+  }
+
+  private static byte[] extract(byte[] pdf, String accept) {
+    return given()
+        .multiPart("file", "invoice.pdf", pdf, "application/pdf")
+        .accept(accept)
+        .when()
+        .post("/api/pdf/extract")
+        .then()
+        .statusCode(200)
+        .contentType(containsString(accept))
+        .extract()
+        .asByteArray();
+  }
+
+  /** Drops the metadata that differs between two extractions of the same document */
+  private static JsonNode withoutTimings(JsonNode response) {
+    ObjectNode metadata = (ObjectNode) response.get("metadata");
+    metadata.remove("extractionTime");
+    metadata.remove("processingTimeMs");
+    return response;
+  }
+
+  private static byte[] textPdf() throws Exception {
+    try (PDDocument document = new PDDocument();
+        ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+      PDPage page = new PDPage();
+      document.addPage(page);
+      try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+        content.beginText();
+        content.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 12);
+        content.setLeading(16);
+        content.newLineAtOffset(72, 700);
+        for (String line : INVOICE_LINES) {
+          content.showText(line);
+          content.newLine();
+        }
+        content.endText();
+      }
+      document.save(out);
+      return out.toByteArray();
+    }
+  }
 }
@@ -0,0 +1,94 @@
+package fi.sutinse.pdfextractor.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import fi.sutinse.pdfextractor.dto.BatchExtractionResult;
+import fi.sutinse.pdfextractor.dto.ExtractionOptions;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.jupiter.api.Test;
+
+@QuarkusTest
+public class BatchExtractionServiceTest {
+
+  @Inject BatchExtractionService batchService;
+
+  @Test
+  public void testArchiveAndPlainFilesYieldOneResultPerDocument()
+      throws IOException, InterruptedException {
+    Path archive = Files.createTempFile("batch", ".zip");
+    Path plain = Files.createTempFile("batch", ".pdf");
+    try {
+      try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(archive))) {
+        addEntry(zip, "receipts/", null);
+        addEntry(zip, "receipts/a.pdf", "Not a PDF");
+        addEntry(zip, "receipts/b.PDF", "Not a PDF either");
+        addEntry(zip, "receipts/notes.txt", "Not a PDF at all");
+        addEntry(zip, "__MACOSX/receipts/._a.pdf", "metadata");
+      }
+      Files.writeString(plain, "Invalid PDF content");
+
+      List<BatchExtractionResult> results = new CopyOnWriteArrayList<>();
+      int documents =
+          batchService.extractAll(
+              List.of(
+                  new BatchExtractionService.BatchSource("receipts.zip", archive),
+                  new BatchExtractionService.BatchSource("single.pdf", plain)),
+              ExtractionOptions.ALL,
+              () -> false,
+              results::add);
+
+      assertEquals(4, documents);
+      assertEquals(4, results.size());
+
+      List<BatchExtractionResult> ordered =
+          results.stream().sorted(Comparator.comparingInt(BatchExtractionResult::index)).toList();
+      assertEquals("receipts/a.pdf", ordered.get(0).filename());
+      assertEquals("receipts.zip", ordered.get(0).archive());
+      assertEquals("receipts/b.PDF", ordered.get(1).filename());
+      assertEquals("Only PDF files are supported", ordered.get(2).response().errorMessage());
+      assertEquals("single.pdf", ordered.get(3).filename());
+      assertNull(ordered.get(3).archive());
+      assertTrue(results.stream().noneMatch(result -> result.response().success()));
+    } finally {
+      Files.deleteIfExists(archive);
+      Files.deleteIfExists(plain);
+    }
+  }
+
+  @Test
+  public void testCancelledBatchReadsNothing() throws IOException, InterruptedException {
+    Path plain = Files.createTempFile("batch", ".pdf");
+    try {
+      List<BatchExtractionResult> results = new CopyOnWriteArrayList<>();
+      int documents =
+          batchService.extractAll(
+              List.of(new BatchExtractionService.BatchSource("single.pdf", plain)),
+              ExtractionOptions.ALL,
+              () -> true,
+              results::add);
+
+      assertEquals(0, documents);
+      assertTrue(results.isEmpty());
+    } finally {
+      Files.deleteIfExists(plain);
+    }
+  }
+
+  private static void addEntry(ZipOutputStream zip, String name, String content)
+      throws IOException {
+    zip.putNextEntry(new ZipEntry(name));
+    if (content != null) {
+      zip.write(content.getBytes());
+    }
+    zip.closeEntry();
+  }
+}
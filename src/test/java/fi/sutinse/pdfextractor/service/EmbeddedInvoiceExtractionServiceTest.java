@@ -0,0 +1,187 @@
+package fi.sutinse.pdfextractor.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDDocumentNameDictionary;
+import org.apache.pdfbox.pdmodel.PDEmbeddedFilesNameTreeNode;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.filespecification.PDComplexFileSpecification;
+import org.apache.pdfbox.pdmodel.common.filespecification.PDEmbeddedFile;
+import org.junit.jupiter.api.Test;
+
+class EmbeddedInvoiceExtractionServiceTest {
+
+  private static final String FINVOICE =
+      """
+      <?xml version="1.0" encoding="UTF-8"?>
+      <Finvoice Version="3.0">
+        <SellerPartyDetails>
+          <SellerOrganisationName>Myyjä Oy</SellerOrganisationName>
+        </SellerPartyDetails>
+        <BuyerPartyDetails>
+          <BuyerOrganisationName>Ostaja Oy</BuyerOrganisationName>
+        </BuyerPartyDetails>
+        <InvoiceDetails>
+          <InvoiceNumber>12345</InvoiceNumber>
+          <InvoiceDate Format="CCYYMMDD">20250115</InvoiceDate>
+          <InvoiceTotalVatAmount AmountCurrencyIdentifier="EUR">49,60</InvoiceTotalVatAmount>
+          <InvoiceTotalVatIncludedAmount>249,60</InvoiceTotalVatIncludedAmount>
+          <PaymentTermsDetails>
+            <InvoiceDueDate Format="CCYYMMDD">20250131</InvoiceDueDate>
+          </PaymentTermsDetails>
+        </InvoiceDetails>
+        <EpiDetails>
+          <EpiPaymentInstructionDetails>
+            <EpiRemittanceInfoIdentifier>RF18 1234</EpiRemittanceInfoIdentifier>
+            <EpiDateOptionDate Format="CCYYMMDD">20250201</EpiDateOptionDate>
+          </EpiPaymentInstructionDetails>
+        </EpiDetails>
+      </Finvoice>
+      """;
+
+  private static final String RAM_NAMESPACE =
+      "urn:un:unece:uncefact:data:standard:ReusableAggregateBusinessInformationEntity:100";
+
+  private static final String FACTUR_X =
+      """
+      <?xml version="1.0" encoding="UTF-8"?>
+      <rsm:CrossIndustryInvoice
+          xmlns:rsm="urn:un:unece:uncefact:data:standard:CrossIndustryInvoice:100"
+          xmlns:ram="%s"
+          xmlns:udt="urn:un:unece:uncefact:data:standard:UnqualifiedDataType:100">
+        <rsm:ExchangedDocumentContext>
+          <ram:GuidelineSpecifiedDocumentContextParameter>
+            <ram:ID>urn:cen.eu:en16931:2017</ram:ID>
+          </ram:GuidelineSpecifiedDocumentContextParameter>
+        </rsm:ExchangedDocumentContext>
+        <rsm:ExchangedDocument>
+          <ram:ID>FX-2025-001</ram:ID>
+          <ram:IssueDateTime>
+            <udt:DateTimeString format="102">20250115</udt:DateTimeString>
+          </ram:IssueDateTime>
+        </rsm:ExchangedDocument>
+        <rsm:SupplyChainTradeTransaction>
+          <ram:ApplicableHeaderTradeAgreement>
+            <ram:BuyerTradeParty>
+              <ram:Name>Buyer GmbH</ram:Name>
+            </ram:BuyerTradeParty>
+          </ram:ApplicableHeaderTradeAgreement>
+          <ram:ApplicableHeaderTradeSettlement>
+            <ram:InvoiceCurrencyCode>EUR</ram:InvoiceCurrencyCode>
+            <ram:SpecifiedTradePaymentTerms>
+              <ram:DueDateDateTime>
+                <udt:DateTimeString format="102">20250214</udt:DateTimeString>
+              </ram:DueDateDateTime>
+            </ram:SpecifiedTradePaymentTerms>
+            <ram:SpecifiedTradeSettlementHeaderMonetarySummation>
+              <ram:TaxTotalAmount currencyID="EUR">38.00</ram:TaxTotalAmount>
+              <ram:GrandTotalAmount>238.00</ram:GrandTotalAmount>
+            </ram:SpecifiedTradeSettlementHeaderMonetarySummation>
+          </ram:ApplicableHeaderTradeSettlement>
+        </rsm:SupplyChainTradeTransaction>
+      </rsm:CrossIndustryInvoice>
+      """
+          .formatted(RAM_NAMESPACE);
+
+  @Test
+  void testParseFinvoice() throws Exception {
+    Map<String, Object> data = parse(FINVOICE).orElseThrow().structuredData();
+
+    assertEquals("12345", data.get("invoice_number"));
+    assertEquals("2025-01-15", data.get("invoice_date"));
+    assertEquals("2025-01-31", data.get("due_date"));
+    assertEquals("249,60", data.get("total_amount"));
+    assertEquals("49,60", data.get("vat_amount"));
+    assertEquals("EUR", data.get("currency"));
+    assertEquals("Ostaja Oy", data.get("customer_name"));
+    assertEquals("Myyjä Oy", data.get("seller_name"));
+    assertEquals("RF18 1234", data.get("reference_number"));
+    assertEquals("Finvoice", data.get(EmbeddedInvoiceExtractionService.FORMAT_KEY));
+  }
+
+  @Test
+  void testParseFacturX() throws Exception {
+    EmbeddedInvoiceExtractionService.EmbeddedInvoice invoice = parse(FACTUR_X).orElseThrow();
+    Map<String, Object> data = invoice.structuredData();
+
+    assertEquals(EmbeddedInvoiceExtractionService.Format.FACTUR_X, invoice.format());
+    assertEquals("FX-2025-001", data.get("invoice_number"));
+    assertEquals("2025-01-15", data.get("invoice_date"));
+    assertEquals("2025-02-14", data.get("due_date"));
+    assertEquals("238.00", data.get("total_amount"));
+    assertEquals("38.00", data.get("vat_amount"));
+    assertEquals("EUR", data.get("currency"));
+    assertEquals("Buyer GmbH", data.get("customer_name"));
+  }
+
+  @Test
+  void testUnsupportedOrIncompleteXml() throws Exception {
+    assertTrue(parse("<Order><ID>1</ID></Order>").isEmpty());
+    assertTrue(parse("<Finvoice><InvoiceDetails/></Finvoice>").isEmpty());
+  }
+
+  @Test
+  void testExternalEntitiesAreNotResolved() throws Exception {
+    String xml =
+        """
+        <?xml version="1.0"?>
+        <!DOCTYPE Finvoice [<!ENTITY secret SYSTEM "file:///etc/hostname">]>
+        <Finvoice>
+          <InvoiceDetails><InvoiceNumber>1&secret;</InvoiceNumber></InvoiceDetails>
+        </Finvoice>
+        """;
+
+    assertThrows(Exception.class, () -> parse(xml));
+  }
+
+  @Test
+  void testExtractFromAttachment() throws Exception {
+    EmbeddedInvoiceExtractionService service = new EmbeddedInvoiceExtractionService();
+    service.enabled = true;
+
+    try (PDDocument document = new PDDocument()) {
+      document.addPage(new PDPage());
+      byte[] xml = FACTUR_X.strip().getBytes(StandardCharsets.UTF_8);
+      PDEmbeddedFile embedded = new PDEmbeddedFile(document, new ByteArrayInputStream(xml));
+      embedded.setSubtype("text/xml");
+      PDComplexFileSpecification file = new PDComplexFileSpecification();
+      file.setFile("factur-x.xml");
+      file.setEmbeddedFile(embedded);
+      PDEmbeddedFilesNameTreeNode tree = new PDEmbeddedFilesNameTreeNode();
+      tree.setNames(Map.of("factur-x.xml", file));
+      PDDocumentNameDictionary names = new PDDocumentNameDictionary(document.getDocumentCatalog());
+      names.setEmbeddedFiles(tree);
+      document.getDocumentCatalog().setNames(names);
+
+      EmbeddedInvoiceExtractionService.EmbeddedInvoice invoice =
+          service.extract(document).orElseThrow();
+
+      assertEquals("factur-x.xml", invoice.filename());
+      assertEquals("FX-2025-001", invoice.structuredData().get("invoice_number"));
+
+      service.enabled = false;
+      assertTrue(service.extract(document).isEmpty());
+    }
+  }
+
+  @Test
+  void testNormalize() {
+    assertEquals("2025-01-31", EmbeddedInvoiceExtractionService.normalize(" 20250131 "));
+    assertEquals("Ostaja Oy", EmbeddedInvoiceExtractionService.normalize("Ostaja\n  Oy"));
+    assertEquals("123456789", EmbeddedInvoiceExtractionService.normalize("123456789"));
+  }
+
+  private static Optional<EmbeddedInvoiceExtractionService.EmbeddedInvoice> parse(String xml)
+      throws Exception {
+    try (InputStream input =
+        new ByteArrayInputStream(xml.strip().getBytes(StandardCharsets.UTF_8))) {
+      return EmbeddedInvoiceExtractionService.parse(input, "invoice.xml");
+    }
+  }
+}
@@ -0,0 +1,91 @@
+package fi.sutinse.pdfextractor.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import fi.sutinse.pdfextractor.model.DocumentType;
+import fi.sutinse.pdfextractor.model.Language;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+class ExtractionEventsTest {
+
+  private static final String INVOICE = "Lasku numero: 12345\nEräpäivä: 31.12.2024\n";
+
+  @Test
+  void testEventsCarryCurrentDocument() throws IOException {
+    List<RecordedEvent> events =
+        record(
+            () -> {
+              long previous = ExtractionEvents.enter(42);
+              try {
+                new TextNormalizationService().normalizeText(INVOICE, Language.FINNISH);
+                new StructuredDataExtractionService()
+                    .extractStructuredData(INVOICE, DocumentType.INVOICE, Language.FINNISH);
+              } finally {
+                ExtractionEvents.exit(previous);
+              }
+            });
+
+    List<RecordedEvent> steps = ofType(events, "fi.sutinse.pdfextractor.NormalizationStep");
+    assertEquals(5, steps.size());
+    assertEquals("unicode", steps.get(0).getString("step"));
+    assertEquals("fin", steps.get(0).getString("language"));
+
+    RecordedEvent invoiceNumber =
+        ofType(events, "fi.sutinse.pdfextractor.FieldExtraction").stream()
+            .filter(event -> "invoice_number".equals(event.getString("field")))
+            .findFirst()
+            .orElseThrow();
+    assertTrue(invoiceNumber.getBoolean("matched"));
+    assertFalse(invoiceNumber.getBoolean("fuzzy"));
+
+    assertTrue(
+        events.stream()
+            .filter(event -> event.getEventType().getName().startsWith("fi.sutinse"))
+            .allMatch(event -> event.getLong("documentId") == 42));
+    assertEquals(0, ExtractionEvents.currentDocument());
+  }
+
+  @Test
+  void testFineGrainedEventsAreDisabledByDefault() throws Exception {
+    List<RecordedEvent> events;
+    Path file = Files.createTempFile("extraction-events", ".jfr");
+    try (Recording recording = new Recording(Configuration.getConfiguration("default"))) {
+      recording.start();
+      new TextNormalizationService().normalizeText(INVOICE, Language.FINNISH);
+      recording.stop();
+      recording.dump(file);
+      events = RecordingFile.readAllEvents(file);
+    } finally {
+      Files.deleteIfExists(file);
+    }
+
+    assertTrue(ofType(events, "fi.sutinse.pdfextractor.NormalizationStep").isEmpty());
+  }
+
+  private static List<RecordedEvent> record(Runnable work) throws IOException {
+    Path file = Files.createTempFile("extraction-events", ".jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable(ExtractionEvents.NormalizationStep.class);
+      recording.enable(ExtractionEvents.FieldExtraction.class);
+      recording.start();
+      work.run();
+      recording.stop();
+      recording.dump(file);
+      return RecordingFile.readAllEvents(file);
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  private static List<RecordedEvent> ofType(List<RecordedEvent> events, String name) {
+    return events.stream().filter(event -> event.getEventType().getName().equals(name)).toList();
+  }
+}
@@ -0,0 +1,135 @@
+package fi.sutinse.pdfextractor.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import fi.sutinse.pdfextractor.dto.ExtractionJobStatus;
+import fi.sutinse.pdfextractor.dto.ExtractionOptions;
+import fi.sutinse.pdfextractor.dto.JobPriority;
+import fi.sutinse.pdfextractor.dto.PdfExtractionResponse;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import org.junit.jupiter.api.Test;
+
+@QuarkusTest
+public class ExtractionJobServiceTest {
+
+  @Inject ExtractionJobService jobService;
+
+  @Test
+  public void testInvalidPdfJobFails() throws IOException, InterruptedException {
+    Path upload = Files.createTempFile("upload-", ".pdf");
+    Files.writeString(upload, "This is not a PDF");
+    ExtractionJobStatus queued;
+    try {
+      queued = jobService.submit(upload, "test.pdf", ExtractionOptions.ALL, JobPriority.NORMAL);
+    } finally {
+      // The job keeps its own copy, so the upload can go right away
+      Files.delete(upload);
+    }
+
+    assertNotNull(queued.jobId());
+    assertEquals(JobPriority.NORMAL, queued.priority());
+
+    ExtractionJob job = jobService.findJob(queued.jobId()).orElseThrow();
+    for (int i = 0; i < 100 && !job.status().state().isFinished(); i++) {
+      Thread.sleep(50);
+    }
+
+    ExtractionJobStatus status = job.status();
+    assertEquals(ExtractionJobStatus.State.FAILED, status.state());
+    assertNotNull(status.completedAt());
+    assertNotNull(status.expiresAt());
+    assertFalse(job.result().success());
+    assertTrue(job.result().errorMessage().contains("Failed to process PDF"));
+  }
+
+  @Test
+  public void testUnknownJob() {
+    assertTrue(jobService.findJob("no-such-job").isEmpty());
+  }
+
+  @Test
+  public void testJobsOrderByPriorityThenSubmission() {
+    PriorityQueue<ExtractionJob> queue = new PriorityQueue<>();
+    queue.add(job("low", JobPriority.LOW, 1));
+    queue.add(job("normal-2", JobPriority.NORMAL, 3));
+    queue.add(job("high", JobPriority.HIGH, 4));
+    queue.add(job("normal-1", JobPriority.NORMAL, 2));
+
+    List<String> order = new ArrayList<>();
+    while (!queue.isEmpty()) {
+      order.add(queue.poll().id());
+    }
+
+    assertEquals(List.of("high", "normal-1", "normal-2", "low"), order);
+  }
+
+  @Test
+  public void testOldestFinishedJobsAreEvictedBeyondLimit() throws Exception {
+    ExtractionJobService service = new ExtractionJobService();
+    service.workers = 1;
+    service.queueCapacity = 10;
+    service.retention = Duration.ofHours(1);
+    service.maxRetained = 2;
+    service.purgeInterval = Duration.ofHours(1);
+    service.admissionController = new OcrAdmissionController();
+    service.admissionController.retryTimeout = Duration.ofSeconds(1);
+    service.pdfExtractionService =
+        new PdfExtractionService() {
+          @Override
+          public PdfExtractionResponse extractText(
+              PdfSource source,
+              String filename,
+              ExtractionOptions options,
+              PageProgressListener progress) {
+            return PdfExtractionResponse.failure("Not extracted");
+          }
+        };
+    service.start();
+
+    Path upload = Files.createTempFile("upload-", ".pdf");
+    try {
+      List<String> ids = new ArrayList<>();
+      for (int i = 0; i < 3; i++) {
+        String id =
+            service.submit(upload, "test.pdf", ExtractionOptions.ALL, JobPriority.NORMAL).jobId();
+        ExtractionJob job = service.findJob(id).orElseThrow();
+        for (int wait = 0; wait < 100 && job.completedAt() == null; wait++) {
+          Thread.sleep(10);
+        }
+        assertNotNull(job.completedAt());
+        ids.add(id);
+        Thread.sleep(5);
+      }
+
+      service.purgeExpired();
+
+      assertTrue(service.findJob(ids.get(0)).isEmpty());
+      assertTrue(service.findJob(ids.get(1)).isPresent());
+      assertTrue(service.findJob(ids.get(2)).isPresent());
+    } finally {
+      service.stop();
+      Files.delete(upload);
+    }
+  }
+
+  private static ExtractionJob job(String id, JobPriority priority, long sequence) {
+    return new ExtractionJob(
+        id,
+        priority,
+        sequence,
+        null,
+        "test.pdf",
+        ExtractionOptions.ALL,
+        Duration.ZERO,
+        null,
+        null);
+  }
+}
@@ -0,0 +1,126 @@
+package fi.sutinse.pdfextractor.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import fi.sutinse.pdfextractor.dto.LaneStats;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.ContextKey;
+import io.opentelemetry.context.Scope;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ExtractionLanesTest {
+
+  private OcrAdmissionController admission;
+  private ExtractionLanes lanes;
+
+  @BeforeEach
+  void setUp() {
+    admission = new OcrAdmissionController();
+    admission.maxConcurrent = 1;
+    admission.maxWaiting = 1;
+    admission.maxWait = Duration.ofSeconds(5);
+    admission.retryAfter = Duration.ofSeconds(3);
+    admission.init();
+
+    lanes = new ExtractionLanes();
+    lanes.fastThreads = 1;
+    lanes.fastQueueCapacity = 1;
+    lanes.admissionController = admission;
+    lanes.start();
+  }
+
+  @AfterEach
+  void tearDown() {
+    lanes.stop();
+  }
+
+  @Test
+  void testTasksRunOnTheirLane() throws IOException {
+    assertTrue(lanes.runFast(() -> Thread.currentThread().getName()).startsWith("fast-lane-"));
+    assertTrue(lanes.runOcr(() -> Thread.currentThread().getName()).startsWith("ocr-lane-"));
+  }
+
+  @Test
+  void testTasksRunInCallerTraceContext() throws IOException {
+    ContextKey<String> key = ContextKey.named("request");
+    try (Scope scope = Context.current().with(key, "upload-1").makeCurrent()) {
+      assertEquals("upload-1", lanes.runFast(() -> Context.current().get(key)));
+      assertEquals("upload-1", lanes.runOcr(() -> Context.current().get(key)));
+    }
+    assertNull(lanes.runOcr(() -> Context.current().get(key)));
+  }
+
+  @Test
+  void testFailuresAreUnwrapped() {
+    IOException io =
+        assertThrows(
+            IOException.class,
+            () ->
+                lanes.runFast(
+                    () -> {
+                      throw new IOException("broken PDF");
+                    }));
+    assertEquals("broken PDF", io.getMessage());
+
+    assertThrows(
+        IllegalStateException.class,
+        () ->
+            lanes.runOcr(
+                () -> {
+                  throw new IllegalStateException("OCR failed");
+                }));
+  }
+
+  @Test
+  void testFastLaneIsFreeWhileOcrLaneIsFull() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch started = new CountDownLatch(1);
+    Thread busy = Thread.ofVirtual().start(() -> runBlockingOcr(started, release));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    Thread queued = Thread.ofVirtual().start(() -> runBlockingOcr(null, release));
+    while (admission.stats().waiting() == 0) {
+      Thread.sleep(1);
+    }
+
+    // One task holds the permit and one waits for it in admission control, not in a lane queue,
+    // so the OCR lane has no thread left and the next document is shed
+    assertEquals(2, lanes.stats().get(1).threads());
+    assertEquals(0, lanes.stats().get(1).queued());
+    OcrOverloadedException e =
+        assertThrows(OcrOverloadedException.class, () -> lanes.runOcr(() -> "rejected"));
+    assertEquals(Duration.ofSeconds(3), e.getRetryAfter());
+
+    // The fast lane still answers immediately
+    assertEquals("text", lanes.runFast(() -> "text"));
+
+    release.countDown();
+    busy.join();
+    queued.join();
+
+    LaneStats ocr = lanes.stats().get(1);
+    assertEquals("ocr", ocr.lane());
+    assertEquals(1, ocr.overflow());
+  }
+
+  private void runBlockingOcr(CountDownLatch started, CountDownLatch release) {
+    try {
+      lanes.runOcr(
+          () -> {
+            try (OcrAdmissionController.Permit permit = admission.acquire()) {
+              if (started != null) {
+                started.countDown();
+              }
+              return release.await(5, TimeUnit.SECONDS);
+            }
+          });
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
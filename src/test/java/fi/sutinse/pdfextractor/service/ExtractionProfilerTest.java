@@ -0,0 +1,51 @@
+package fi.sutinse.pdfextractor.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import fi.sutinse.pdfextractor.dto.ExtractionMethod;
+import fi.sutinse.pdfextractor.dto.ExtractionProfile;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+@QuarkusTest
+public class ExtractionProfilerTest {
+
+  @Inject ExtractionMetrics metrics;
+
+  @Test
+  public void testDetailedProfilerSumsStagesAndPages() {
+    ExtractionProfiler profiler = metrics.profiler(true);
+
+    for (int page = 0; page < 2; page++) {
+      ExtractionProfiler.Span render =
+          profiler.start(ExtractionMetrics.Stage.RENDER, ExtractionMethod.TESSERACT_OCR);
+      profiler.page(page, render.end(), 0, 2480 * 3508, 300, "lstm/psm1/fin");
+    }
+    profiler.start(ExtractionMetrics.Stage.CLASSIFY, ExtractionMethod.TESSERACT_OCR).end();
+
+    ExtractionProfile profile = profiler.profile();
+
+    assertEquals(2, profile.stages().size());
+    ExtractionProfile.StageTiming render = profile.stages().get(0);
+    assertEquals("render", render.stage());
+    assertEquals(ExtractionMethod.TESSERACT_OCR, render.method());
+    assertEquals(2, render.count());
+    assertEquals("classify", profile.stages().get(1).stage());
+
+    assertEquals(2, profile.pages().size());
+    assertEquals(1, profile.pages().get(0).page());
+    assertEquals(2, profile.pages().get(1).page());
+    assertEquals(300, profile.pages().get(0).dpi());
+    assertEquals("lstm/psm1/fin", profile.pages().get(0).engineProfile());
+    assertEquals(2L * 2480 * 3508, profile.pixelsRendered());
+  }
+
+  @Test
+  public void testPlainProfilerHasNoProfile() {
+    ExtractionProfiler profiler = metrics.profiler(false);
+    profiler.start(ExtractionMetrics.Stage.LOAD, ExtractionMethod.PDFBOX).end();
+
+    assertNull(profiler.profile());
+  }
+}
@@ -0,0 +1,122 @@
+package fi.sutinse.pdfextractor.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import fi.sutinse.pdfextractor.model.DocumentType;
+import java.util.List;
+import java.util.Map;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.pdmodel.interactive.form.PDAcroForm;
+import org.apache.pdfbox.pdmodel.interactive.form.PDCheckBox;
+import org.apache.pdfbox.pdmodel.interactive.form.PDTextField;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class FormFieldExtractionServiceTest {
+
+  private FormFieldExtractionService service;
+
+  @BeforeEach
+  void setUp() {
+    service = new FormFieldExtractionService();
+    service.structuredDataService = new StructuredDataExtractionService();
+    service.minFields = 3;
+  }
+
+  @Test
+  void testReadFilledFields() throws Exception {
+    try (PDDocument document = new PDDocument()) {
+      document.addPage(new PDPage());
+      PDAcroForm acroForm = new PDAcroForm(document);
+      PDResources resources = new PDResources();
+      resources.put(COSName.HELV, new PDType1Font(Standard14Fonts.FontName.HELVETICA));
+      acroForm.setDefaultResources(resources);
+      acroForm.setDefaultAppearance("/Helv 0 Tf 0 g");
+      document.getDocumentCatalog().setAcroForm(acroForm);
+
+      PDTextField name = new PDTextField(acroForm);
+      name.setPartialName("applicantName");
+      name.setAlternateFieldName("Hakijan nimi");
+      name.setValue("Matti Meikäläinen");
+      PDTextField empty = new PDTextField(acroForm);
+      empty.setPartialName("phone");
+      PDCheckBox consent = new PDCheckBox(acroForm);
+      consent.setPartialName("consent");
+      acroForm.getFields().addAll(List.of(name, empty, consent));
+
+      List<FormFieldExtractionService.FormField> fields = service.readFields(document);
+
+      assertEquals(
+          List.of(
+              new FormFieldExtractionService.FormField(
+                  "applicantName", "Hakijan nimi", "Matti Meikäläinen")),
+          fields);
+    }
+  }
+
+  @Test
+  void testDocumentWithoutForm() throws Exception {
+    try (PDDocument document = new PDDocument()) {
+      document.addPage(new PDPage());
+
+      assertTrue(service.readFields(document).isEmpty());
+    }
+  }
+
+  @Test
+  void testMapFieldsToSchema() {
+    List<FormFieldExtractionService.FormField> fields =
+        List.of(
+            field("form.form_number", "form number", "L-123"),
+            field("hakija", "Hakijan nimi", "Matti Meikäläinen"),
+            field("pvm", "Päivämäärä", "1.2.2025"),
+            field("puhelin", "Puhelin numero ja sähköpostiosoite", "040 123 4567"));
+
+    Map<String, Object> data = service.extractStructuredData(fields, DocumentType.FORM);
+
+    assertEquals("L-123", data.get("form_number"));
+    assertEquals("Matti Meikäläinen", data.get("applicant_name"));
+    assertEquals("1.2.2025", data.get("date"));
+    assertEquals(4, ((Map<?, ?>) data.get(FormFieldExtractionService.FORM_FIELDS_KEY)).size());
+  }
+
+  @Test
+  void testFirstFieldWins() {
+    List<FormFieldExtractionService.FormField> fields =
+        List.of(field("a", "Hakija", "Ensimmäinen"), field("b", "Hakijan nimi", "Toinen"));
+
+    Map<String, Object> data = service.extractStructuredData(fields, DocumentType.FORM);
+
+    assertEquals("Ensimmäinen", data.get("applicant_name"));
+  }
+
+  @Test
+  void testSufficiencyAndText() {
+    List<FormFieldExtractionService.FormField> fields =
+        List.of(field("a", "Nimi", "Matti"), field("b", "Päivämäärä", "1.2.2025"));
+
+    assertFalse(service.isSufficient(fields));
+    service.minFields = 2;
+    assertTrue(service.isSufficient(fields));
+    service.minFields = 0;
+    assertFalse(service.isSufficient(fields));
+    assertEquals("Nimi: Matti\nPäivämäärä: 1.2.2025", FormFieldExtractionService.toText(fields));
+  }
+
+  @Test
+  void testReadableName() {
+    assertEquals("applicant Name", FormFieldExtractionService.readableName("form.applicantName"));
+    assertEquals("form number", FormFieldExtractionService.readableName("form_number"));
+    assertEquals("", FormFieldExtractionService.readableName(null));
+  }
+
+  private static FormFieldExtractionService.FormField field(
+      String name, String label, String value) {
+    return new FormFieldExtractionService.FormField(name, label, value);
+  }
+}
@@ -0,0 +1,75 @@
+package fi.sutinse.pdfextractor.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import fi.sutinse.pdfextractor.model.DocumentSchema;
+import fi.sutinse.pdfextractor.model.DocumentType;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class FuzzyLabelMatcherTest {
+
+  private final FuzzyLabelMatcher matcher =
+      FuzzyLabelMatcher.forSchema(DocumentSchema.getSchemaForDocumentType(DocumentType.INVOICE));
+
+  @Test
+  void testExactLabelHasZeroCost() {
+    List<FuzzyLabelMatcher.LabelMatch> matches = matcher.findAll("Eräpäivä: 31.12.2024");
+
+    FuzzyLabelMatcher.LabelMatch match = findByKey(matches, "due_date");
+    assertNotNull(match);
+    assertEquals(0, match.cost());
+    assertEquals(0, match.start());
+    assertEquals("Eräpäivä".length(), match.end());
+  }
+
+  @Test
+  void testMissingDiacriticIsConfusion() {
+    FuzzyLabelMatcher.LabelMatch match =
+        findByKey(matcher.findAll("Erapäiva: 1.1.2025"), "due_date");
+
+    assertNotNull(match);
+    assertEquals("eräpäivä", match.label());
+    assertEquals(2 * FuzzyLabelMatcher.CONFUSION_COST, match.cost());
+  }
+
+  @Test
+  void testGlyphSplitAndMissingSpace() {
+    // "rn" read instead of "m", space between words lost
+    FuzzyLabelMatcher.LabelMatch match =
+        findByKey(matcher.findAll("Laskunurnero 12345"), "invoice_number");
+
+    assertNotNull(match);
+    assertEquals(2 * FuzzyLabelMatcher.CONFUSION_COST, match.cost());
+  }
+
+  @Test
+  void testDoesNotMatchInsideWords() {
+    List<FuzzyLabelMatcher.LabelMatch> matches = matcher.findAll("Alvarinkatu 5");
+
+    assertNull(findByKey(matches, "vat_amount"));
+  }
+
+  @Test
+  void testUnrelatedTextHasNoMatches() {
+    FuzzyLabelMatcher custom = new FuzzyLabelMatcher(Map.of("total", List.of("yhteensä")));
+
+    assertTrue(custom.findAll("Kiitos tilauksestanne").isEmpty());
+    assertEquals(1, custom.findAll("Yhteensa 10,00").size());
+  }
+
+  @Test
+  void testEmptyText() {
+    assertTrue(matcher.findAll("").isEmpty());
+    assertTrue(matcher.findAll(null).isEmpty());
+  }
+
+  private static FuzzyLabelMatcher.LabelMatch findByKey(
+      List<FuzzyLabelMatcher.LabelMatch> matches, String key) {
+    return matches.stream()
+        .filter(match -> match.key().equals(key))
+        .min((a, b) -> Integer.compare(a.cost(), b.cost()))
+        .orElse(null);
+  }
+}
@@ -0,0 +1,126 @@
+package fi.sutinse.pdfextractor.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import fi.sutinse.pdfextractor.dto.AdmissionStats;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class OcrAdmissionControllerTest {
+
+  private static OcrAdmissionController controller(int concurrent, int waiting, Duration maxWait) {
+    OcrAdmissionController controller = new OcrAdmissionController();
+    controller.maxConcurrent = concurrent;
+    controller.maxWaiting = waiting;
+    controller.maxWait = maxWait;
+    controller.retryAfter = Duration.ofSeconds(5);
+    controller.retryTimeout = Duration.ofSeconds(5);
+    controller.init();
+    return controller;
+  }
+
+  @Test
+  void testPermitsAreReleasedOnce() {
+    OcrAdmissionController controller = controller(1, 0, Duration.ofMillis(10));
+
+    OcrAdmissionController.Permit permit = controller.acquire();
+    assertEquals(1, controller.stats().active());
+    permit.close();
+    permit.close();
+
+    AdmissionStats stats = controller.stats();
+    assertEquals(0, stats.active());
+    assertEquals(1, stats.admitted());
+    try (OcrAdmissionController.Permit again = controller.acquire()) {
+      assertEquals(1, controller.stats().active());
+    }
+  }
+
+  @Test
+  void testFullQueueIsShedImmediately() {
+    OcrAdmissionController controller = controller(1, 0, Duration.ofSeconds(10));
+
+    try (OcrAdmissionController.Permit permit = controller.acquire()) {
+      OcrOverloadedException e =
+          assertThrows(OcrOverloadedException.class, controller::acquire);
+      assertEquals(Duration.ofSeconds(5), e.getRetryAfter());
+    }
+    assertEquals(1, controller.stats().rejected());
+  }
+
+  @Test
+  void testWaitTimesOut() {
+    OcrAdmissionController controller = controller(1, 1, Duration.ofMillis(20));
+
+    try (OcrAdmissionController.Permit permit = controller.acquire()) {
+      assertThrows(OcrOverloadedException.class, controller::acquire);
+    }
+    AdmissionStats stats = controller.stats();
+    assertEquals(1, stats.timedOut());
+    assertEquals(0, stats.waiting());
+    assertTrue(stats.maxWaitMs() >= 10);
+  }
+
+  @Test
+  void testWaiterIsAdmittedWhenPermitIsReleased() throws InterruptedException {
+    OcrAdmissionController controller = controller(1, 1, Duration.ofSeconds(10));
+    CountDownLatch admitted = new CountDownLatch(1);
+
+    OcrAdmissionController.Permit permit = controller.acquire();
+    Thread waiter =
+        Thread.ofVirtual()
+            .start(
+                () -> {
+                  try (OcrAdmissionController.Permit next = controller.acquire()) {
+                    admitted.countDown();
+                  }
+                });
+
+    while (controller.stats().waiting() == 0) {
+      Thread.sleep(1);
+    }
+    permit.close();
+
+    assertTrue(admitted.await(5, TimeUnit.SECONDS));
+    waiter.join();
+    assertEquals(2, controller.stats().admitted());
+  }
+
+  @Test
+  void testRetryWhileOverloaded() throws InterruptedException {
+    OcrAdmissionController controller = controller(1, 0, Duration.ofMillis(10));
+    AtomicInteger attempts = new AtomicInteger();
+
+    String result =
+        controller.retryWhileOverloaded(
+            () -> {
+              if (attempts.incrementAndGet() < 3) {
+                throw new OcrOverloadedException("busy", Duration.ofMillis(1));
+              }
+              return "done";
+            });
+
+    assertEquals("done", result);
+    assertEquals(3, attempts.get());
+  }
+
+  @Test
+  void testRetryGivesUpAfterTimeout() {
+    OcrAdmissionController controller = controller(1, 0, Duration.ofMillis(10));
+    controller.retryTimeout = Duration.ofMillis(50);
+    AtomicInteger attempts = new AtomicInteger();
+
+    assertThrows(
+        OcrOverloadedException.class,
+        () ->
+            controller.retryWhileOverloaded(
+                () -> {
+                  attempts.incrementAndGet();
+                  throw new OcrOverloadedException("busy", Duration.ofMillis(20));
+                }));
+    assertTrue(attempts.get() >= 2);
+  }
+}
@@ -0,0 +1,68 @@
+package fi.sutinse.pdfextractor.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import fi.sutinse.pdfextractor.dto.TextLocation;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class PageSpatialIndexTest {
+
+  @Test
+  void testNearestRightOfOnDensePage() {
+    // 100 lines of 50 words, 40 px apart vertically and 48 px apart horizontally
+    List<TextLocation> boxes = new ArrayList<>();
+    for (int line = 0; line < 100; line++) {
+      for (int column = 0; column < 50; column++) {
+        boxes.add(TextLocation.of(column * 48, line * 40, 40, 30, 1));
+      }
+    }
+    PageSpatialIndex index = PageSpatialIndex.of(boxes);
+
+    assertEquals(5000, index.size());
+    assertEquals(10 * 50 + 6, index.nextOnLine(10 * 50 + 5, 60, i -> true));
+    assertEquals(-1, index.nextOnLine(10 * 50 + 49, 60, i -> true));
+    assertEquals(-1, index.nextOnLine(10 * 50 + 5, 4, i -> true));
+  }
+
+  @Test
+  void testNearestBelowMatchesBruteForce() {
+    Random random = new Random(42);
+    List<TextLocation> boxes = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      boxes.add(TextLocation.of(random.nextInt(2400), random.nextInt(3400), 60, 30, 1));
+    }
+    PageSpatialIndex index = PageSpatialIndex.of(boxes);
+
+    for (int query = 0; query < 50; query++) {
+      int word = random.nextInt(boxes.size());
+      int l = index.left(word);
+      int t = index.top(word);
+      int r = index.right(word);
+      int b = index.bottom(word);
+      int found = index.nearestBelow(l, t, r, b, 90, i -> i != word);
+
+      int expected = -1;
+      long bestScore = Long.MAX_VALUE;
+      for (int i = 0; i < boxes.size(); i++) {
+        int gap = Math.max(0, index.top(i) - b);
+        if (i == word
+            || index.top(i) < b - 30 / 4
+            || gap > 90
+            || index.right(i) < l
+            || index.left(i) > r + 30) {
+          continue;
+        }
+        long score = (long) gap * 4 + Math.abs(index.left(i) - l);
+        if (score < bestScore) {
+          bestScore = score;
+          expected = i;
+        }
+      }
+
+      assertEquals(expected, found);
+    }
+  }
+}
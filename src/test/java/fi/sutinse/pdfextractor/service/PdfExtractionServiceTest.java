@@ -2,10 +2,41 @@ package fi.sutinse.pdfextractor.service;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import fi.sutinse.pdfextractor.dto.ExtractionMethod;
+import fi.sutinse.pdfextractor.dto.ExtractionOptions;
+import fi.sutinse.pdfextractor.dto.ExtractionStreamEvent;
+import fi.sutinse.pdfextractor.dto.PageExtractionResult;
 import fi.sutinse.pdfextractor.dto.PdfExtractionResponse;
+import fi.sutinse.pdfextractor.dto.StructuredText;
+import fi.sutinse.pdfextractor.dto.TextElement;
+import fi.sutinse.pdfextractor.dto.TextLocation;
+import fi.sutinse.pdfextractor.dto.WordBoxes;
 import fi.sutinse.pdfextractor.model.DocumentType;
+import fi.sutinse.pdfextractor.model.Language;
+import io.quarkus.test.junit.QuarkusMock;
 import io.quarkus.test.junit.QuarkusTest;
 import jakarta.inject.Inject;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDDocumentNameDictionary;
+import org.apache.pdfbox.pdmodel.PDEmbeddedFilesNameTreeNode;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.filespecification.PDComplexFileSpecification;
+import org.apache.pdfbox.pdmodel.common.filespecification.PDEmbeddedFile;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.pdmodel.interactive.form.PDAcroForm;
+import org.apache.pdfbox.pdmodel.interactive.form.PDTextField;
+import org.apache.pdfbox.rendering.PDFRenderer;
 import org.junit.jupiter.api.Test;
 
 @QuarkusTest
@@ -33,4 +64,223 @@ public class PdfExtractionServiceTest {
     assertNotNull(response.errorMessage());
     assertTrue(response.errorMessage().contains("Failed to process PDF"));
   }
+
+  @Test
+  public void testInvalidPdfFile() throws Exception {
+    Path file = Files.createTempFile("invalid-", ".pdf");
+    try {
+      Files.writeString(file, "This is not a PDF");
+      PdfSource source = PdfSource.of(file);
+      assertEquals(17, source.size());
+
+      PdfExtractionResponse response =
+          pdfExtractionService.extractText(
+              source, "test.pdf", ExtractionOptions.ALL, PageProgressListener.NONE);
+
+      assertFalse(response.success());
+      assertTrue(response.errorMessage().contains("Failed to process PDF"));
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  public void testProjectionKeepsOcrFieldValues() throws Exception {
+    QuarkusMock.installMockForType(new ScannedInvoiceOcr(), TesseractOcrService.class);
+    byte[] scan = blankPdf();
+
+    PdfExtractionResponse full =
+        pdfExtractionService.extractText(
+            PdfSource.of(scan), "scan.pdf", ExtractionOptions.ALL, PageProgressListener.NONE);
+    PdfExtractionResponse projected =
+        pdfExtractionService.extractText(
+            PdfSource.of(scan),
+            "scan.pdf",
+            ExtractionOptions.fromFields("structuredData"),
+            PageProgressListener.NONE);
+
+    assertTrue(full.success());
+    assertEquals("12345", full.extractedText().structuredData().get("invoice_number"));
+    assertEquals("31.12.2024", full.extractedText().structuredData().get("due_date"));
+    assertFalse(full.extractedText().fieldLocations().isEmpty());
+    assertEquals(full.extractedText().structuredData(), projected.extractedText().structuredData());
+    assertNull(projected.extractedText().elements());
+  }
+
+  @Test
+  public void testStreamSummaryLocatesOcrFieldValues() throws Exception {
+    QuarkusMock.installMockForType(new ScannedInvoiceOcr(), TesseractOcrService.class);
+    byte[] scan = blankPdf();
+
+    PdfExtractionResponse full =
+        pdfExtractionService.extractText(
+            PdfSource.of(scan), "scan.pdf", ExtractionOptions.ALL, PageProgressListener.NONE);
+    PdfExtractionResponse summary = streamSummary(scan, new ArrayList<>());
+
+    assertEquals(full.extractedText().structuredData(), summary.extractedText().structuredData());
+    assertEquals(full.extractedText().fieldLocations(), summary.extractedText().fieldLocations());
+  }
+
+  @Test
+  public void testStreamReadsEmbeddedInvoiceWithoutOcr() throws Exception {
+    QuarkusMock.installMockForType(new NoOcr(), TesseractOcrService.class);
+    byte[] pdf;
+    try (PDDocument document = blankDocument()) {
+      attachInvoice(document);
+      pdf = save(document);
+    }
+
+    PdfExtractionResponse full = pdfExtractionService.extractText(pdf, "invoice.pdf");
+    List<PageExtractionResult> pages = new ArrayList<>();
+    PdfExtractionResponse summary = streamSummary(pdf, pages);
+
+    assertEquals(ExtractionMethod.EMBEDDED_INVOICE, summary.methodUsed());
+    assertEquals(DocumentType.INVOICE, summary.documentType());
+    assertEquals("12345", summary.extractedText().structuredData().get("invoice_number"));
+    assertEquals(full.extractedText().structuredData(), summary.extractedText().structuredData());
+    assertEquals(ExtractionMethod.PDFBOX, pages.get(0).methodUsed());
+  }
+
+  @Test
+  public void testStreamReadsFilledFormWithoutOcr() throws Exception {
+    QuarkusMock.installMockForType(new NoOcr(), TesseractOcrService.class);
+    byte[] pdf;
+    try (PDDocument document = blankDocument()) {
+      fillForm(document, Map.of("name", "Matti", "city", "Oulu", "phone", "040 123"));
+      pdf = save(document);
+    }
+
+    PdfExtractionResponse full = pdfExtractionService.extractText(pdf, "form.pdf");
+    PdfExtractionResponse summary = streamSummary(pdf, new ArrayList<>());
+
+    assertEquals(ExtractionMethod.ACROFORM, full.methodUsed());
+    assertEquals(full.methodUsed(), summary.methodUsed());
+    assertEquals(full.documentType(), summary.documentType());
+    assertEquals(full.extractedText().structuredData(), summary.extractedText().structuredData());
+  }
+
+  /** Drains a page stream, collecting its pages and returning its summary */
+  private PdfExtractionResponse streamSummary(byte[] pdf, List<PageExtractionResult> pages)
+      throws Exception {
+    PdfExtractionResponse summary = null;
+    try (PageExtractionStream stream = pdfExtractionService.openPageStream(pdf, "stream.pdf")) {
+      for (ExtractionStreamEvent event : stream) {
+        if (event.page() != null) {
+          pages.add(event.page());
+        }
+        summary = event.summary();
+      }
+    }
+    assertNotNull(summary);
+    assertTrue(summary.success());
+    return summary;
+  }
+
+  private static byte[] blankPdf() throws Exception {
+    try (PDDocument document = blankDocument()) {
+      return save(document);
+    }
+  }
+
+  private static PDDocument blankDocument() {
+    PDDocument document = new PDDocument();
+    document.addPage(new PDPage());
+    return document;
+  }
+
+  private static byte[] save(PDDocument document) throws Exception {
+    try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+      document.save(out);
+      return out.toByteArray();
+    }
+  }
+
+  private static void attachInvoice(PDDocument document) throws Exception {
+    String finvoice =
+        """
+        <?xml version="1.0" encoding="UTF-8"?>
+        <Finvoice Version="3.0">
+          <InvoiceDetails>
+            <InvoiceNumber>12345</InvoiceNumber>
+            <InvoiceTotalVatIncludedAmount>249,60</InvoiceTotalVatIncludedAmount>
+          </InvoiceDetails>
+        </Finvoice>
+        """;
+    byte[] xml = finvoice.strip().getBytes(StandardCharsets.UTF_8);
+    PDEmbeddedFile embedded = new PDEmbeddedFile(document, new ByteArrayInputStream(xml));
+    embedded.setSubtype("text/xml");
+    PDComplexFileSpecification file = new PDComplexFileSpecification();
+    file.setFile("finvoice.xml");
+    file.setEmbeddedFile(embedded);
+    PDEmbeddedFilesNameTreeNode tree = new PDEmbeddedFilesNameTreeNode();
+    tree.setNames(Map.of("finvoice.xml", file));
+    PDDocumentNameDictionary names = new PDDocumentNameDictionary(document.getDocumentCatalog());
+    names.setEmbeddedFiles(tree);
+    document.getDocumentCatalog().setNames(names);
+  }
+
+  private static void fillForm(PDDocument document, Map<String, String> values) throws Exception {
+    PDAcroForm acroForm = new PDAcroForm(document);
+    PDResources resources = new PDResources();
+    resources.put(COSName.HELV, new PDType1Font(Standard14Fonts.FontName.HELVETICA));
+    acroForm.setDefaultResources(resources);
+    acroForm.setDefaultAppearance("/Helv 0 Tf 0 g");
+    document.getDocumentCatalog().setAcroForm(acroForm);
+    for (Map.Entry<String, String> value : values.entrySet()) {
+      PDTextField field = new PDTextField(acroForm);
+      field.setPartialName(value.getKey());
+      field.setValue(value.getValue());
+      acroForm.getFields().add(field);
+    }
+  }
+
+  /** OCR that must not be reached */
+  static class NoOcr extends TesseractOcrService {
+    @Override
+    public PageText extractPage(
+        PDDocument document, PDFRenderer renderer, int pageIndex, Language language) {
+      throw new AssertionError("OCR not expected");
+    }
+  }
+
+  /** OCR of a scanned invoice whose values sit right of their labels, not after them in the text */
+  static class ScannedInvoiceOcr extends TesseractOcrService {
+    private static final String TEXT = "Laskunumero Eräpäivä\n12345 31.12.2024";
+    private static final List<TextElement> WORDS =
+        List.of(
+            word("Laskunumero", 100, 100, 200),
+            word("12345", 500, 100, 100),
+            word("Eräpäivä", 100, 200, 150),
+            word("31.12.2024", 500, 200, 180));
+
+    @Override
+    public StructuredText extractStructuredTextFromPdf(
+        PdfSource source,
+        Language language,
+        PageProgressListener progress,
+        ExtractionProfiler profiler) {
+      return StructuredText.fromElements(TEXT, WORDS);
+    }
+
+    @Override
+    public PageText extractPage(
+        PDDocument document, PDFRenderer renderer, int pageIndex, Language language) {
+      WordBoxes words = new WordBoxes();
+      words.addAll(WORDS);
+      return new PageText(TEXT, words);
+    }
+
+    @Override
+    public String extractTextFromPdf(
+        PdfSource source,
+        Language language,
+        PageProgressListener progress,
+        ExtractionProfiler profiler) {
+      return TEXT;
+    }
+
+    private static TextElement word(String text, int x, int y, int width) {
+      return TextElement.withLocations(text, List.of(TextLocation.of(x, y, width, 30, 1)));
+    }
+  }
 }
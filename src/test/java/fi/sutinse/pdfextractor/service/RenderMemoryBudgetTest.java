@@ -0,0 +1,98 @@
+package fi.sutinse.pdfextractor.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.quarkus.runtime.configuration.MemorySize;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class RenderMemoryBudgetTest {
+
+  private static final float A4_WIDTH = 595.28f;
+  private static final float A4_HEIGHT = 841.89f;
+  private static final float A3_WIDTH = 841.89f;
+  private static final float A3_HEIGHT = 1190.55f;
+
+  /** A4 page at 300 DPI: 2481 x 3508 pixels */
+  private static final long A4_300_DPI = 2481L * 3508 * 4;
+
+  private static RenderMemoryBudget budget(long bytes, Duration maxWait) {
+    RenderMemoryBudget budget = new RenderMemoryBudget();
+    budget.memoryBudget = new MemorySize(BigInteger.valueOf(bytes));
+    budget.maxWait = maxWait;
+    budget.minDpi = 150;
+    budget.init();
+    return budget;
+  }
+
+  @Test
+  void testEstimate() {
+    assertEquals(A4_300_DPI, RenderMemoryBudget.estimateBytes(A4_WIDTH, A4_HEIGHT, 300));
+    assertEquals(300, RenderMemoryBudget.fittingDpi(A4_WIDTH, A4_HEIGHT, A4_300_DPI));
+    assertEquals(299, RenderMemoryBudget.fittingDpi(A4_WIDTH, A4_HEIGHT, A4_300_DPI - 1));
+    assertEquals(0, RenderMemoryBudget.fittingDpi(A4_WIDTH, A4_HEIGHT, 100));
+  }
+
+  @Test
+  void testReservationIsReleasedOnce() {
+    RenderMemoryBudget budget = budget(2 * A4_300_DPI, Duration.ofMillis(10));
+
+    RenderMemoryBudget.Reservation reservation = budget.reserve(A4_WIDTH, A4_HEIGHT, 300);
+    assertEquals(300, reservation.dpi());
+    assertEquals(A4_300_DPI, budget.reservedBytes());
+    assertEquals(1, budget.active());
+    reservation.close();
+    reservation.close();
+
+    assertEquals(0, budget.reservedBytes());
+    assertEquals(0, budget.active());
+  }
+
+  @Test
+  void testWaitsForReleasedMemory() throws Exception {
+    RenderMemoryBudget budget = budget(A4_300_DPI, Duration.ofSeconds(10));
+
+    RenderMemoryBudget.Reservation first = budget.reserve(A4_WIDTH, A4_HEIGHT, 300);
+    CompletableFuture<RenderMemoryBudget.Reservation> second =
+        CompletableFuture.supplyAsync(() -> budget.reserve(A4_WIDTH, A4_HEIGHT, 300));
+    while (budget.waiting() == 0) {
+      Thread.sleep(1);
+    }
+    first.close();
+
+    try (RenderMemoryBudget.Reservation reservation = second.get(5, TimeUnit.SECONDS)) {
+      assertEquals(300, reservation.dpi());
+    }
+    assertEquals(1, budget.waits());
+    assertEquals(0, budget.downscaled());
+  }
+
+  @Test
+  void testDownscalesWhenWaitTimesOut() {
+    RenderMemoryBudget budget = budget(A4_300_DPI * 3 / 2, Duration.ofMillis(20));
+
+    try (RenderMemoryBudget.Reservation first = budget.reserve(A4_WIDTH, A4_HEIGHT, 300);
+        RenderMemoryBudget.Reservation second = budget.reserve(A4_WIDTH, A4_HEIGHT, 300)) {
+      assertEquals(300, first.dpi());
+      assertTrue(second.dpi() < 300 && second.dpi() >= 150, "dpi " + second.dpi());
+      assertTrue(budget.reservedBytes() <= budget.budgetBytes());
+    }
+    assertEquals(1, budget.downscaled());
+  }
+
+  @Test
+  void testOversizedPageRendersAlone() {
+    long bytes = RenderMemoryBudget.estimateBytes(A4_WIDTH, A4_HEIGHT, 150);
+    RenderMemoryBudget budget = budget(bytes, Duration.ofMillis(20));
+
+    try (RenderMemoryBudget.Reservation reservation = budget.reserve(A3_WIDTH, A3_HEIGHT, 300)) {
+      assertEquals(150, reservation.dpi());
+      assertEquals(budget.budgetBytes(), budget.reservedBytes());
+      assertThrows(OcrOverloadedException.class, () -> budget.reserve(A4_WIDTH, A4_HEIGHT, 300));
+    }
+    assertEquals(0, budget.reservedBytes());
+  }
+}
@@ -0,0 +1,78 @@
+package fi.sutinse.pdfextractor.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.quarkus.runtime.configuration.MemorySize;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.math.BigInteger;
+import org.junit.jupiter.api.Test;
+
+class RenderTargetPoolTest {
+
+  private static final int WHITE = Color.WHITE.getRGB();
+
+  private static RenderTargetPool pool(long maxBytes) {
+    RenderTargetPool pool = new RenderTargetPool();
+    pool.poolMaxBytes = new MemorySize(BigInteger.valueOf(maxBytes));
+    pool.init();
+    return pool;
+  }
+
+  @Test
+  void testBucket() {
+    assertEquals(2560, RenderTargetPool.bucket(2480));
+    assertEquals(2560, RenderTargetPool.bucket(2550));
+    assertEquals(256, RenderTargetPool.bucket(256));
+    assertEquals(512, RenderTargetPool.bucket(257));
+  }
+
+  @Test
+  void testImageIsReusedWithinBucket() {
+    RenderTargetPool pool = pool(1024 * 1024);
+    BufferedImage first;
+    try (RenderTargetPool.RenderTarget target = pool.acquire(200, 300)) {
+      first = target.image();
+      assertEquals(200, first.getWidth());
+      assertEquals(300, first.getHeight());
+      first.setRGB(10, 10, Color.BLACK.getRGB());
+    }
+    assertEquals(256L * 512 * 4, pool.pooledBytes());
+
+    try (RenderTargetPool.RenderTarget target = pool.acquire(250, 400)) {
+      BufferedImage image = target.image();
+      assertEquals(250, image.getWidth());
+      assertSame(first.getRaster().getDataBuffer(), image.getRaster().getDataBuffer());
+      assertEquals(WHITE, image.getRGB(10, 10));
+      assertEquals(WHITE, image.getRGB(249, 399));
+      assertEquals(0, pool.pooledBytes());
+    }
+    assertEquals(1, pool.hits());
+    assertEquals(1, pool.misses());
+  }
+
+  @Test
+  void testOtherBucketGetsNewImage() {
+    RenderTargetPool pool = pool(1024 * 1024);
+    pool.acquire(200, 300).close();
+
+    try (RenderTargetPool.RenderTarget target = pool.acquire(300, 200)) {
+      assertEquals(300, target.image().getWidth());
+    }
+    assertEquals(2, pool.misses());
+  }
+
+  @Test
+  void testFullPoolDiscardsReleasedImages() {
+    RenderTargetPool pool = pool(256L * 256 * 4);
+    RenderTargetPool.RenderTarget first = pool.acquire(100, 100);
+    RenderTargetPool.RenderTarget second = pool.acquire(100, 100);
+
+    first.close();
+    first.close();
+    second.close();
+
+    assertEquals(256L * 256 * 4, pool.pooledBytes());
+    assertEquals(1, pool.discarded());
+  }
+}
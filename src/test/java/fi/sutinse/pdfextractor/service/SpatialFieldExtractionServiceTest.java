@@ -0,0 +1,88 @@
+package fi.sutinse.pdfextractor.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import fi.sutinse.pdfextractor.dto.TextElement;
+import fi.sutinse.pdfextractor.dto.TextLocation;
+import fi.sutinse.pdfextractor.model.DocumentType;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SpatialFieldExtractionServiceTest {
+
+  private SpatialFieldExtractionService service;
+
+  @BeforeEach
+  void setUp() {
+    service = new SpatialFieldExtractionService();
+    service.structuredDataService = new StructuredDataExtractionService();
+    service.enabled = true;
+    service.maxRightGap = 15;
+    service.maxBelowGap = 3;
+  }
+
+  @Test
+  void testValueRightOfLabel() {
+    List<TextElement> words =
+        List.of(word("Laskunumero", 100, 100, 200, 30), word("12345", 500, 100, 100, 30));
+
+    Map<String, SpatialFieldExtractionService.LocatedValue> fields =
+        service.extractFields(words, DocumentType.INVOICE);
+
+    assertEquals("12345", fields.get("invoice_number").value());
+    assertEquals(TextLocation.of(500, 100, 100, 30, 1), fields.get("invoice_number").location());
+  }
+
+  @Test
+  void testValueBelowLabel() {
+    List<TextElement> words =
+        List.of(word("Eräpäivä", 100, 200, 150, 30), word("31.12.2024", 100, 240, 180, 30));
+
+    Map<String, SpatialFieldExtractionService.LocatedValue> fields =
+        service.extractFields(words, DocumentType.INVOICE);
+
+    assertEquals("31.12.2024", fields.get("due_date").value());
+    assertEquals(240, fields.get("due_date").location().y());
+  }
+
+  @Test
+  void testMultiWordValueOnSameBaseline() {
+    List<TextElement> words =
+        List.of(
+            word("Yhteensä", 100, 300, 150, 30),
+            word("100,00", 600, 302, 80, 30),
+            word("€", 690, 300, 20, 30));
+
+    Map<String, SpatialFieldExtractionService.LocatedValue> fields =
+        service.extractFields(words, DocumentType.INVOICE);
+
+    assertEquals("100,00 €", fields.get("total_amount").value());
+    assertEquals(TextLocation.of(600, 300, 110, 32, 1), fields.get("total_amount").location());
+  }
+
+  @Test
+  void testLabelWordsAreNotValues() {
+    List<TextElement> words =
+        List.of(word("Eräpäivä", 100, 100, 150, 30), word("Yhteensä", 400, 100, 150, 30));
+
+    Map<String, SpatialFieldExtractionService.LocatedValue> fields =
+        service.extractFields(words, DocumentType.INVOICE);
+
+    assertNull(fields.get("due_date"));
+  }
+
+  @Test
+  void testDisabled() {
+    service.enabled = false;
+    List<TextElement> words =
+        List.of(word("Laskunumero", 100, 100, 200, 30), word("12345", 500, 100, 100, 30));
+
+    assertTrue(service.extractFields(words, DocumentType.INVOICE).isEmpty());
+  }
+
+  private static TextElement word(String text, int x, int y, int width, int height) {
+    return TextElement.withLocations(text, List.of(TextLocation.of(x, y, width, height, 1)));
+  }
+}
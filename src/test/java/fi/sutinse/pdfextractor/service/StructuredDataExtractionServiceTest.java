@@ -241,4 +241,30 @@ class StructuredDataExtractionServiceTest {
     assertEquals("PROD-001", result.get("item_number"));
     assertEquals("50 kpl", result.get("quantity"));
   }
-}
\ No newline at end of file
+
+  @Test
+  void testExtractStructuredDataWithGarbledOcrLabels() {
+    String text = """
+        Laskunurnero: 12345
+        Erapäivä: 31.12.2024
+        Yhteensa: 100,00 €
+        """;
+
+    Map<String, Object> result =
+        service.extractStructuredData(text, DocumentType.INVOICE, Language.FINNISH);
+
+    assertEquals("12345", result.get("invoice_number"));
+    assertEquals("31.12.2024", result.get("due_date"));
+    assertEquals("100,00 €", result.get("total_amount"));
+  }
+
+  @Test
+  void testLabelsAreNotMatchedInsideWords() {
+    String text = "Laskutusosoite: Testikatu 1";
+
+    Map<String, Object> result =
+        service.extractStructuredData(text, DocumentType.INVOICE, Language.FINNISH);
+
+    assertNull(result.get("invoice_number"));
+  }
+}